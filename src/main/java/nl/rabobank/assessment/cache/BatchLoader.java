@@ -0,0 +1,108 @@
+package nl.rabobank.assessment.cache;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Loads values by key in batches: the keys looked up within the window after the first one, up to the maximum batch
+ * size, are loaded with a single query, and every lookup gets the value of its key (or completes empty when there is
+ * none). Lookups of the same key in a batch share its value. A lookup that is cancelled stops waiting, but the batch it
+ * is part of is loaded anyway.
+ */
+public class BatchLoader<K, V> {
+
+	private final Function<Collection<K>, Flux<V>> loader;
+
+	private final Function<V, K> keyOf;
+
+	private final long windowNanos;
+
+	private final int maximumBatchSize;
+
+	private final Scheduler scheduler;
+
+	/**
+	 * The batch that is collecting keys, or null when no lookup is waiting for the window to pass.
+	 */
+	private Map<K, Sinks.One<V>> pending;
+
+	/**
+	 * @param loader Loads the values of the keys in a single query, in any order.
+	 * @param keyOf The key of a loaded value.
+	 */
+	public BatchLoader(Function<Collection<K>, Flux<V>> loader, Function<V, K> keyOf, Duration window,
+	                   int maximumBatchSize) {
+		this(loader, keyOf, window, maximumBatchSize, Schedulers.parallel());
+	}
+
+	BatchLoader(Function<Collection<K>, Flux<V>> loader, Function<V, K> keyOf, Duration window, int maximumBatchSize,
+	            Scheduler scheduler) {
+		this.loader = loader;
+		this.keyOf = keyOf;
+		this.windowNanos = window.toNanos();
+		this.maximumBatchSize = maximumBatchSize;
+		this.scheduler = scheduler;
+	}
+
+	public Mono<V> load(K key) {
+		return Mono.defer(() -> add(key).asMono());
+	}
+
+	private Sinks.One<V> add(K key) {
+		Sinks.One<V> value;
+		Map<K, Sinks.One<V>> full = null;
+		synchronized (this) {
+			if (pending == null) {
+				Map<K, Sinks.One<V>> batch = new HashMap<>();
+				pending = batch;
+				scheduler.schedule(() -> loadWhenPending(batch), windowNanos, TimeUnit.NANOSECONDS);
+			}
+			value = pending.computeIfAbsent(key, k -> Sinks.one());
+			if (pending.size() >= maximumBatchSize) {
+				full = pending;
+				pending = null;
+			}
+		}
+		if (full != null) {
+			load(full);
+		}
+		return value;
+	}
+
+	/**
+	 * Loads the batch when the window has passed, unless it was loaded already because it was full.
+	 */
+	private void loadWhenPending(Map<K, Sinks.One<V>> batch) {
+		synchronized (this) {
+			if (pending != batch) {
+				return;
+			}
+			pending = null;
+		}
+		load(batch);
+	}
+
+	private void load(Map<K, Sinks.One<V>> batch) {
+		List<K> keys = List.copyOf(batch.keySet());
+		Flux.defer(() -> loader.apply(keys)).subscribe(
+				value -> {
+					Sinks.One<V> sink = batch.remove(keyOf.apply(value));
+					if (sink != null) {
+						sink.tryEmitValue(value);
+					}
+				},
+				error -> batch.values().forEach(sink -> sink.tryEmitError(error)),
+				() -> batch.values().forEach(Sinks.One::tryEmitEmpty));
+	}
+}
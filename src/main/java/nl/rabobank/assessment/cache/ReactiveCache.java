@@ -0,0 +1,71 @@
+package nl.rabobank.assessment.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Read-through cache for reactive lookups. Concurrent lookups of the same key share a single load, also when the cache
+ * is disabled, and empty or failed loads are not cached. A load that no lookup waits for anymore still completes, so
+ * its value is cached.
+ */
+@RequiredArgsConstructor
+public class ReactiveCache<K, V> {
+
+	/**
+	 * Null when the cache is disabled, in which case only concurrent lookups share a load.
+	 */
+	private final AsyncCache<K, V> cache;
+
+	private final SingleFlight<K, V> inFlight = new SingleFlight<>();
+
+	public static <K, V> ReactiveCache<K, V> disabled() {
+		return new ReactiveCache<>(null);
+	}
+
+	/**
+	 * @param loader Loads the value when it isn't cached, completing empty when there is none.
+	 */
+	public Mono<V> get(K key, Function<K, Mono<V>> loader) {
+		if (cache == null) {
+			return inFlight.get(key, loader);
+		}
+		return Mono.fromFuture(() -> cache.get(key, (k, executor) -> loader.apply(k).toFuture()));
+	}
+
+	/**
+	 * Looks up the value without loading it, completing empty when it isn't cached or the cache is disabled. A load
+	 * that is in flight is waited for.
+	 */
+	public Mono<V> getIfPresent(K key) {
+		if (cache == null) {
+			return Mono.empty();
+		}
+		return Mono.defer(() -> Mono.justOrEmpty(cache.getIfPresent(key))).flatMap(Mono::fromFuture);
+	}
+
+	/**
+	 * Replaces the cached value, also when a load of the key is in flight.
+	 */
+	public void put(K key, V value) {
+		if (cache != null) {
+			cache.put(key, CompletableFuture.completedFuture(value));
+		} else {
+			inFlight.forget(key);
+		}
+	}
+
+	/**
+	 * Removes the cached value. A lookup after this doesn't share a load that was in flight before it.
+	 */
+	public void invalidate(K key) {
+		if (cache != null) {
+			cache.synchronous().invalidate(key);
+		} else {
+			inFlight.forget(key);
+		}
+	}
+}
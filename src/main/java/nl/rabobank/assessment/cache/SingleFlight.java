@@ -0,0 +1,59 @@
+package nl.rabobank.assessment.cache;
+
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Lets concurrent lookups of the same key share a single load, without keeping the result: a lookup that starts after
+ * the load completed loads again. Every lookup gets the value, the empty completion or the error of the shared load.
+ * A lookup that is cancelled stops waiting for the load, which itself is only cancelled when no lookup is waiting for
+ * it anymore.
+ */
+public class SingleFlight<K, V> {
+
+	private final Map<K, Load> inFlight = new ConcurrentHashMap<>();
+
+	/**
+	 * @param loader Loads the value when no load of the key is in flight, completing empty when there is none.
+	 */
+	public Mono<V> get(K key, Function<K, Mono<V>> loader) {
+		return Mono.defer(() -> inFlight.computeIfAbsent(key, k -> new Load(k, loader.apply(k))).result);
+	}
+
+	/**
+	 * Lets the next lookup of the key load again, for instance after a write, while the lookups that are waiting for
+	 * the load in flight still get its result.
+	 */
+	public void forget(K key) {
+		inFlight.remove(key);
+	}
+
+	/**
+	 * @return The number of keys being loaded.
+	 */
+	public int size() {
+		return inFlight.size();
+	}
+
+	private class Load {
+
+		private final Mono<V> result;
+
+		/**
+		 * The load leaves the map as soon as it completes or is cancelled, so no lookup joins it after that. The last
+		 * value is replayed to a lookup that joins between the value and the completion.
+		 */
+		Load(K key, Mono<V> load) {
+			this.result = load
+					.doOnTerminate(() -> inFlight.remove(key, this))
+					.doOnCancel(() -> inFlight.remove(key, this))
+					.flux()
+					.replay(1)
+					.refCount()
+					.singleOrEmpty();
+		}
+	}
+}
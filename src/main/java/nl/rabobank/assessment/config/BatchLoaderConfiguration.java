@@ -0,0 +1,34 @@
+package nl.rabobank.assessment.config;
+
+import nl.rabobank.assessment.cache.BatchLoader;
+import nl.rabobank.assessment.persistence.repository.PersonRepository;
+import nl.rabobank.assessment.persistence.repository.PetRepository;
+import nl.rabobank.assessment.ui.rest.model.response.PersonResponse;
+import nl.rabobank.assessment.ui.rest.model.response.PetResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Lookups of people and pets by id, loaded in batches with a single {@code WHERE id = ANY($1)} query per batch.
+ */
+@Configuration
+public class BatchLoaderConfiguration {
+
+	@Bean
+	public BatchLoader<UUID, PersonResponse> personLoader(PersonRepository personRepository,
+	                                                      @Value("${assessment.batch-loader.window}") Duration window,
+	                                                      @Value("${assessment.batch-loader.maximum-batch-size}") int maximumBatchSize) {
+		return new BatchLoader<>(personRepository::findResponsesByIdIn, PersonResponse::id, window, maximumBatchSize);
+	}
+
+	@Bean
+	public BatchLoader<UUID, PetResponse> petLoader(PetRepository petRepository,
+	                                                @Value("${assessment.batch-loader.window}") Duration window,
+	                                                @Value("${assessment.batch-loader.maximum-batch-size}") int maximumBatchSize) {
+		return new BatchLoader<>(petRepository::findResponsesByIdIn, PetResponse::id, window, maximumBatchSize);
+	}
+}
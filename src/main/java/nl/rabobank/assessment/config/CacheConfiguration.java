@@ -0,0 +1,60 @@
+package nl.rabobank.assessment.config;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import nl.rabobank.assessment.cache.ReactiveCache;
+import nl.rabobank.assessment.ui.rest.model.response.PersonResponse;
+import nl.rabobank.assessment.ui.rest.model.response.PetResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+@Configuration
+public class CacheConfiguration {
+
+	@Bean
+	public ReactiveCache<UUID, PersonResponse> personCache(@Value("${assessment.cache.person.maximum-size}") long maximumSize,
+	                                                       @Value("${assessment.cache.person.ttl}") Duration timeToLive,
+	                                                       MeterRegistry meterRegistry) {
+		return monitored(Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(timeToLive), "person", meterRegistry);
+	}
+
+	/**
+	 * Pet lists by owner, bounded by the total number of pets held (plus one per owner, so owners without pets count
+	 * too).
+	 */
+	@Bean
+	public ReactiveCache<UUID, List<PetResponse>> petsByOwnerCache(@Value("${assessment.cache.pets-by-owner.enabled}") boolean enabled,
+	                                                               @Value("${assessment.cache.pets-by-owner.maximum-weight}") long maximumWeight,
+	                                                               @Value("${assessment.cache.pets-by-owner.ttl}") Duration timeToLive,
+	                                                               MeterRegistry meterRegistry) {
+		if (!enabled) {
+			return ReactiveCache.disabled();
+		}
+		return monitored(Caffeine.newBuilder()
+				.maximumWeight(maximumWeight)
+				.<UUID, List<PetResponse>>weigher((personId, pets) -> pets.size() + 1)
+				.expireAfterWrite(timeToLive), "petsByOwner", meterRegistry);
+	}
+
+	/**
+	 * Binds the statistics with {@linkplain CaffeineCacheMetrics}, like the credential cache, so all caches publish the
+	 * same meters with the same tags (which Prometheus requires).
+	 */
+	private static <K, V> ReactiveCache<K, V> monitored(Caffeine<? super K, ? super V> builder, String name,
+	                                                    MeterRegistry meterRegistry) {
+		AsyncCache<K, V> cache = builder
+				.recordStats()
+				.buildAsync();
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+		return new ReactiveCache<>(cache);
+	}
+}
@@ -0,0 +1,63 @@
+package nl.rabobank.assessment.config;
+
+import nl.rabobank.assessment.persistence.entity.User;
+import nl.rabobank.assessment.persistence.memory.InMemoryPersonRepository;
+import nl.rabobank.assessment.persistence.memory.InMemoryPetRepository;
+import nl.rabobank.assessment.persistence.memory.InMemoryUserRepository;
+import nl.rabobank.assessment.persistence.repository.PersonRepository;
+import nl.rabobank.assessment.persistence.repository.PetRepository;
+import nl.rabobank.assessment.persistence.repository.UserRepository;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.util.List;
+
+/**
+ * Replaces the Postgres repositories by repositories that hold everything in memory, to measure the application
+ * without a database. application-in-memory.yml switches off R2DBC and Flyway for this profile.
+ */
+@Configuration
+@Profile(InMemoryRepositoryConfiguration.PROFILE)
+public class InMemoryRepositoryConfiguration {
+
+	public static final String PROFILE = "in-memory";
+
+	/**
+	 * Shared with the pet repository, which needs the people themselves rather than the bean, as the bean is wrapped
+	 * for metrics.
+	 */
+	private final InMemoryPersonRepository people = new InMemoryPersonRepository();
+
+	@Bean
+	public PersonRepository personRepository() {
+		return people;
+	}
+
+	@Bean
+	public PetRepository petRepository() {
+		return new InMemoryPetRepository(people);
+	}
+
+	/**
+	 * Holds the users that V1__setup_database.sql creates: user:user and admin:admin.
+	 */
+	@Bean
+	public UserRepository userRepository() {
+		InMemoryUserRepository userRepository = new InMemoryUserRepository();
+		userRepository.saveAll(List.of(
+				user("user", "$2a$12$9RY/1po134WtqcURPc9l1.P4jGH/jvEIfK4Hfr.5ZTlemeAr.a6Ea", User.Role.ROLE_USER),
+				user("admin", "$2a$12$5xP4JvgNaeF7UkPvSUD5xOO6dQACesKmAbolv51vi4dStwJEQmMwy", User.Role.ROLE_ADMIN)))
+				.blockLast();
+		return userRepository;
+	}
+
+	private static User user(String username, String password, User.Role role) {
+		User user = new User();
+		user.setUsername(username);
+		user.setPassword(password);
+		user.setRoles(List.of(role));
+		user.setEnabled(true);
+		return user;
+	}
+}
@@ -0,0 +1,37 @@
+package nl.rabobank.assessment.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import nl.rabobank.assessment.persistence.metrics.PersistenceMetricsPostProcessor;
+import nl.rabobank.assessment.persistence.metrics.QueryStatistics;
+import nl.rabobank.assessment.persistence.metrics.QueryStatisticsEndpoint;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class MetricsConfiguration {
+
+	/**
+	 * Static, as post processors are created before the other beans. The registry is looked up on first use.
+	 */
+	@Bean
+	public static PersistenceMetricsPostProcessor persistenceMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry,
+	                                                                              ObjectProvider<QueryStatistics> queryStatistics) {
+		return new PersistenceMetricsPostProcessor(meterRegistry, queryStatistics);
+	}
+
+	@Bean
+	public QueryStatistics queryStatistics(@Value("${assessment.query-statistics.slow-query-threshold}") Duration slowQueryThreshold,
+	                                       @Value("${assessment.query-statistics.maximum-statements}") int maximumStatements) {
+		return new QueryStatistics(slowQueryThreshold, maximumStatements);
+	}
+
+	@Bean
+	public QueryStatisticsEndpoint queryStatisticsEndpoint(QueryStatistics queryStatistics,
+	                                                       @Value("${assessment.query-statistics.top}") int top) {
+		return new QueryStatisticsEndpoint(queryStatistics, top);
+	}
+}
@@ -1,30 +1,67 @@
 package nl.rabobank.assessment.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import nl.rabobank.assessment.persistence.metrics.QueryStatisticsEndpoint;
 import nl.rabobank.assessment.persistence.repository.UserRepository;
+import nl.rabobank.assessment.security.AccessTokenAuthenticationManager;
+import nl.rabobank.assessment.security.AccessTokenProperties;
+import nl.rabobank.assessment.security.AccessTokenService;
+import nl.rabobank.assessment.security.BearerTokenServerAuthenticationConverter;
+import nl.rabobank.assessment.security.CachingReactiveAuthenticationManager;
+import nl.rabobank.assessment.security.CredentialCache;
+import nl.rabobank.assessment.security.CredentialCacheInvalidationCallback;
+import nl.rabobank.assessment.ui.rest.PersonController;
+import nl.rabobank.assessment.ui.rest.TokenController;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.reactive.EndpointRequest;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
 import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.AuthenticationWebFilter;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.security.web.server.authentication.ServerAuthenticationEntryPointFailureHandler;
+import org.springframework.security.web.server.util.matcher.NegatedServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatchers;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 @RequiredArgsConstructor
 @Configuration
 @EnableWebFluxSecurity
+@EnableConfigurationProperties(AccessTokenProperties.class)
 public class SecurityConfiguration {
 
 	private final UserRepository userRepository;
 
 	@Bean
-	public SecurityWebFilterChain springSecurityFilterChain(ServerHttpSecurity http) {
+	public SecurityWebFilterChain springSecurityFilterChain(ServerHttpSecurity http,
+	                                                        AccessTokenService accessTokenService) {
 		http
 				.csrf().disable()
+				.addFilterAt(bearerTokenAuthenticationFilter(accessTokenService), SecurityWebFiltersOrder.AUTHENTICATION)
 				.authorizeExchange()
+				.pathMatchers(HttpMethod.POST, TokenController.BASE_URL).authenticated()
 				.pathMatchers(HttpMethod.PUT, "/v1/person/*").hasRole("ADMIN")
+				.pathMatchers(HttpMethod.POST, PersonController.IMPORT_URL).hasRole("ADMIN")
+				.matchers(EndpointRequest.to(QueryStatisticsEndpoint.class)).hasRole("ADMIN")
 				.anyExchange()
 				.permitAll()
 				.and()
@@ -32,6 +69,12 @@ public class SecurityConfiguration {
 		return http.build();
 	}
 
+	@Bean
+	public AccessTokenService accessTokenService(AccessTokenProperties accessTokenProperties,
+	                                             ObjectMapper objectMapper) {
+		return new AccessTokenService(accessTokenProperties, objectMapper, Clock.systemUTC());
+	}
+
 	@Bean
 	public ReactiveUserDetailsService userDetailsService() {
 		return userRepository::findByUsername;
@@ -41,4 +84,54 @@ public class SecurityConfiguration {
 	public PasswordEncoder passwordEncoder() {
 		return new BCryptPasswordEncoder();
 	}
+
+	@Bean
+	public CredentialCache credentialCache(@Value("${assessment.security.credential-cache.maximum-size}") long maximumSize,
+	                                       @Value("${assessment.security.credential-cache.ttl}") Duration timeToLive,
+	                                       MeterRegistry meterRegistry) {
+		CredentialCache credentialCache = new CredentialCache(maximumSize, timeToLive);
+		credentialCache.bindTo(meterRegistry);
+		return credentialCache;
+	}
+
+	@Bean
+	public CredentialCacheInvalidationCallback credentialCacheInvalidationCallback(CredentialCache credentialCache) {
+		return new CredentialCacheInvalidationCallback(credentialCache);
+	}
+
+	/**
+	 * Fixed size pool with a bounded queue for password hashing, so slow hashes never run on the event loop and a
+	 * burst of logins is rejected instead of piling up.
+	 */
+	@Bean(destroyMethod = "shutdown")
+	public ThreadPoolExecutor passwordHashingExecutor(@Value("${assessment.security.password-hashing.pool-size}") int poolSize,
+	                                                  @Value("${assessment.security.password-hashing.queue-capacity}") int queueCapacity) {
+		return new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("password-hashing-"),
+				new ThreadPoolExecutor.AbortPolicy());
+	}
+
+	@Bean
+	public ReactiveAuthenticationManager authenticationManager(ReactiveUserDetailsService userDetailsService,
+	                                                           PasswordEncoder passwordEncoder,
+	                                                           CredentialCache credentialCache,
+	                                                           ThreadPoolExecutor passwordHashingExecutor) {
+		return new CachingReactiveAuthenticationManager(userDetailsService, passwordEncoder, credentialCache,
+				Schedulers.fromExecutorService(passwordHashingExecutor, "password-hashing"));
+	}
+
+	/**
+	 * Authenticates requests carrying an access token. Tokens can only be obtained with Basic credentials, so the
+	 * token endpoint itself ignores them.
+	 */
+	private AuthenticationWebFilter bearerTokenAuthenticationFilter(AccessTokenService accessTokenService) {
+		AuthenticationWebFilter filter = new AuthenticationWebFilter(
+				new AccessTokenAuthenticationManager(accessTokenService));
+		filter.setServerAuthenticationConverter(new BearerTokenServerAuthenticationConverter());
+		filter.setRequiresAuthenticationMatcher(new NegatedServerWebExchangeMatcher(
+				ServerWebExchangeMatchers.pathMatchers(HttpMethod.POST, TokenController.BASE_URL)));
+		filter.setAuthenticationFailureHandler(new ServerAuthenticationEntryPointFailureHandler(
+				new HttpStatusServerEntryPoint(HttpStatus.UNAUTHORIZED)));
+		return filter;
+	}
 }
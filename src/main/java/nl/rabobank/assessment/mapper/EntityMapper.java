@@ -21,10 +21,12 @@ public interface EntityMapper {
 
 	Pet toPet(PetRequest petRequest);
 
-	Pet toPet(@MappingTarget Pet pet, PetRequest petRequest);
-
 	PetResponse toPetResponse(Pet pet);
 
+	PetRequest toPetRequest(Pet pet);
+
+	UpdateAddressRequest toUpdateAddressRequest(Person person);
+
 	@Mapping(target = "lastName", ignore = true)
 	@Mapping(target = "firstName", ignore = true)
 	@Mapping(target = "dateOfBirth", ignore = true)
@@ -4,6 +4,7 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
+import nl.rabobank.assessment.persistence.id.Ids;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.domain.Persistable;
 
@@ -56,7 +57,7 @@ public class Person implements Persistable<UUID> {
 	@Override
 	public boolean isNew() {
 		if (id == null) {
-			id = UUID.randomUUID();
+			id = Ids.next();
 			return true;
 		}
 		return false;
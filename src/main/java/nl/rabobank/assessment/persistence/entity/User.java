@@ -4,6 +4,7 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
+import nl.rabobank.assessment.persistence.id.Ids;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.domain.Persistable;
 import org.springframework.security.core.GrantedAuthority;
@@ -72,13 +73,13 @@ public class User implements Persistable<UUID>, UserDetails {
 	@Override
 	public boolean isNew() {
 		if (id == null) {
-			id = UUID.randomUUID();
+			id = Ids.next();
 			return true;
 		}
 		return false;
 	}
 
-	enum Role {
+	public enum Role {
 		ROLE_USER,
 		ROLE_ADMIN
 	}
@@ -0,0 +1,21 @@
+package nl.rabobank.assessment.persistence.id;
+
+import java.util.UUID;
+
+/**
+ * Generates the ids the entities assign to themselves when they are saved for the first time.
+ *
+ * @see Ids
+ */
+@FunctionalInterface
+public interface IdGenerator {
+
+	UUID generate();
+
+	/**
+	 * Random (version 4) ids, spread evenly over the whole id space.
+	 */
+	static IdGenerator random() {
+		return UUID::randomUUID;
+	}
+}
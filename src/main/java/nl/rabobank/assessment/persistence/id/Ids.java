@@ -0,0 +1,36 @@
+package nl.rabobank.assessment.persistence.id;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.time.Clock;
+import java.util.Comparator;
+import java.util.UUID;
+
+/**
+ * The {@link IdGenerator} used by the entities, time-ordered unless another one is set.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class Ids {
+
+	/**
+	 * The order of ids in Postgres, which compares the bytes unsigned (unlike {@link UUID#compareTo}).
+	 */
+	public static final Comparator<UUID> ORDER = Comparator
+			.comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+			.thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+
+	private static volatile IdGenerator generator = new TimeOrderedIdGenerator(Clock.systemUTC());
+
+	public static UUID next() {
+		return generator.generate();
+	}
+
+	public static IdGenerator getGenerator() {
+		return generator;
+	}
+
+	public static void setGenerator(IdGenerator generator) {
+		Ids.generator = generator;
+	}
+}
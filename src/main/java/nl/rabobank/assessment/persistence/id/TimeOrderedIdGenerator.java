@@ -0,0 +1,48 @@
+package nl.rabobank.assessment.persistence.id;
+
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates time-ordered (version 7) ids: a millisecond timestamp, followed by a 12 bit counter and 62 random bits.
+ * New rows therefore land at the right edge of the primary key index instead of on a random page.
+ * <p>
+ * Ids are strictly increasing within the process, also when generated concurrently: timestamp and counter are
+ * advanced together with a compare-and-set, and when more than 4096 ids are generated within a millisecond (or the
+ * clock goes backwards) the counter overflows into the timestamp, which then runs slightly ahead of the clock.
+ */
+public class TimeOrderedIdGenerator implements IdGenerator {
+
+	private static final int COUNTER_BITS = 12;
+
+	private static final long VERSION = 7L << COUNTER_BITS;
+
+	private static final long VARIANT = 0b10L << 62;
+
+	private static final long RANDOM_MASK = -1L >>> 2;
+
+	private static final ThreadLocal<SecureRandom> RANDOM = ThreadLocal.withInitial(SecureRandom::new);
+
+	private final Clock clock;
+
+	/**
+	 * The timestamp and counter of the last id, as {@code timestamp << 12 | counter}.
+	 */
+	private final AtomicLong last = new AtomicLong();
+
+	public TimeOrderedIdGenerator(Clock clock) {
+		this.clock = clock;
+	}
+
+	@Override
+	public UUID generate() {
+		long now = clock.millis() << COUNTER_BITS;
+		long next = last.updateAndGet(previous -> Math.max(previous + 1, now));
+		long timestamp = next >>> COUNTER_BITS;
+		long counter = next & ((1L << COUNTER_BITS) - 1);
+		return new UUID(timestamp << 16 | VERSION | counter,
+				VARIANT | (RANDOM.get().nextLong() & RANDOM_MASK));
+	}
+}
@@ -0,0 +1,298 @@
+package nl.rabobank.assessment.persistence.memory;
+
+import nl.rabobank.assessment.persistence.id.Ids;
+import nl.rabobank.assessment.persistence.repository.IntegrityConstraintViolationException;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.BeanUtils;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.data.domain.Persistable;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.util.ReflectionUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.StreamSupport;
+
+/**
+ * A table held in memory. Rows are kept ordered by id, in the order of Postgres, in a concurrent map, so reads never
+ * lock. Writes are serialized on a lock that is shared by tables referring to each other, which keeps the secondary
+ * indexes and the constraints consistent. Rows are copied on the way in and out, so callers can't change stored rows.
+ */
+abstract class InMemoryCrudRepository<T extends Persistable<UUID>> implements ReactiveCrudRepository<T, UUID> {
+
+	final Object lock;
+
+	final ConcurrentNavigableMap<UUID, T> rows = new ConcurrentSkipListMap<>(Ids.ORDER);
+
+	private final Class<T> type;
+
+	private final String table;
+
+	private final List<Consumer<T>> deleteListeners = new CopyOnWriteArrayList<>();
+
+	InMemoryCrudRepository(Class<T> type, String table, Object lock) {
+		this.type = type;
+		this.table = table;
+		this.lock = lock;
+	}
+
+	/**
+	 * Checks the constraints of a row that is about to be written. Called while holding the lock.
+	 *
+	 * @param previous The stored row, or null when the row is inserted.
+	 * @throws IntegrityConstraintViolationException When the row violates a constraint.
+	 */
+	abstract void check(T previous, T row);
+
+	/**
+	 * Updates the secondary indexes after a row was written or deleted. Called while holding the lock.
+	 *
+	 * @param previous The row that was replaced or deleted, or null when the row was inserted.
+	 * @param row The row that was written, or null when the row was deleted.
+	 */
+	abstract void index(T previous, T row);
+
+	/**
+	 * Registers a callback that is run for every deleted row while holding the lock, like an {@code ON DELETE} action
+	 * of a foreign key.
+	 */
+	void onDelete(Consumer<T> listener) {
+		deleteListeners.add(listener);
+	}
+
+	@Override
+	public <S extends T> Mono<S> save(S entity) {
+		return Mono.fromCallable(() -> {
+			synchronized (lock) {
+				if (entity.isNew()) {
+					insert(copy(entity));
+				} else {
+					T previous = rows.get(entity.getId());
+					if (previous == null) {
+						throw new TransientDataAccessResourceException(String.format(
+								"Failed to update table [%s]; Row with Id [%s] does not exist", table, entity.getId()));
+					}
+					write(previous, copy(entity));
+				}
+				return entity;
+			}
+		});
+	}
+
+	@Override
+	public <S extends T> Flux<S> saveAll(Iterable<S> entities) {
+		return Flux.fromIterable(entities).concatMap(this::save);
+	}
+
+	@Override
+	public <S extends T> Flux<S> saveAll(Publisher<S> entities) {
+		return Flux.from(entities).concatMap(this::save);
+	}
+
+	/**
+	 * Inserts all entities, assigning an id to each of them first. Like a single statement, either all of them are
+	 * inserted or, when one of them violates a constraint, none. Readers may see the rows of a failed batch until it has
+	 * been rolled back.
+	 *
+	 * @return The number of inserted rows.
+	 */
+	public Mono<Long> insertAll(List<T> entities) {
+		return Mono.fromCallable(() -> {
+			synchronized (lock) {
+				List<T> inserted = new ArrayList<>(entities.size());
+				try {
+					for (T entity : entities) {
+						entity.isNew();
+						inserted.add(insert(copy(entity)));
+					}
+				} catch (RuntimeException e) {
+					inserted.forEach(row -> {
+						rows.remove(row.getId());
+						index(row, null);
+					});
+					throw e;
+				}
+				return (long) inserted.size();
+			}
+		});
+	}
+
+	@Override
+	public Mono<T> findById(UUID id) {
+		return Mono.fromSupplier(() -> copyOrNull(rows.get(id)));
+	}
+
+	@Override
+	public Mono<T> findById(Publisher<UUID> id) {
+		return Mono.from(id).flatMap(this::findById);
+	}
+
+	@Override
+	public Mono<Boolean> existsById(UUID id) {
+		return Mono.fromSupplier(() -> rows.containsKey(id));
+	}
+
+	@Override
+	public Mono<Boolean> existsById(Publisher<UUID> id) {
+		return Mono.from(id).flatMap(this::existsById);
+	}
+
+	@Override
+	public Flux<T> findAll() {
+		return Flux.fromStream(() -> rows.values().stream().map(this::copy));
+	}
+
+	public Flux<T> findPage(int limit) {
+		return Flux.fromStream(() -> rows.values().stream().limit(limit).map(this::copy));
+	}
+
+	public Flux<T> findPageAfter(UUID after, int limit) {
+		return Flux.fromStream(() -> rows.tailMap(after, false).values().stream().limit(limit).map(this::copy));
+	}
+
+	@Override
+	public Flux<T> findAllById(Iterable<UUID> ids) {
+		return Flux.fromStream(() -> StreamSupport.stream(ids.spliterator(), false)
+				.map(rows::get)
+				.map(this::copyOrNull)
+				.filter(Objects::nonNull));
+	}
+
+	@Override
+	public Flux<T> findAllById(Publisher<UUID> ids) {
+		return Flux.from(ids).concatMap(this::findById);
+	}
+
+	@Override
+	public Mono<Long> count() {
+		return Mono.fromSupplier(() -> (long) rows.size());
+	}
+
+	@Override
+	public Mono<Void> deleteById(UUID id) {
+		return Mono.fromRunnable(() -> remove(id));
+	}
+
+	@Override
+	public Mono<Void> deleteById(Publisher<UUID> id) {
+		return Mono.from(id).flatMap(this::deleteById);
+	}
+
+	@Override
+	public Mono<Void> delete(T entity) {
+		return deleteById(entity.getId());
+	}
+
+	@Override
+	public Mono<Void> deleteAllById(Iterable<? extends UUID> ids) {
+		return Mono.fromRunnable(() -> ids.forEach(this::remove));
+	}
+
+	@Override
+	public Mono<Void> deleteAll(Iterable<? extends T> entities) {
+		return Mono.fromRunnable(() -> entities.forEach(entity -> remove(entity.getId())));
+	}
+
+	@Override
+	public Mono<Void> deleteAll(Publisher<? extends T> entities) {
+		return Flux.from(entities).concatMap(this::delete).then();
+	}
+
+	@Override
+	public Mono<Void> deleteAll() {
+		return Mono.fromRunnable(() -> rows.keySet().forEach(this::remove));
+	}
+
+	/**
+	 * Inserts a row that nobody else holds a reference to. Called while holding the lock.
+	 *
+	 * @return The inserted row.
+	 * @throws IntegrityConstraintViolationException When the id is taken or the row violates another constraint.
+	 */
+	T insert(T row) {
+		if (rows.containsKey(row.getId())) {
+			throw new IntegrityConstraintViolationException(table + "_pkey",
+					String.format("Duplicate key: %s with id %s already exists.", table, row.getId()));
+		}
+		check(null, row);
+		rows.put(row.getId(), row);
+		index(null, row);
+		return row;
+	}
+
+	/**
+	 * Replaces a stored row by a row that nobody else holds a reference to. Called while holding the lock.
+	 */
+	void write(T previous, T row) {
+		check(previous, row);
+		rows.put(row.getId(), row);
+		index(previous, row);
+	}
+
+	/**
+	 * @return The deleted row, or null when there was no row with the id.
+	 */
+	T remove(UUID id) {
+		synchronized (lock) {
+			T removed = rows.remove(id);
+			if (removed != null) {
+				index(removed, null);
+				deleteListeners.forEach(listener -> listener.accept(removed));
+			}
+			return removed;
+		}
+	}
+
+	/**
+	 * @return The first row, in id order, of the given ids that still matches the condition the ids were indexed by.
+	 */
+	T first(Set<UUID> ids, Predicate<T> condition) {
+		if (ids == null) {
+			return null;
+		}
+		return ids.stream()
+				.map(rows::get)
+				.filter(row -> row != null && condition.test(row))
+				.findFirst()
+				.map(this::copy)
+				.orElse(null);
+	}
+
+	T copy(T row) {
+		T copy = BeanUtils.instantiateClass(type);
+		ReflectionUtils.shallowCopyFieldState(row, copy);
+		return copy;
+	}
+
+	T copyOrNull(T row) {
+		return row == null ? null : copy(row);
+	}
+
+	static <K> void addToIndex(Map<K, NavigableSet<UUID>> index, K key, UUID id) {
+		if (key != null) {
+			index.computeIfAbsent(key, k -> new ConcurrentSkipListSet<>(Ids.ORDER)).add(id);
+		}
+	}
+
+	static <K> void removeFromIndex(Map<K, NavigableSet<UUID>> index, K key, UUID id) {
+		if (key != null) {
+			index.computeIfPresent(key, (k, ids) -> {
+				ids.remove(id);
+				return ids.isEmpty() ? null : ids;
+			});
+		}
+	}
+}
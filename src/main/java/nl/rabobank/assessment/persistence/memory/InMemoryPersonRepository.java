@@ -0,0 +1,216 @@
+package nl.rabobank.assessment.persistence.memory;
+
+import nl.rabobank.assessment.persistence.entity.Person;
+import nl.rabobank.assessment.persistence.id.Ids;
+import nl.rabobank.assessment.persistence.repository.IntegrityConstraintViolationException;
+import nl.rabobank.assessment.persistence.repository.PersonRepository;
+import nl.rabobank.assessment.ui.rest.model.response.PersonResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * People held in memory, with the indexes and the unique full name constraint of the person table.
+ */
+public class InMemoryPersonRepository extends InMemoryCrudRepository<Person> implements PersonRepository {
+
+	/**
+	 * The unique constraint on the full name, as named in V5__unique_person_full_name.sql.
+	 */
+	static final String FULL_NAME_CONSTRAINT = "person_first_name_last_name_key";
+
+	private static final Comparator<Match> SEARCH_ORDER = Comparator
+			.<Match, Boolean>comparing(Match::prefix).reversed()
+			.thenComparing(Comparator.comparingDouble(Match::similarity).reversed())
+			.thenComparing(match -> match.person().getId(), Ids.ORDER);
+
+	private final Map<String, NavigableSet<UUID>> byFirstName = new ConcurrentHashMap<>();
+
+	private final Map<String, NavigableSet<UUID>> byLastName = new ConcurrentHashMap<>();
+
+	private final Map<FullName, UUID> byFullName = new ConcurrentHashMap<>();
+
+	public InMemoryPersonRepository() {
+		super(Person.class, "person", new Object());
+	}
+
+	@Override
+	void check(Person previous, Person row) {
+		UUID namesake = byFullName.get(FullName.of(row));
+		if (namesake != null && !namesake.equals(row.getId())) {
+			throw new IntegrityConstraintViolationException(FULL_NAME_CONSTRAINT, String.format(
+					"Duplicate key: a person named %s %s already exists.", row.getFirstName(), row.getLastName()));
+		}
+	}
+
+	@Override
+	void index(Person previous, Person row) {
+		if (previous != null) {
+			removeFromIndex(byFirstName, previous.getFirstName(), previous.getId());
+			removeFromIndex(byLastName, previous.getLastName(), previous.getId());
+			byFullName.remove(FullName.of(previous), previous.getId());
+		}
+		if (row != null) {
+			addToIndex(byFirstName, row.getFirstName(), row.getId());
+			addToIndex(byLastName, row.getLastName(), row.getId());
+			byFullName.put(FullName.of(row), row.getId());
+		}
+	}
+
+	@Override
+	public Mono<Boolean> existsByFirstNameAndLastName(String firstName, String lastName) {
+		return Mono.fromSupplier(() -> findByFullName(new FullName(firstName, lastName)) != null);
+	}
+
+	@Override
+	public Mono<Person> findFirstByFirstName(String firstName) {
+		return Mono.fromSupplier(() -> first(byFirstName.get(firstName),
+				person -> firstName.equals(person.getFirstName())));
+	}
+
+	@Override
+	public Mono<Person> findPersonByFirstNameAndLastName(String firstName, String lastName) {
+		return Mono.fromSupplier(() -> copyOrNull(findByFullName(new FullName(firstName, lastName))));
+	}
+
+	@Override
+	public Mono<Person> findFirstByLastName(String lastName) {
+		return Mono.fromSupplier(() -> first(byLastName.get(lastName),
+				person -> lastName.equals(person.getLastName())));
+	}
+
+	@Override
+	public Mono<Person> updateAddressReturningPrevious(UUID id, String street, Integer houseNumber,
+	                                                   String houseNumberAdditions, String postalCode, String city,
+	                                                   String country) {
+		return Mono.fromCallable(() -> {
+			synchronized (lock) {
+				Person previous = rows.get(id);
+				if (previous == null) {
+					return null;
+				}
+				Person row = copy(previous);
+				row.setStreet(street);
+				row.setHouseNumber(houseNumber);
+				row.setHouseNumberAdditions(houseNumberAdditions);
+				row.setPostalCode(postalCode);
+				row.setCity(city);
+				row.setCountry(country);
+				if (!sameAddress(previous, row)) {
+					write(previous, row);
+				}
+				return copy(previous);
+			}
+		});
+	}
+
+	/**
+	 * Scans all people, as there is no trigram index to narrow the search down.
+	 */
+	@Override
+	public Flux<Person> searchByName(String query, String pattern, int limit) {
+		return Flux.fromStream(() -> rows.values().stream()
+				.map(person -> {
+					String fullName = (person.getFirstName() + " " + person.getLastName()).toLowerCase(Locale.ROOT);
+					return new Match(person, NameMatching.like(fullName, pattern),
+							NameMatching.wordSimilarity(query, fullName));
+				})
+				.filter(match -> match.prefix() || match.similarity() >= NameMatching.WORD_SIMILARITY_THRESHOLD)
+				.sorted(SEARCH_ORDER)
+				.limit(limit)
+				.map(match -> copy(match.person())));
+	}
+
+	/**
+	 * Streams all people in the order of their ids. The responses are built from the stored rows without copying them.
+	 */
+	@Override
+	public Flux<PersonResponse> streamAllResponses() {
+		return Flux.fromStream(() -> rows.values().stream().map(InMemoryPersonRepository::toResponse));
+	}
+
+	@Override
+	public Flux<PersonResponse> findResponsesByIdIn(Collection<UUID> ids) {
+		return Flux.fromStream(() -> ids.stream()
+				.distinct()
+				.map(rows::get)
+				.filter(Objects::nonNull)
+				.map(InMemoryPersonRepository::toResponse));
+	}
+
+	@Override
+	public Flux<UUID> findExistingIds(Collection<UUID> ids) {
+		return Flux.fromStream(() -> ids.stream()
+				.distinct()
+				.filter(rows::containsKey));
+	}
+
+	@Override
+	public Mono<UUID> insertIfAbsent(Person person) {
+		return Mono.fromCallable(() -> {
+			synchronized (lock) {
+				person.isNew();
+				if (rows.containsKey(person.getId()) || byFullName.containsKey(FullName.of(person))) {
+					return null;
+				}
+				return insert(copy(person)).getId();
+			}
+		});
+	}
+
+	@Override
+	public Flux<UUID> insertAllIfAbsent(List<Person> people) {
+		return Flux.defer(() -> {
+			synchronized (lock) {
+				List<UUID> ids = new ArrayList<>(people.size());
+				for (Person person : people) {
+					person.isNew();
+					if (!rows.containsKey(person.getId()) && !byFullName.containsKey(FullName.of(person))) {
+						ids.add(insert(copy(person)).getId());
+					}
+				}
+				return Flux.fromIterable(ids);
+			}
+		});
+	}
+
+	private Person findByFullName(FullName fullName) {
+		UUID id = byFullName.get(fullName);
+		Person person = id == null ? null : rows.get(id);
+		return person != null && fullName.equals(FullName.of(person)) ? person : null;
+	}
+
+	private static PersonResponse toResponse(Person person) {
+		return new PersonResponse(person.getId(), person.getFirstName(), person.getLastName(),
+				person.getDateOfBirth(), person.getStreet(), person.getHouseNumber(), person.getHouseNumberAdditions(),
+				person.getPostalCode(), person.getCity(), person.getCountry());
+	}
+
+	private static boolean sameAddress(Person person, Person other) {
+		return Objects.equals(person.getStreet(), other.getStreet()) &&
+				Objects.equals(person.getHouseNumber(), other.getHouseNumber()) &&
+				Objects.equals(person.getHouseNumberAdditions(), other.getHouseNumberAdditions()) &&
+				Objects.equals(person.getPostalCode(), other.getPostalCode()) &&
+				Objects.equals(person.getCity(), other.getCity()) &&
+				Objects.equals(person.getCountry(), other.getCountry());
+	}
+
+	private record FullName(String firstName, String lastName) {
+
+		static FullName of(Person person) {
+			return new FullName(person.getFirstName(), person.getLastName());
+		}
+	}
+
+	private record Match(Person person, boolean prefix, double similarity) {}
+}
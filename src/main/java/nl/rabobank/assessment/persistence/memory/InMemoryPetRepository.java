@@ -0,0 +1,151 @@
+package nl.rabobank.assessment.persistence.memory;
+
+import nl.rabobank.assessment.persistence.entity.Person;
+import nl.rabobank.assessment.persistence.entity.Pet;
+import nl.rabobank.assessment.persistence.repository.IntegrityConstraintViolationException;
+import nl.rabobank.assessment.persistence.repository.PetRepository;
+import nl.rabobank.assessment.ui.rest.model.response.PetResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Pets held in memory, indexed by owner. Like the foreign key of the pet table, a pet can only refer to a person that
+ * exists, and the pets of a deleted person are kept without an owner.
+ */
+public class InMemoryPetRepository extends InMemoryCrudRepository<Pet> implements PetRepository {
+
+	/**
+	 * The foreign key from a pet to its owner, as named in V1__setup_database.sql.
+	 */
+	static final String OWNER_CONSTRAINT = "person_id_fk";
+
+	private static final NavigableSet<UUID> NO_PETS = Collections.emptyNavigableSet();
+
+	private final InMemoryPersonRepository people;
+
+	private final Map<UUID, NavigableSet<UUID>> byPersonId = new ConcurrentHashMap<>();
+
+	public InMemoryPetRepository(InMemoryPersonRepository people) {
+		super(Pet.class, "pet", people.lock);
+		this.people = people;
+		people.onDelete(this::clearOwner);
+	}
+
+	@Override
+	void check(Pet previous, Pet row) {
+		if (row.getPersonId() != null && !people.rows.containsKey(row.getPersonId())) {
+			throw new IntegrityConstraintViolationException(OWNER_CONSTRAINT,
+					String.format("No person with id %s exists to own pet %s.", row.getPersonId(), row.getId()));
+		}
+	}
+
+	@Override
+	void index(Pet previous, Pet row) {
+		if (previous != null) {
+			removeFromIndex(byPersonId, previous.getPersonId(), previous.getId());
+		}
+		if (row != null) {
+			addToIndex(byPersonId, row.getPersonId(), row.getId());
+		}
+	}
+
+	@Override
+	public Flux<Pet> findPageByPersonId(UUID personId, int limit) {
+		return pageOfOwner(personId, () -> byPersonId.getOrDefault(personId, NO_PETS), limit);
+	}
+
+	@Override
+	public Flux<Pet> findPageByPersonIdAfter(UUID personId, UUID after, int limit) {
+		return pageOfOwner(personId, () -> byPersonId.getOrDefault(personId, NO_PETS).tailSet(after, false), limit);
+	}
+
+	private Flux<Pet> pageOfOwner(UUID personId, Supplier<Set<UUID>> petIds, int limit) {
+		return Flux.fromStream(() -> petIds.get().stream()
+				.map(rows::get)
+				.filter(pet -> pet != null && personId.equals(pet.getPersonId()))
+				.limit(limit)
+				.map(this::copy));
+	}
+
+	/**
+	 * Streams all pets in the order of their ids. The responses are built from the stored rows without copying them.
+	 */
+	@Override
+	public Flux<PetResponse> streamAllResponses() {
+		return Flux.fromStream(() -> rows.values().stream().map(InMemoryPetRepository::toResponse));
+	}
+
+	@Override
+	public Flux<PetResponse> findResponsesByPersonId(UUID personId) {
+		return Flux.fromStream(() -> byPersonId.getOrDefault(personId, NO_PETS).stream()
+				.map(rows::get)
+				.filter(pet -> pet != null && personId.equals(pet.getPersonId()))
+				.map(InMemoryPetRepository::toResponse));
+	}
+
+	@Override
+	public Flux<PetResponse> findResponsesByIdIn(Collection<UUID> ids) {
+		return Flux.fromStream(() -> ids.stream()
+				.distinct()
+				.map(rows::get)
+				.filter(Objects::nonNull)
+				.map(InMemoryPetRepository::toResponse));
+	}
+
+	@Override
+	public Mono<Pet> updateReturningPrevious(UUID id, String name, Integer age, UUID personId) {
+		return Mono.fromCallable(() -> {
+			synchronized (lock) {
+				Pet previous = rows.get(id);
+				if (previous == null) {
+					return null;
+				}
+				if (!Objects.equals(previous.getName(), name) || !Objects.equals(previous.getAge(), age) ||
+						!Objects.equals(previous.getPersonId(), personId)) {
+					Pet row = copy(previous);
+					row.setName(name);
+					row.setAge(age);
+					row.setPersonId(personId);
+					write(previous, row);
+				}
+				return copy(previous);
+			}
+		});
+	}
+
+	@Override
+	public Mono<Pet> deleteReturningById(UUID id) {
+		return Mono.fromSupplier(() -> remove(id));
+	}
+
+	private static PetResponse toResponse(Pet pet) {
+		return new PetResponse(pet.getId(), pet.getName(), pet.getAge(), pet.getPersonId());
+	}
+
+	/**
+	 * {@code ON DELETE SET NULL}: keeps the pets of the deleted person without an owner.
+	 */
+	private void clearOwner(Person person) {
+		Set<UUID> petIds = byPersonId.get(person.getId());
+		if (petIds == null) {
+			return;
+		}
+		for (UUID petId : List.copyOf(petIds)) {
+			Pet previous = rows.get(petId);
+			Pet row = copy(previous);
+			row.setPersonId(null);
+			write(previous, row);
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package nl.rabobank.assessment.persistence.memory;
+
+import nl.rabobank.assessment.persistence.entity.User;
+import nl.rabobank.assessment.persistence.repository.IntegrityConstraintViolationException;
+import nl.rabobank.assessment.persistence.repository.UserRepository;
+import org.springframework.security.core.userdetails.UserDetails;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Users held in memory, with the unique index on the username of the user table.
+ */
+public class InMemoryUserRepository extends InMemoryCrudRepository<User> implements UserRepository {
+
+	/**
+	 * The unique index on the username, as named in V3__secondary_indexes.sql.
+	 */
+	static final String USERNAME_CONSTRAINT = "user_username_idx";
+
+	private final Map<String, UUID> byUsername = new ConcurrentHashMap<>();
+
+	public InMemoryUserRepository() {
+		super(User.class, "user", new Object());
+	}
+
+	@Override
+	void check(User previous, User row) {
+		UUID namesake = byUsername.get(row.getUsername());
+		if (namesake != null && !namesake.equals(row.getId())) {
+			throw new IntegrityConstraintViolationException(USERNAME_CONSTRAINT,
+					String.format("Duplicate key: a user named %s already exists.", row.getUsername()));
+		}
+	}
+
+	@Override
+	void index(User previous, User row) {
+		if (previous != null) {
+			byUsername.remove(previous.getUsername(), previous.getId());
+		}
+		if (row != null) {
+			byUsername.put(row.getUsername(), row.getId());
+		}
+	}
+
+	@Override
+	public Mono<UserDetails> findByUsername(String username) {
+		return Mono.fromSupplier(() -> {
+			UUID id = byUsername.get(username);
+			User user = id == null ? null : rows.get(id);
+			return user != null && username.equals(user.getUsername()) ? copy(user) : null;
+		});
+	}
+}
@@ -0,0 +1,111 @@
+package nl.rabobank.assessment.persistence.memory;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The matching operators of {@link nl.rabobank.assessment.persistence.repository.PersonRepository#searchByName}, for
+ * repositories that don't run on Postgres.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class NameMatching {
+
+	/**
+	 * The default of {@code pg_trgm.word_similarity_threshold}, used by the {@code <%} operator.
+	 */
+	static final double WORD_SIMILARITY_THRESHOLD = 0.6;
+
+	/**
+	 * The {@code LIKE} operator: {@code %} matches any sequence, {@code _} any single character and a backslash escapes
+	 * the character following it.
+	 */
+	static boolean like(String value, String pattern) {
+		return like(value, 0, pattern, 0);
+	}
+
+	private static boolean like(String value, int v, String pattern, int p) {
+		while (p < pattern.length()) {
+			char c = pattern.charAt(p);
+			if (c == '%') {
+				for (int i = v; i <= value.length(); i++) {
+					if (like(value, i, pattern, p + 1)) {
+						return true;
+					}
+				}
+				return false;
+			}
+			if (c == '\\' && p + 1 < pattern.length()) {
+				c = pattern.charAt(++p);
+			} else if (c == '_') {
+				if (v == value.length()) {
+					return false;
+				}
+				v++;
+				p++;
+				continue;
+			}
+			if (v == value.length() || value.charAt(v) != c) {
+				return false;
+			}
+			v++;
+			p++;
+		}
+		return v == value.length();
+	}
+
+	/**
+	 * The similarity of {@code query} to the most similar run of consecutive words of {@code text}, from the trigrams
+	 * of both the way {@code pg_trgm} extracts them. Unlike {@code word_similarity} the runs are whole words, which
+	 * ranks the same for names.
+	 */
+	static double wordSimilarity(String query, String text) {
+		Set<String> queryTrigrams = trigrams(words(query));
+		if (queryTrigrams.isEmpty()) {
+			return 0;
+		}
+		List<String> words = words(text);
+		double best = 0;
+		for (int from = 0; from < words.size(); from++) {
+			for (int to = from + 1; to <= words.size(); to++) {
+				Set<String> extent = trigrams(words.subList(from, to));
+				int shared = (int) extent.stream().filter(queryTrigrams::contains).count();
+				best = Math.max(best, (double) shared / (queryTrigrams.size() + extent.size() - shared));
+			}
+		}
+		return best;
+	}
+
+	private static List<String> words(String text) {
+		List<String> words = new ArrayList<>();
+		int start = -1;
+		for (int i = 0; i <= text.length(); i++) {
+			boolean wordCharacter = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+			if (wordCharacter && start < 0) {
+				start = i;
+			} else if (!wordCharacter && start >= 0) {
+				words.add(text.substring(start, i));
+				start = -1;
+			}
+		}
+		return words;
+	}
+
+	/**
+	 * Every word is padded with two spaces in front and one behind, so its start weighs more than its end.
+	 */
+	private static Set<String> trigrams(List<String> words) {
+		Set<String> trigrams = new HashSet<>();
+		for (String word : words) {
+			String padded = "  " + word + " ";
+			for (int i = 0; i + 3 <= padded.length(); i++) {
+				trigrams.add(padded.substring(i, i + 3));
+			}
+		}
+		return trigrams;
+	}
+}
@@ -0,0 +1,97 @@
+package nl.rabobank.assessment.persistence.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Wrapped;
+import org.springframework.beans.factory.ObjectProvider;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times how long it takes to acquire a connection from the pool, in the {@value #ACQUIRE_METER} timer. The gauges of
+ * the pool itself (acquired, idle, pending, ...) are bound by Spring Boot, which finds the pool by unwrapping this
+ * factory.
+ */
+public class AcquireTimingConnectionFactory implements ConnectionFactory, Wrapped<ConnectionFactory>, Disposable {
+
+	public static final String ACQUIRE_METER = "r2dbc.pool.acquire";
+
+	private final String name;
+
+	private final ConnectionPool pool;
+
+	private final ConnectionFactory connections;
+
+	private final ObjectProvider<MeterRegistry> meterRegistry;
+
+	private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+	/**
+	 * @param name The name of the connection factory bean, which Spring Boot also tags the gauges of the pool with.
+	 * @param connections The factory that acquires connections from the pool: the pool itself or a proxy of it.
+	 */
+	public AcquireTimingConnectionFactory(String name, ConnectionPool pool, ConnectionFactory connections,
+	                                      ObjectProvider<MeterRegistry> meterRegistry) {
+		this.name = name;
+		this.pool = pool;
+		this.connections = connections;
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Override
+	public Mono<Connection> create() {
+		return Mono.defer(() -> {
+			long start = System.nanoTime();
+			return Mono.from(connections.create())
+					.doOnSuccess(connection -> record("success", start))
+					.doOnError(e -> record("failure", start));
+		});
+	}
+
+	@Override
+	public ConnectionFactoryMetadata getMetadata() {
+		return pool.getMetadata();
+	}
+
+	@Override
+	public ConnectionFactory unwrap() {
+		return pool;
+	}
+
+	/**
+	 * Closes the pool, which is what Spring Boot calls when the application stops.
+	 */
+	@Override
+	public void dispose() {
+		pool.dispose();
+	}
+
+	@Override
+	public boolean isDisposed() {
+		return pool.isDisposed();
+	}
+
+	private void record(String outcome, long start) {
+		timers.computeIfAbsent(outcome, this::register).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+	}
+
+	private Timer register(String outcome) {
+		return Timer.builder(ACQUIRE_METER)
+				.description("Time to acquire a connection from the pool")
+				.tag("name", name)
+				.tag("outcome", outcome)
+				.publishPercentileHistogram()
+				.minimumExpectedValue(Duration.ofMillis(1))
+				.maximumExpectedValue(Duration.ofSeconds(10))
+				.register(meterRegistry.getObject());
+	}
+}
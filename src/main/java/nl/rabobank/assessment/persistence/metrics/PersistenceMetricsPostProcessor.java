@@ -0,0 +1,65 @@
+package nl.rabobank.assessment.persistence.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.proxy.ProxyConnectionFactory;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.Repository;
+import org.springframework.util.ClassUtils;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Wraps the repositories of the application in a {@link RepositoryMetricsInterceptor}, whether they run on R2DBC or in
+ * memory, and the connection pool in an {@link AcquireTimingConnectionFactory}. When there are {@link QueryStatistics},
+ * the connections of the pool are proxied to record the statements executed on them.
+ */
+public class PersistenceMetricsPostProcessor implements BeanPostProcessor {
+
+	private final ObjectProvider<MeterRegistry> meterRegistry;
+
+	private final ObjectProvider<QueryStatistics> queryStatistics;
+
+	public PersistenceMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry,
+	                                       ObjectProvider<QueryStatistics> queryStatistics) {
+		this.meterRegistry = meterRegistry;
+		this.queryStatistics = queryStatistics;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) {
+		if (bean instanceof ConnectionPool pool) {
+			QueryStatistics listener = queryStatistics.getIfAvailable();
+			ConnectionFactory connections = listener == null ? pool :
+					ProxyConnectionFactory.builder(pool).listener(listener).build();
+			return new AcquireTimingConnectionFactory(beanName, pool, connections, meterRegistry);
+		}
+		if (bean instanceof Repository<?, ?>) {
+			return repositoryInterface(bean)
+					.map(repositoryInterface -> {
+						ProxyFactory proxyFactory = new ProxyFactory();
+						proxyFactory.setTarget(bean);
+						proxyFactory.addInterface(repositoryInterface);
+						proxyFactory.addAdvice(new RepositoryMetricsInterceptor(repositoryInterface.getSimpleName(),
+								meterRegistry));
+						return proxyFactory.getProxy(bean.getClass().getClassLoader());
+					})
+					.orElse(bean);
+		}
+		return bean;
+	}
+
+	/**
+	 * @return The repository interface the application declares, as opposed to those of Spring Data.
+	 */
+	private static Optional<Class<?>> repositoryInterface(Object bean) {
+		return Arrays.stream(ClassUtils.getAllInterfacesForClass(bean.getClass()))
+				.filter(Repository.class::isAssignableFrom)
+				.filter(type -> !type.getName().startsWith("org.springframework."))
+				.findFirst();
+	}
+}
@@ -0,0 +1,143 @@
+package nl.rabobank.assessment.persistence.metrics;
+
+import io.r2dbc.proxy.core.Bindings;
+import io.r2dbc.proxy.core.QueryExecutionInfo;
+import io.r2dbc.proxy.core.QueryInfo;
+import io.r2dbc.proxy.listener.ProxyExecutionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Execution time, row count and bind parameter count per SQL statement, as seen by an R2DBC proxy of the connection
+ * pool. The time of an execution runs until its rows have been consumed. Executions that take longer than the
+ * threshold are logged to the {@value #SLOW_QUERY_LOGGER} logger, without the values bound to them.
+ */
+public class QueryStatistics implements ProxyExecutionListener {
+
+	public static final String SLOW_QUERY_LOGGER = "assessment.slow-query";
+
+	private static final Logger slowQueryLog = LoggerFactory.getLogger(SLOW_QUERY_LOGGER);
+
+	private static final Comparator<StatementStatistics> BY_TOTAL_TIME = Comparator
+			.comparingDouble(StatementStatistics::totalMillis).reversed();
+
+	private final long slowQueryThresholdNanos;
+
+	private final int maximumStatements;
+
+	private final Map<String, Statement> statements = new ConcurrentHashMap<>();
+
+	private final LongAdder untrackedExecutions = new LongAdder();
+
+	/**
+	 * @param maximumStatements The number of distinct statements to keep statistics for. Executions of statements seen
+	 *                          after that are only counted, so statements with generated SQL can't exhaust the memory.
+	 */
+	public QueryStatistics(Duration slowQueryThreshold, int maximumStatements) {
+		this.slowQueryThresholdNanos = slowQueryThreshold.toNanos();
+		this.maximumStatements = maximumStatements;
+	}
+
+	@Override
+	public void afterQuery(QueryExecutionInfo execution) {
+		String sql = execution.getQueries().stream()
+				.map(QueryInfo::getQuery)
+				.collect(Collectors.joining(";\n"));
+		long nanos = execution.getExecuteDuration().toNanos();
+		int rows = execution.getCurrentResultCount();
+		int parameters = execution.getQueries().stream()
+				.flatMap(query -> query.getBindingsList().stream())
+				.mapToInt(QueryStatistics::size)
+				.sum();
+		Statement statement = statements.get(sql);
+		if (statement == null && statements.size() < maximumStatements) {
+			statement = statements.computeIfAbsent(sql, Statement::new);
+		}
+		if (statement == null) {
+			untrackedExecutions.increment();
+		} else {
+			statement.record(nanos, rows, parameters);
+		}
+		if (nanos >= slowQueryThresholdNanos) {
+			slowQueryLog.warn("Slow query of {} ms{}, {} rows, {} bind parameters: {}", nanos / 1_000_000,
+					execution.isSuccess() ? "" : " (failed)", rows, parameters, sql);
+		}
+	}
+
+	/**
+	 * @return The statements that took the most time in total, most first.
+	 */
+	public List<StatementStatistics> top(int limit) {
+		return statements.values().stream()
+				.map(Statement::snapshot)
+				.sorted(BY_TOTAL_TIME)
+				.limit(limit)
+				.toList();
+	}
+
+	/**
+	 * @return The number of executions of statements beyond the maximum number of statements.
+	 */
+	public long getUntrackedExecutions() {
+		return untrackedExecutions.sum();
+	}
+
+	public void reset() {
+		statements.clear();
+		untrackedExecutions.reset();
+	}
+
+	private static int size(Bindings bindings) {
+		return bindings.getIndexBindings().size() + bindings.getNamedBindings().size();
+	}
+
+	/**
+	 * @param rows The number of rows read, which is 0 for inserts, updates and deletes without a returning clause.
+	 * @param bindParameters The number of values bound, over all executions.
+	 */
+	public record StatementStatistics(String sql, long executions, double totalMillis, double meanMillis,
+	                                  double maxMillis, long rows, long bindParameters) {}
+
+	private static class Statement {
+
+		private final String sql;
+
+		private final LongAdder executions = new LongAdder();
+
+		private final LongAdder totalNanos = new LongAdder();
+
+		private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+		private final LongAdder rows = new LongAdder();
+
+		private final LongAdder bindParameters = new LongAdder();
+
+		Statement(String sql) {
+			this.sql = sql;
+		}
+
+		void record(long nanos, int rowCount, int parameters) {
+			executions.increment();
+			totalNanos.add(nanos);
+			maxNanos.accumulate(nanos);
+			rows.add(rowCount);
+			bindParameters.add(parameters);
+		}
+
+		StatementStatistics snapshot() {
+			long count = executions.sum();
+			double totalMillis = totalNanos.sum() / 1e6;
+			return new StatementStatistics(sql, count, totalMillis, count == 0 ? 0 : totalMillis / count,
+					maxNanos.get() / 1e6, rows.sum(), bindParameters.sum());
+		}
+	}
+}
@@ -0,0 +1,40 @@
+package nl.rabobank.assessment.persistence.metrics;
+
+import nl.rabobank.assessment.persistence.metrics.QueryStatistics.StatementStatistics;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+
+/**
+ * The SQL statements that took the most time in total, on {@code /actuator/queries}. The number of statements can be
+ * given as {@code ?limit=}; a {@code DELETE} starts counting over. Both require the ADMIN role, because the statements
+ * show the SQL of the application.
+ */
+@Endpoint(id = "queries")
+public class QueryStatisticsEndpoint {
+
+	private final QueryStatistics queryStatistics;
+
+	private final int defaultLimit;
+
+	public QueryStatisticsEndpoint(QueryStatistics queryStatistics, int defaultLimit) {
+		this.queryStatistics = queryStatistics;
+		this.defaultLimit = defaultLimit;
+	}
+
+	@ReadOperation
+	public Report top(@Nullable Integer limit) {
+		return new Report(queryStatistics.top(limit == null ? defaultLimit : limit),
+				queryStatistics.getUntrackedExecutions());
+	}
+
+	@DeleteOperation
+	public void reset() {
+		queryStatistics.reset();
+	}
+
+	public record Report(List<StatementStatistics> statements, long untrackedExecutions) {}
+}
@@ -0,0 +1,80 @@
+package nl.rabobank.assessment.persistence.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every call of a repository from subscription until it completes, fails or is cancelled, in the
+ * {@value #INVOCATIONS_METER} timer, tagged with the repository, the method and the outcome. The timers publish a
+ * percentile histogram, so percentiles can be aggregated across instances.
+ */
+public class RepositoryMetricsInterceptor implements MethodInterceptor {
+
+	public static final String INVOCATIONS_METER = "assessment.repository.invocations";
+
+	private final String repository;
+
+	private final ObjectProvider<MeterRegistry> meterRegistry;
+
+	private final Map<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+	public RepositoryMetricsInterceptor(String repository, ObjectProvider<MeterRegistry> meterRegistry) {
+		this.repository = repository;
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Override
+	public Object invoke(MethodInvocation invocation) throws Throwable {
+		Object result = invocation.proceed();
+		Method method = invocation.getMethod();
+		if (result instanceof Mono<?> mono) {
+			return Mono.defer(() -> {
+				long start = System.nanoTime();
+				return mono.doFinally(signal -> record(method, signal, start));
+			});
+		}
+		if (result instanceof Flux<?> flux) {
+			return Flux.defer(() -> {
+				long start = System.nanoTime();
+				return flux.doFinally(signal -> record(method, signal, start));
+			});
+		}
+		return result;
+	}
+
+	private void record(Method method, SignalType signal, long start) {
+		String outcome = switch (signal) {
+			case ON_ERROR -> "error";
+			case CANCEL -> "cancelled";
+			default -> "success";
+		};
+		timers.computeIfAbsent(new TimerKey(method, outcome), this::register)
+				.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+	}
+
+	private Timer register(TimerKey key) {
+		return Timer.builder(INVOCATIONS_METER)
+				.description("Calls of a repository method, from subscription until the last signal")
+				.tag("repository", repository)
+				.tag("method", key.method().getName())
+				.tag("outcome", key.outcome())
+				.publishPercentileHistogram()
+				.minimumExpectedValue(Duration.ofMillis(1))
+				.maximumExpectedValue(Duration.ofSeconds(10))
+				.register(meterRegistry.getObject());
+	}
+
+	private record TimerKey(Method method, String outcome) {}
+}
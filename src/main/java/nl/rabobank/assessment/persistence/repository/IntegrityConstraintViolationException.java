@@ -0,0 +1,33 @@
+package nl.rabobank.assessment.persistence.repository;
+
+import io.r2dbc.postgresql.api.PostgresqlException;
+import lombok.Getter;
+import org.springframework.dao.DataIntegrityViolationException;
+
+/**
+ * A write rejected by a constraint of the schema. Postgres reports the violated constraint in the cause of the
+ * {@linkplain DataIntegrityViolationException}; repositories that don't run on Postgres throw this exception instead,
+ * with the name the constraint has in the schema.
+ */
+@Getter
+public class IntegrityConstraintViolationException extends DataIntegrityViolationException {
+
+	private final String constraintName;
+
+	public IntegrityConstraintViolationException(String constraintName, String message) {
+		super(message);
+		this.constraintName = constraintName;
+	}
+
+	/**
+	 * @return Whether the throwable reports a violation of the constraint with the given name.
+	 */
+	public static boolean violates(Throwable throwable, String constraintName) {
+		if (throwable instanceof IntegrityConstraintViolationException violation) {
+			return violation.constraintName.equals(constraintName);
+		}
+		return throwable instanceof DataIntegrityViolationException &&
+				throwable.getCause() instanceof PostgresqlException postgresqlException &&
+				postgresqlException.getErrorDetails().getConstraintName().filter(constraintName::equals).isPresent();
+	}
+}
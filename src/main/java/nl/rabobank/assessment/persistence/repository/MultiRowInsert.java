@@ -0,0 +1,118 @@
+package nl.rabobank.assessment.persistence.repository;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.mapping.OutboundRow;
+import org.springframework.data.relational.core.mapping.RelationalPersistentProperty;
+import org.springframework.data.relational.core.sql.SqlIdentifier;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.stream.Collectors;
+
+/**
+ * Inserts entities with a single {@code INSERT ... VALUES (...), (...)} statement. The rows are written by the
+ * entity converter, so the column mapping is the same as that of {@code save}.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class MultiRowInsert {
+
+	/**
+	 * Postgres accepts at most this many bind parameters in a single statement.
+	 */
+	static final int MAX_PARAMETERS = 65535;
+
+	/**
+	 * @return The number of inserted rows.
+	 */
+	static <T extends Persistable<?>> Mono<Long> insertAll(R2dbcEntityTemplate template, Class<T> type,
+	                                                       List<T> entities) {
+		if (entities.isEmpty()) {
+			return Mono.just(0L);
+		}
+		return insert(template, type, entities, "")
+				.fetch()
+				.rowsUpdated()
+				.map(Integer::longValue);
+	}
+
+	/**
+	 * Inserts the entity unless a row with the same unique key already exists, in a single statement and without racing
+	 * concurrent inserts of the same key.
+	 *
+	 * @return The id of the inserted row, or empty when a conflicting row already exists.
+	 */
+	static <T extends Persistable<ID>, ID> Mono<ID> insertIfAbsent(R2dbcEntityTemplate template, Class<T> type,
+	                                                              T entity) {
+		return insertAllIfAbsent(template, type, List.of(entity)).next();
+	}
+
+	/**
+	 * Inserts the entities that don't conflict with an existing row (or an earlier entity in the list) on a unique key,
+	 * in a single statement and without racing concurrent inserts of the same keys.
+	 *
+	 * @return The ids of the inserted rows, in no particular order.
+	 */
+	static <T extends Persistable<ID>, ID> Flux<ID> insertAllIfAbsent(R2dbcEntityTemplate template, Class<T> type,
+	                                                                 List<T> entities) {
+		if (entities.isEmpty()) {
+			return Flux.empty();
+		}
+		RelationalPersistentProperty id = template.getConverter().getMappingContext()
+				.getRequiredPersistentEntity(type)
+				.getRequiredIdProperty();
+		@SuppressWarnings("unchecked")
+		Class<ID> idType = (Class<ID>) id.getType();
+		return insert(template, type, entities,
+				" ON CONFLICT DO NOTHING RETURNING " + id.getColumnName().getReference())
+				.map(row -> row.get(0, idType))
+				.all();
+	}
+
+	private static <T extends Persistable<?>> DatabaseClient.GenericExecuteSpec insert(R2dbcEntityTemplate template,
+	                                                                                 Class<T> type, List<T> entities,
+	                                                                                 String suffix) {
+		List<OutboundRow> rows = new ArrayList<>(entities.size());
+		for (T entity : entities) {
+			entity.isNew();
+			OutboundRow row = new OutboundRow();
+			template.getConverter().write(entity, row);
+			rows.add(row);
+		}
+		List<SqlIdentifier> columns = List.copyOf(rows.get(0).keySet());
+		if (rows.size() * columns.size() > MAX_PARAMETERS) {
+			throw new IllegalArgumentException(String.format("Can't insert %d rows of %d columns in one statement.",
+					rows.size(), columns.size()));
+		}
+		StringJoiner values = new StringJoiner(", ");
+		int index = 0;
+		for (int i = 0; i < rows.size(); i++) {
+			StringJoiner placeholders = new StringJoiner(", ", "(", ")");
+			for (int j = 0; j < columns.size(); j++) {
+				placeholders.add("$" + ++index);
+			}
+			values.add(placeholders.toString());
+		}
+		DatabaseClient.GenericExecuteSpec insert = template.getDatabaseClient()
+				.sql(String.format("INSERT INTO %s (%s) VALUES %s%s",
+						template.getConverter().getMappingContext().getRequiredPersistentEntity(type).getTableName()
+								.getReference(),
+						columns.stream()
+								.map(SqlIdentifier::getReference)
+								.collect(Collectors.joining(", ")),
+						values, suffix));
+		index = 0;
+		for (OutboundRow row : rows) {
+			for (SqlIdentifier column : columns) {
+				insert = insert.bind(index++, row.get(column));
+			}
+		}
+		return insert;
+	}
+}
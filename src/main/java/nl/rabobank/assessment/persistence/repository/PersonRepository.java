@@ -1,12 +1,14 @@
 package nl.rabobank.assessment.persistence.repository;
 
 import nl.rabobank.assessment.persistence.entity.Person;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.UUID;
 
-public interface PersonRepository extends ReactiveCrudRepository<Person, UUID> {
+public interface PersonRepository extends ReactiveCrudRepository<Person, UUID>, PersonRepositoryCustom {
 
 	Mono<Boolean> existsByFirstNameAndLastName(String firstName, String lastName);
 
@@ -15,4 +17,42 @@ public interface PersonRepository extends ReactiveCrudRepository<Person, UUID> {
 	Mono<Person> findPersonByFirstNameAndLastName(String firstName, String lastName);
 
 	Mono<Person> findFirstByLastName(String lastName);
+
+	@Query("SELECT * FROM person ORDER BY id LIMIT $1")
+	Flux<Person> findPage(int limit);
+
+	@Query("SELECT * FROM person WHERE id > $1 ORDER BY id LIMIT $2")
+	Flux<Person> findPageAfter(UUID after, int limit);
+
+	/**
+	 * Updates only the address columns of a person with a single statement, unless the person already has this
+	 * address, in which case nothing is written. The previous row is locked, so it is the latest version (the one the
+	 * update applies to) even when another update of the person commits first.
+	 *
+	 * @return The person as it was before the update, or empty when there is no person with the id.
+	 */
+	@Query("WITH previous AS (SELECT * FROM person WHERE id = $1 FOR UPDATE), " +
+			"updated AS (UPDATE person SET street = $2, house_number = $3, house_number_additions = $4, " +
+			"postal_code = $5, city = $6, country = $7 WHERE id = $1 AND " +
+			"(street, house_number, house_number_additions, postal_code, city, country) IS DISTINCT FROM " +
+			"($2, $3, $4, $5, $6, $7)) " +
+			"SELECT * FROM previous")
+	Mono<Person> updateAddressReturningPrevious(UUID id, String street, Integer houseNumber,
+	                                            String houseNumberAdditions, String postalCode, String city,
+	                                            String country);
+
+	/**
+	 * Finds the people whose lower cased full name starts with {@code pattern} or contains a word similar to
+	 * {@code query}, prefix matches first and then by descending similarity.
+	 *
+	 * @param query The lower cased search text.
+	 * @param pattern The LIKE pattern matching full names that start with the query.
+	 * @param limit The maximum number of people to return.
+	 */
+	@Query("SELECT * FROM person " +
+			"WHERE lower(first_name || ' ' || last_name) LIKE $2 OR $1 <% lower(first_name || ' ' || last_name) " +
+			"ORDER BY lower(first_name || ' ' || last_name) LIKE $2 DESC, " +
+			"word_similarity($1, lower(first_name || ' ' || last_name)) DESC, id " +
+			"LIMIT $3")
+	Flux<Person> searchByName(String query, String pattern, int limit);
 }
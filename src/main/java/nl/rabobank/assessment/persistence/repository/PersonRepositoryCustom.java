@@ -0,0 +1,45 @@
+package nl.rabobank.assessment.persistence.repository;
+
+import nl.rabobank.assessment.persistence.entity.Person;
+import nl.rabobank.assessment.ui.rest.model.response.PersonResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface PersonRepositoryCustom {
+
+	/**
+	 * Streams all people from a server side cursor, fetching the next batch of rows only when the subscriber has
+	 * requested them. The responses are read straight from the rows, see {@link ResponseProjections}.
+	 */
+	Flux<PersonResponse> streamAllResponses();
+
+	/**
+	 * Finds the people with any of the given ids in a single query, in no particular order. The responses are read
+	 * straight from the rows, like {@link #streamAllResponses()}.
+	 */
+	Flux<PersonResponse> findResponsesByIdIn(Collection<UUID> ids);
+
+	/**
+	 * Finds which of the given ids belong to a person in a single query.
+	 */
+	Flux<UUID> findExistingIds(Collection<UUID> ids);
+
+	/**
+	 * Inserts the person, assigning an id first, unless another person with the same full name exists.
+	 *
+	 * @return The id of the inserted person, or empty when the full name is already taken.
+	 */
+	Mono<UUID> insertIfAbsent(Person person);
+
+	/**
+	 * Inserts all people with a single multi-row INSERT, assigning an id to each of them first, except the ones whose
+	 * full name is already taken (also by an earlier person in the list).
+	 *
+	 * @return The ids of the inserted people, in no particular order.
+	 */
+	Flux<UUID> insertAllIfAbsent(List<Person> people);
+}
@@ -0,0 +1,62 @@
+package nl.rabobank.assessment.persistence.repository;
+
+import nl.rabobank.assessment.persistence.entity.Person;
+import nl.rabobank.assessment.ui.rest.model.response.PersonResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public class PersonRepositoryCustomImpl implements PersonRepositoryCustom {
+
+	private final R2dbcEntityTemplate template;
+
+	private final int fetchSize;
+
+	public PersonRepositoryCustomImpl(R2dbcEntityTemplate template,
+	                                  @Value("${assessment.streaming.fetch-size}") int fetchSize) {
+		this.template = template;
+		this.fetchSize = fetchSize;
+	}
+
+	@Override
+	public Flux<PersonResponse> streamAllResponses() {
+		return template.getDatabaseClient()
+				.sql("SELECT " + ResponseProjections.PERSON_COLUMNS + " FROM person")
+				.filter(statement -> statement.fetchSize(fetchSize))
+				.map(ResponseProjections::toPersonResponse)
+				.all();
+	}
+
+	@Override
+	public Flux<PersonResponse> findResponsesByIdIn(Collection<UUID> ids) {
+		return template.getDatabaseClient()
+				.sql("SELECT " + ResponseProjections.PERSON_COLUMNS + " FROM person WHERE id = ANY($1)")
+				.bind(0, ids.toArray(UUID[]::new))
+				.map(ResponseProjections::toPersonResponse)
+				.all();
+	}
+
+	@Override
+	public Flux<UUID> findExistingIds(Collection<UUID> ids) {
+		return template.getDatabaseClient()
+				.sql("SELECT id FROM person WHERE id = ANY($1)")
+				.bind(0, ids.toArray(UUID[]::new))
+				.map(row -> row.get("id", UUID.class))
+				.all();
+	}
+
+	@Override
+	public Mono<UUID> insertIfAbsent(Person person) {
+		return MultiRowInsert.insertIfAbsent(template, Person.class, person);
+	}
+
+	@Override
+	public Flux<UUID> insertAllIfAbsent(List<Person> people) {
+		return MultiRowInsert.insertAllIfAbsent(template, Person.class, people);
+	}
+}
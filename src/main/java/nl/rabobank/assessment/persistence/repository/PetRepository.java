@@ -1,12 +1,45 @@
 package nl.rabobank.assessment.persistence.repository;
 
 import nl.rabobank.assessment.persistence.entity.Pet;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.UUID;
 
-public interface PetRepository extends ReactiveCrudRepository<Pet, UUID> {
+public interface PetRepository extends ReactiveCrudRepository<Pet, UUID>, PetRepositoryCustom {
 
-	Flux<Pet> findPetsByPersonId(UUID personId);
+	@Query("SELECT * FROM pet ORDER BY id LIMIT $1")
+	Flux<Pet> findPage(int limit);
+
+	@Query("SELECT * FROM pet WHERE id > $1 ORDER BY id LIMIT $2")
+	Flux<Pet> findPageAfter(UUID after, int limit);
+
+	@Query("SELECT * FROM pet WHERE person_id = $1 ORDER BY id LIMIT $2")
+	Flux<Pet> findPageByPersonId(UUID personId, int limit);
+
+	@Query("SELECT * FROM pet WHERE person_id = $1 AND id > $2 ORDER BY id LIMIT $3")
+	Flux<Pet> findPageByPersonIdAfter(UUID personId, UUID after, int limit);
+
+	/**
+	 * Updates a pet with a single statement, unless it already has these values, in which case nothing is written. The
+	 * previous row is locked, so it is the latest version (the one the update applies to) even when another update of
+	 * the pet commits first.
+	 *
+	 * @return The pet as it was before the update, or empty when there is no pet with the id.
+	 */
+	@Query("WITH previous AS (SELECT * FROM pet WHERE id = $1 FOR UPDATE), " +
+			"updated AS (UPDATE pet SET name = $2, age = $3, person_id = $4 WHERE id = $1 AND " +
+			"(name, age, person_id) IS DISTINCT FROM ($2, $3, $4)) " +
+			"SELECT * FROM previous")
+	Mono<Pet> updateReturningPrevious(UUID id, String name, Integer age, UUID personId);
+
+	/**
+	 * Deletes the pet with a single statement.
+	 *
+	 * @return The deleted pet, or empty when there was no pet with the id.
+	 */
+	@Query("DELETE FROM pet WHERE id = $1 RETURNING *")
+	Mono<Pet> deleteReturningById(UUID id);
 }
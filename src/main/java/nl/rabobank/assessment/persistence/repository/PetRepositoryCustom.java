@@ -0,0 +1,37 @@
+package nl.rabobank.assessment.persistence.repository;
+
+import nl.rabobank.assessment.persistence.entity.Pet;
+import nl.rabobank.assessment.ui.rest.model.response.PetResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface PetRepositoryCustom {
+
+	/**
+	 * Streams all pets from a server side cursor, fetching the next batch of rows only when the subscriber has
+	 * requested them. The responses are read straight from the rows, see {@link ResponseProjections}.
+	 */
+	Flux<PetResponse> streamAllResponses();
+
+	/**
+	 * Finds the pets of a person ordered by id, read straight from the rows like {@link #streamAllResponses()}.
+	 */
+	Flux<PetResponse> findResponsesByPersonId(UUID personId);
+
+	/**
+	 * Finds the pets with any of the given ids in a single query, in no particular order, read straight from the rows
+	 * like {@link #streamAllResponses()}.
+	 */
+	Flux<PetResponse> findResponsesByIdIn(Collection<UUID> ids);
+
+	/**
+	 * Inserts all pets with a single multi-row INSERT, assigning an id to each of them first.
+	 *
+	 * @return The number of inserted rows.
+	 */
+	Mono<Long> insertAll(List<Pet> pets);
+}
@@ -0,0 +1,57 @@
+package nl.rabobank.assessment.persistence.repository;
+
+import nl.rabobank.assessment.persistence.entity.Pet;
+import nl.rabobank.assessment.ui.rest.model.response.PetResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public class PetRepositoryCustomImpl implements PetRepositoryCustom {
+
+	private final R2dbcEntityTemplate template;
+
+	private final int fetchSize;
+
+	public PetRepositoryCustomImpl(R2dbcEntityTemplate template,
+	                               @Value("${assessment.streaming.fetch-size}") int fetchSize) {
+		this.template = template;
+		this.fetchSize = fetchSize;
+	}
+
+	@Override
+	public Flux<PetResponse> streamAllResponses() {
+		return template.getDatabaseClient()
+				.sql("SELECT " + ResponseProjections.PET_COLUMNS + " FROM pet")
+				.filter(statement -> statement.fetchSize(fetchSize))
+				.map(ResponseProjections::toPetResponse)
+				.all();
+	}
+
+	@Override
+	public Flux<PetResponse> findResponsesByPersonId(UUID personId) {
+		return template.getDatabaseClient()
+				.sql("SELECT " + ResponseProjections.PET_COLUMNS + " FROM pet WHERE person_id = $1 ORDER BY id")
+				.bind(0, personId)
+				.map(ResponseProjections::toPetResponse)
+				.all();
+	}
+
+	@Override
+	public Flux<PetResponse> findResponsesByIdIn(Collection<UUID> ids) {
+		return template.getDatabaseClient()
+				.sql("SELECT " + ResponseProjections.PET_COLUMNS + " FROM pet WHERE id = ANY($1)")
+				.bind(0, ids.toArray(UUID[]::new))
+				.map(ResponseProjections::toPetResponse)
+				.all();
+	}
+
+	@Override
+	public Mono<Long> insertAll(List<Pet> pets) {
+		return MultiRowInsert.insertAll(template, Pet.class, pets);
+	}
+}
@@ -0,0 +1,47 @@
+package nl.rabobank.assessment.persistence.repository;
+
+import io.r2dbc.spi.Row;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import nl.rabobank.assessment.ui.rest.model.response.PersonResponse;
+import nl.rabobank.assessment.ui.rest.model.response.PetResponse;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Builds responses straight from the columns of a row, for reads that return many rows. Unlike reading an entity with
+ * the converter and mapping it with the {@code EntityMapper}, this creates a single object per row and reads the
+ * columns by position instead of by name. Select the columns in the order of {@link #PERSON_COLUMNS} and
+ * {@link #PET_COLUMNS}.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class ResponseProjections {
+
+	public static final String PERSON_COLUMNS = "id, first_name, last_name, date_of_birth, street, house_number, " +
+			"house_number_additions, postal_code, city, country";
+
+	public static final String PET_COLUMNS = "id, name, age, person_id";
+
+	public static PersonResponse toPersonResponse(Row row) {
+		return new PersonResponse(
+				row.get(0, UUID.class),
+				row.get(1, String.class),
+				row.get(2, String.class),
+				row.get(3, LocalDate.class),
+				row.get(4, String.class),
+				row.get(5, Integer.class),
+				row.get(6, String.class),
+				row.get(7, String.class),
+				row.get(8, String.class),
+				row.get(9, String.class));
+	}
+
+	public static PetResponse toPetResponse(Row row) {
+		return new PetResponse(
+				row.get(0, UUID.class),
+				row.get(1, String.class),
+				row.get(2, Integer.class),
+				row.get(3, UUID.class));
+	}
+}
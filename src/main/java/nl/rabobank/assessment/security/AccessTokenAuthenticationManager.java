@@ -0,0 +1,20 @@
+package nl.rabobank.assessment.security;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.core.Authentication;
+import reactor.core.publisher.Mono;
+
+/**
+ * Authenticates a {@linkplain BearerTokenAuthentication} by verifying its signature in memory.
+ */
+@RequiredArgsConstructor
+public class AccessTokenAuthenticationManager implements ReactiveAuthenticationManager {
+
+	private final AccessTokenService accessTokenService;
+
+	@Override
+	public Mono<Authentication> authenticate(Authentication authentication) {
+		return Mono.fromCallable(() -> accessTokenService.verify((String) authentication.getCredentials()));
+	}
+}
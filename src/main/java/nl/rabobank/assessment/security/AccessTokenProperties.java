@@ -0,0 +1,23 @@
+package nl.rabobank.assessment.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Configuration of the signed access tokens.
+ *
+ * @param timeToLive How long an issued token stays valid.
+ * @param activeKeyId The id of the key in {@code keys} that is used to sign new tokens.
+ * @param keys All keys (Base64 encoded) that are accepted when verifying a token, by key id. To rotate, add a new key,
+ *             make it the active one and remove the old key once the tokens signed with it have expired. The keys are
+ *             secrets, so there are no defaults: every deployment configures its own.
+ * @param generateKey Sign with a random key generated at startup instead of the configured keys. Only for local
+ *                    development: the tokens become invalid on a restart and other instances don't accept them.
+ */
+@ConstructorBinding
+@ConfigurationProperties("assessment.security.token")
+public record AccessTokenProperties(Duration timeToLive, String activeKeyId, Map<String, String> keys,
+                                    boolean generateKey) {}
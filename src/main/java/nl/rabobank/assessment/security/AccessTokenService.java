@@ -0,0 +1,154 @@
+package nl.rabobank.assessment.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Issues and verifies short-lived access tokens, signed with HMAC-SHA256 in the compact JWS format
+ * ({@code header.claims.signature}). Verification only needs the configured keys, so authenticated requests carrying
+ * a token don't touch the database or the password encoder.
+ */
+public class AccessTokenService {
+
+	private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+	static final String GENERATED_KEY_ID = "generated";
+
+	/**
+	 * The size of a generated key, which matches the output of HMAC-SHA256.
+	 */
+	private static final int GENERATED_KEY_LENGTH = 32;
+
+	private static final String INVALID_TOKEN = "Invalid access token";
+
+	private static final String EXPIRED_TOKEN = "Expired access token";
+
+	private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+	private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+	private final Clock clock;
+
+	private final ObjectMapper objectMapper;
+
+	private final String activeKeyId;
+
+	private final Map<String, SecretKeySpec> keys;
+
+	private final Duration timeToLive;
+
+	public AccessTokenService(AccessTokenProperties properties, ObjectMapper objectMapper, Clock clock) {
+		this.clock = clock;
+		this.objectMapper = objectMapper;
+		this.timeToLive = properties.timeToLive();
+		if (properties.generateKey()) {
+			byte[] key = new byte[GENERATED_KEY_LENGTH];
+			new SecureRandom().nextBytes(key);
+			this.activeKeyId = GENERATED_KEY_ID;
+			this.keys = Map.of(GENERATED_KEY_ID, new SecretKeySpec(key, HMAC_ALGORITHM));
+			return;
+		}
+		this.activeKeyId = properties.activeKeyId();
+		this.keys = (properties.keys() == null ? Map.<String, String>of() : properties.keys()).entrySet().stream()
+				.collect(Collectors.toUnmodifiableMap(Map.Entry::getKey,
+						entry -> new SecretKeySpec(Base64.getDecoder().decode(entry.getValue()), HMAC_ALGORITHM)));
+		if (activeKeyId == null || !keys.containsKey(activeKeyId)) {
+			throw new IllegalArgumentException(String.format("No token key configured with id %s. Configure the " +
+					"signing key with assessment.security.token.active-key-id and " +
+					"assessment.security.token.keys.<id> (for example with the ASSESSMENT_SECURITY_TOKEN_ACTIVEKEYID " +
+					"and ASSESSMENT_SECURITY_TOKEN_KEYS_<ID> environment variables), or run with the local profile to " +
+					"generate one.", activeKeyId));
+		}
+	}
+
+	public AccessToken issue(Authentication authentication) {
+		Instant expiresAt = clock.instant().plus(timeToLive);
+		List<String> roles = authentication.getAuthorities().stream()
+				.map(GrantedAuthority::getAuthority)
+				.toList();
+		String signingInput = encode(new Header("HS256", activeKeyId)) + "." +
+				encode(new Claims(authentication.getName(), roles, expiresAt.getEpochSecond()));
+		return new AccessToken(signingInput + "." + sign(activeKeyId, signingInput), timeToLive);
+	}
+
+	/**
+	 * @param token The compact token as presented by the client.
+	 * @return An authenticated {@linkplain Authentication} for the subject of the token.
+	 * @throws BadCredentialsException When the token is malformed, signed with an unknown key, tampered with or
+	 * expired.
+	 */
+	public Authentication verify(String token) {
+		String[] parts = token.split("\\.");
+		if (parts.length != 3) {
+			throw new BadCredentialsException(INVALID_TOKEN);
+		}
+		Header header = decode(parts[0], Header.class);
+		if (header.kid() == null || !keys.containsKey(header.kid())) {
+			throw new BadCredentialsException(INVALID_TOKEN);
+		}
+		String expectedSignature = sign(header.kid(), parts[0] + "." + parts[1]);
+		if (!MessageDigest.isEqual(expectedSignature.getBytes(StandardCharsets.US_ASCII),
+				parts[2].getBytes(StandardCharsets.US_ASCII))) {
+			throw new BadCredentialsException(INVALID_TOKEN);
+		}
+		Claims claims = decode(parts[1], Claims.class);
+		if (!clock.instant().isBefore(Instant.ofEpochSecond(claims.exp()))) {
+			throw new BadCredentialsException(EXPIRED_TOKEN);
+		}
+		List<GrantedAuthority> authorities = claims.roles().stream()
+				.<GrantedAuthority>map(SimpleGrantedAuthority::new)
+				.toList();
+		return UsernamePasswordAuthenticationToken.authenticated(claims.sub(), null, authorities);
+	}
+
+	private String sign(String keyId, String signingInput) {
+		try {
+			Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+			mac.init(keys.get(keyId));
+			return ENCODER.encodeToString(mac.doFinal(signingInput.getBytes(StandardCharsets.US_ASCII)));
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException("Unable to sign access token.", e);
+		}
+	}
+
+	private String encode(Object value) {
+		try {
+			return ENCODER.encodeToString(objectMapper.writeValueAsBytes(value));
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to serialize access token.", e);
+		}
+	}
+
+	private <T> T decode(String part, Class<T> type) {
+		try {
+			return objectMapper.readValue(DECODER.decode(part), type);
+		} catch (IOException | IllegalArgumentException e) {
+			throw new BadCredentialsException(INVALID_TOKEN, e);
+		}
+	}
+
+	public record AccessToken(String value, Duration expiresIn) {}
+
+	private record Header(String alg, String kid) {}
+
+	private record Claims(String sub, List<String> roles, long exp) {}
+}
@@ -0,0 +1,26 @@
+package nl.rabobank.assessment.security;
+
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+
+/**
+ * An unverified access token as presented in the {@code Authorization: Bearer} header.
+ */
+public class BearerTokenAuthentication extends AbstractAuthenticationToken {
+
+	private final String token;
+
+	public BearerTokenAuthentication(String token) {
+		super(null);
+		this.token = token;
+	}
+
+	@Override
+	public String getCredentials() {
+		return token;
+	}
+
+	@Override
+	public Object getPrincipal() {
+		return null;
+	}
+}
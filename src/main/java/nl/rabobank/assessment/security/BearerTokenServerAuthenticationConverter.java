@@ -0,0 +1,21 @@
+package nl.rabobank.assessment.security;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.server.authentication.ServerAuthenticationConverter;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+public class BearerTokenServerAuthenticationConverter implements ServerAuthenticationConverter {
+
+	private static final String BEARER_PREFIX = "Bearer ";
+
+	@Override
+	public Mono<Authentication> convert(ServerWebExchange exchange) {
+		String authorization = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+		if (authorization == null || !authorization.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+			return Mono.empty();
+		}
+		return Mono.just(new BearerTokenAuthentication(authorization.substring(BEARER_PREFIX.length()).trim()));
+	}
+}
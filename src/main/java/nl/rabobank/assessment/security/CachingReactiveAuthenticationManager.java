@@ -0,0 +1,75 @@
+package nl.rabobank.assessment.security;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AccountStatusUserDetailsChecker;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsChecker;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Username/password authentication that consults the {@linkplain CredentialCache} before running the password
+ * encoder. The account status of the user is still checked on every request, so disabling or locking a user takes
+ * effect immediately.
+ *
+ * Cache misses are hashed on the given (bounded) scheduler, never on the calling thread. When that scheduler rejects
+ * the work the request fails fast with a 503 instead of queueing up behind other logins.
+ */
+@RequiredArgsConstructor
+public class CachingReactiveAuthenticationManager implements ReactiveAuthenticationManager {
+
+	private static final String INVALID_CREDENTIALS = "Invalid Credentials";
+
+	private static final String PASSWORD_HASHING_SATURATED = "Too many concurrent logins, try again later.";
+
+	private final UserDetailsChecker accountStatusChecker = new AccountStatusUserDetailsChecker();
+
+	private final ReactiveUserDetailsService userDetailsService;
+
+	private final PasswordEncoder passwordEncoder;
+
+	private final CredentialCache credentialCache;
+
+	private final Scheduler passwordHashingScheduler;
+
+	@Override
+	public Mono<Authentication> authenticate(Authentication authentication) {
+		String username = authentication.getName();
+		String presentedPassword = (String) authentication.getCredentials();
+		return userDetailsService.findByUsername(username)
+				.doOnNext(accountStatusChecker::check)
+				.filterWhen(userDetails -> matches(username, presentedPassword, userDetails.getPassword()))
+				.switchIfEmpty(Mono.error(() -> new BadCredentialsException(INVALID_CREDENTIALS)))
+				.map(this::createAuthentication);
+	}
+
+	private Mono<Boolean> matches(String username, String presentedPassword, String encodedPassword) {
+		if (credentialCache.isVerified(username, presentedPassword, encodedPassword)) {
+			return Mono.just(true);
+		}
+		return Mono.fromCallable(() -> passwordEncoder.matches(presentedPassword, encodedPassword))
+				.subscribeOn(passwordHashingScheduler)
+				.onErrorMap(RejectedExecutionException.class,
+						e -> new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, PASSWORD_HASHING_SATURATED, e))
+				.doOnNext(matches -> {
+					if (matches) {
+						credentialCache.markVerified(username, presentedPassword, encodedPassword);
+					}
+				});
+	}
+
+	private Authentication createAuthentication(UserDetails userDetails) {
+		return UsernamePasswordAuthenticationToken.authenticated(userDetails, userDetails.getPassword(),
+				userDetails.getAuthorities());
+	}
+}
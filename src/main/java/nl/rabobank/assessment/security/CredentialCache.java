@@ -0,0 +1,88 @@
+package nl.rabobank.assessment.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * Remembers credentials that recently passed the (deliberately slow) password hash, so that repeated requests with
+ * the same username and secret don't pay for BCrypt again.
+ *
+ * The presented secret is never kept in memory: entries are keyed by the username and an HMAC of the secret under a
+ * key that only lives inside this process. Every entry also holds the stored password hash it was verified against, so
+ * a password change invalidates it even when the row is updated outside the application.
+ */
+public class CredentialCache {
+
+	private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+	private final Cache<Key, String> verifiedCredentials;
+
+	private final SecretKey digestKey;
+
+	public CredentialCache(long maximumSize, Duration timeToLive) {
+		this.verifiedCredentials = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(timeToLive)
+				.recordStats()
+				.build();
+		this.digestKey = generateDigestKey();
+	}
+
+	/**
+	 * @param username The username that was presented.
+	 * @param presentedPassword The raw password that was presented.
+	 * @param encodedPassword The password hash currently stored for the user.
+	 * @return Whether this exact combination was verified before and hasn't been evicted or invalidated since.
+	 */
+	public boolean isVerified(String username, String presentedPassword, String encodedPassword) {
+		String verifiedAgainst = verifiedCredentials.getIfPresent(new Key(username, digest(presentedPassword)));
+		return verifiedAgainst != null && MessageDigest.isEqual(verifiedAgainst.getBytes(StandardCharsets.UTF_8),
+				encodedPassword.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public void markVerified(String username, String presentedPassword, String encodedPassword) {
+		verifiedCredentials.put(new Key(username, digest(presentedPassword)), encodedPassword);
+	}
+
+	/**
+	 * Drops every cached verification for the given user, e.g. after its password, enabled or locked flag changed.
+	 */
+	public void invalidate(String username) {
+		verifiedCredentials.asMap().keySet().removeIf(key -> key.username().equals(username));
+	}
+
+	public void bindTo(MeterRegistry meterRegistry) {
+		CaffeineCacheMetrics.monitor(meterRegistry, verifiedCredentials, "credentials");
+	}
+
+	private String digest(String presentedPassword) {
+		try {
+			Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+			mac.init(digestKey);
+			return Base64.getEncoder().encodeToString(mac.doFinal(presentedPassword.getBytes(StandardCharsets.UTF_8)));
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException("Unable to digest the presented credentials.", e);
+		}
+	}
+
+	private static SecretKey generateDigestKey() {
+		try {
+			return KeyGenerator.getInstance(HMAC_ALGORITHM).generateKey();
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException("Unable to generate the credential digest key.", e);
+		}
+	}
+
+	private record Key(String username, String digest) {}
+}
@@ -0,0 +1,25 @@
+package nl.rabobank.assessment.security;
+
+import lombok.RequiredArgsConstructor;
+import nl.rabobank.assessment.persistence.entity.User;
+import org.reactivestreams.Publisher;
+import org.springframework.data.r2dbc.mapping.OutboundRow;
+import org.springframework.data.r2dbc.mapping.event.AfterSaveCallback;
+import org.springframework.data.relational.core.sql.SqlIdentifier;
+import reactor.core.publisher.Mono;
+
+/**
+ * Evicts the cached credential verifications of a user whenever its row is written, which covers changes to the
+ * password, enabled and locked columns.
+ */
+@RequiredArgsConstructor
+public class CredentialCacheInvalidationCallback implements AfterSaveCallback<User> {
+
+	private final CredentialCache credentialCache;
+
+	@Override
+	public Publisher<User> onAfterSave(User user, OutboundRow outboundRow, SqlIdentifier table) {
+		credentialCache.invalidate(user.getUsername());
+		return Mono.just(user);
+	}
+}
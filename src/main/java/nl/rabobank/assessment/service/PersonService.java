@@ -1,9 +1,13 @@
 package nl.rabobank.assessment.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import nl.rabobank.assessment.cache.BatchLoader;
+import nl.rabobank.assessment.cache.ReactiveCache;
 import nl.rabobank.assessment.mapper.EntityMapper;
 import nl.rabobank.assessment.ui.rest.model.request.PersonRequest;
 import nl.rabobank.assessment.ui.rest.model.request.UpdateAddressRequest;
+import nl.rabobank.assessment.ui.rest.model.response.ImportResultResponse;
 import nl.rabobank.assessment.ui.rest.model.response.PersonResponse;
 import nl.rabobank.assessment.persistence.entity.Person;
 import nl.rabobank.assessment.persistence.repository.PersonRepository;
@@ -12,8 +16,18 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
 
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -29,15 +43,94 @@ public class PersonService {
 
 	private static final String NO_PERSON_FOUND_WITH_NAME = "No person found with name: %s";
 
+	protected static final int IMPORT_CHUNK_SIZE = 1000;
+
+	protected static final int MIN_SEARCH_QUERY_LENGTH = 2;
+
+	protected static final String SEARCH_QUERY_TOO_SHORT = "q must contain at least " + MIN_SEARCH_QUERY_LENGTH +
+			" characters.";
+
+	private static final Pattern LIKE_WILDCARDS = Pattern.compile("[\\\\%_]");
+
 	private final EntityMapper entityMapper;
 
 	private final PersonRepository personRepository;
 
+	private final Validator validator;
+
+	private final ReactiveCache<UUID, PersonResponse> personCache;
+
+	private final BatchLoader<UUID, PersonResponse> personLoader;
+
+	private final MeterRegistry meterRegistry;
+
+	/**
+	 * Registers a person in a single statement; the unique full name constraint rejects duplicates, also when they are
+	 * created concurrently.
+	 */
 	public Mono<UUID> createPerson(PersonRequest personRequest) {
-		return personRepository.existsByFirstNameAndLastName(personRequest.firstName(), personRequest.lastName())
-				.flatMap(exists -> exists ? Mono.error(DUPLICATE_BY_NAME_EXCEPTION) :
-						personRepository.save(entityMapper.toPerson(personRequest))
-								.mapNotNull(Person::getId));
+		Person person = entityMapper.toPerson(personRequest);
+		return personRepository.insertIfAbsent(person)
+				.switchIfEmpty(Mono.error(DUPLICATE_BY_NAME_EXCEPTION))
+				.doOnNext(id -> cache(person));
+	}
+
+	/**
+	 * Imports people in chunks of {@value #IMPORT_CHUNK_SIZE}: every chunk is validated, checked for duplicate names
+	 * within the chunk and inserted with a single statement, which skips the people whose name is already registered
+	 * (also when they are registered concurrently).
+	 *
+	 * @return One result per request, in the order of the requests.
+	 */
+	public Flux<ImportResultResponse> importPeople(Flux<PersonRequest> personRequests) {
+		return personRequests
+				.index()
+				.buffer(IMPORT_CHUNK_SIZE)
+				.concatMap(this::importChunk);
+	}
+
+	private Flux<ImportResultResponse> importChunk(List<Tuple2<Long, PersonRequest>> chunk) {
+		ImportResultResponse[] results = new ImportResultResponse[chunk.size()];
+		Set<FullName> fullNames = new HashSet<>();
+		List<Person> people = new ArrayList<>();
+		List<Integer> positions = new ArrayList<>();
+		for (int i = 0; i < chunk.size(); i++) {
+			long line = chunk.get(i).getT1() + 1;
+			PersonRequest personRequest = chunk.get(i).getT2();
+			Set<ConstraintViolation<PersonRequest>> violations = validator.validate(personRequest);
+			if (!violations.isEmpty()) {
+				results[i] = new ImportResultResponse(line, ImportResultResponse.Status.INVALID, null, violations.stream()
+						.map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+						.sorted()
+						.collect(Collectors.joining(", ")));
+			} else if (!fullNames.add(new FullName(personRequest.firstName(), personRequest.lastName()))) {
+				results[i] = duplicate(line);
+			} else {
+				people.add(entityMapper.toPerson(personRequest));
+				positions.add(i);
+			}
+		}
+		if (people.isEmpty()) {
+			return Flux.fromArray(results);
+		}
+		return personRepository.insertAllIfAbsent(people)
+				.collect(Collectors.toSet())
+				.flatMapMany(inserted -> {
+					for (int i = 0; i < people.size(); i++) {
+						int position = positions.get(i);
+						long line = chunk.get(position).getT1() + 1;
+						UUID id = people.get(i).getId();
+						results[position] = inserted.contains(id) ?
+								new ImportResultResponse(line, ImportResultResponse.Status.CREATED, id, null) :
+								duplicate(line);
+					}
+					return Flux.fromArray(results);
+				});
+	}
+
+	private static ImportResultResponse duplicate(long line) {
+		return new ImportResultResponse(line, ImportResultResponse.Status.DUPLICATE, null,
+				DUPLICATE_BY_NAME_EXCEPTION.getReason());
 	}
 
 	public Mono<PersonResponse> findPersonByName(String firstName, String lastName) {
@@ -58,24 +151,75 @@ public class PersonService {
 						String.format(NO_PERSON_FOUND_WITH_NAME, String.join(" ", firstName, lastName)))));
 	}
 
+	/**
+	 * Searches people by (part of) their name, case-insensitively. People whose full name starts with the query come
+	 * first, followed by people with a name similar to it (which tolerates typos), the most similar first.
+	 *
+	 * @param query The search text, at least {@value #MIN_SEARCH_QUERY_LENGTH} characters.
+	 * @param limit The maximum number of people to return.
+	 */
+	public Flux<PersonResponse> searchPeople(String query, int limit) {
+		String normalized = query == null ? "" : query.strip().toLowerCase(Locale.ROOT);
+		if (normalized.length() < MIN_SEARCH_QUERY_LENGTH) {
+			return Flux.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, SEARCH_QUERY_TOO_SHORT));
+		}
+		String pattern = LIKE_WILDCARDS.matcher(normalized).replaceAll("\\\\$0") + "%";
+		return personRepository.searchByName(normalized, pattern, limit)
+				.map(entityMapper::toPersonResponse);
+	}
+
+	/**
+	 * Streams all people, reading them from the database as fast as the subscriber consumes them. The responses are
+	 * read straight from the rows, without an entity in between.
+	 */
 	public Flux<PersonResponse> getAllPeople() {
-		return personRepository.findAll()
+		return personRepository.streamAllResponses();
+	}
+
+	/**
+	 * Retrieves a page of people ordered by id, starting after the given id (keyset pagination).
+	 *
+	 * @param after The id of the last person of the previous page, or null for the first page.
+	 * @param limit The maximum number of people in the page.
+	 */
+	public Flux<PersonResponse> getPeople(UUID after, int limit) {
+		return (after == null ? personRepository.findPage(limit) : personRepository.findPageAfter(after, limit))
 				.map(entityMapper::toPersonResponse);
 	}
 
+	/**
+	 * Looks the person up in the cache, or loads it together with the other people looked up at the same time (see
+	 * {@link BatchLoader}).
+	 */
 	public Mono<PersonResponse> getPersonById(UUID id) {
-		return personRepository.findById(id)
-				.map(entityMapper::toPersonResponse)
+		return personCache.get(id, personLoader::load)
 				.switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND,
 						String.format(NO_PERSON_FOUND_WITH_ID, id))));
 	}
 
+	/**
+	 * Updates only the address columns of the person, with a single statement. Nothing is written when the person
+	 * already has this address (see {@link UpdateMetrics}).
+	 */
 	public Mono<Void> updatePersonAddress(UUID id, UpdateAddressRequest updateAddressRequest) {
-		return personRepository.findById(id)
-				.map(person -> entityMapper.updatePersonAddress(person, updateAddressRequest))
+		return personRepository.updateAddressReturningPrevious(id, updateAddressRequest.street(),
+						updateAddressRequest.houseNumber(), updateAddressRequest.houseNumberAdditions(),
+						updateAddressRequest.postalCode(), updateAddressRequest.city(), updateAddressRequest.country())
 				.switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND,
 						String.format(NO_PERSON_FOUND_WITH_ID, id))))
-				.flatMap(personRepository::save)
+				.doOnNext(previous -> {
+					boolean changed = !updateAddressRequest.equals(entityMapper.toUpdateAddressRequest(previous));
+					UpdateMetrics.count(meterRegistry, "person", changed);
+					if (changed) {
+						cache(entityMapper.updatePersonAddress(previous, updateAddressRequest));
+					}
+				})
 				.then();
 	}
+
+	private void cache(Person person) {
+		personCache.put(person.getId(), entityMapper.toPersonResponse(person));
+	}
+
+	private record FullName(String firstName, String lastName) {}
 }
@@ -1,10 +1,16 @@
 package nl.rabobank.assessment.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import nl.rabobank.assessment.cache.BatchLoader;
+import nl.rabobank.assessment.cache.ReactiveCache;
 import nl.rabobank.assessment.mapper.EntityMapper;
 import nl.rabobank.assessment.ui.rest.model.request.PetRequest;
+import nl.rabobank.assessment.ui.rest.model.response.ImportResultResponse;
 import nl.rabobank.assessment.ui.rest.model.response.PetResponse;
 import nl.rabobank.assessment.persistence.entity.Pet;
+import nl.rabobank.assessment.persistence.id.Ids;
+import nl.rabobank.assessment.persistence.repository.IntegrityConstraintViolationException;
 import nl.rabobank.assessment.persistence.repository.PersonRepository;
 import nl.rabobank.assessment.persistence.repository.PetRepository;
 import org.springframework.http.HttpStatus;
@@ -12,8 +18,17 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
 
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -25,53 +40,199 @@ public class PetService {
 			new ResponseStatusException(HttpStatus.BAD_REQUEST, "No person with ID %s is registered. Try registering" +
 					" your pet to an actual person.");
 
+	/**
+	 * The foreign key from a pet to its owner, which rejects pets of people that aren't registered.
+	 */
+	protected static final String OWNER_CONSTRAINT = "person_id_fk";
+
+	protected static final int BATCH_CHUNK_SIZE = 1000;
+
 	private final EntityMapper entityMapper;
 
 	private final PersonRepository personRepository;
 
 	private final PetRepository petRepository;
 
+	private final Validator validator;
+
+	private final ReactiveCache<UUID, List<PetResponse>> petsByOwnerCache;
+
+	private final BatchLoader<UUID, PetResponse> petLoader;
+
+	private final MeterRegistry meterRegistry;
+
+	/**
+	 * Inserts the pet with a single statement; the owner is checked by the foreign key on the pet table.
+	 */
 	public Mono<UUID> createPet(PetRequest petRequest) {
-		if (petRequest.personId() != null) {
-			return personRepository.existsById(petRequest.personId())
-					.flatMap(exists -> exists ? petRepository.save(entityMapper.toPet(petRequest))
-							.mapNotNull(Pet::getId)
-									: Mono.error(NO_PERSON_WITH_THAT_ID_AVAILABLE));
-		}
 		return petRepository.save(entityMapper.toPet(petRequest))
+				.onErrorMap(PetService::violatesOwnerConstraint, e -> noPersonWithId(petRequest.personId(), e))
+				.doOnNext(pet -> invalidateOwner(pet.getPersonId()))
 				.mapNotNull(Pet::getId);
 	}
 
-	public Mono<Void> deletePetById(UUID id) {
-		return petRepository.existsById(id)
-				.flatMap(exists -> exists ? petRepository.deleteById(id) :
-						Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND,
-								String.format(NO_PET_FOUND_WITH_ID, id))));
+	/**
+	 * Creates pets in chunks of {@value #BATCH_CHUNK_SIZE}: every chunk is validated, the owners it refers to are
+	 * checked with a single query and the valid pets are inserted with a single statement.
+	 *
+	 * @return One result per request, in the order of the requests.
+	 */
+	public Flux<ImportResultResponse> createPets(Flux<PetRequest> petRequests) {
+		return petRequests
+				.index()
+				.buffer(BATCH_CHUNK_SIZE)
+				.concatMap(this::createChunk);
 	}
 
-	public Flux<PetResponse> getAllPets() {
-		return petRepository.findAll()
-				.map(entityMapper::toPetResponse);
+	private Flux<ImportResultResponse> createChunk(List<Tuple2<Long, PetRequest>> chunk) {
+		ImportResultResponse[] results = new ImportResultResponse[chunk.size()];
+		Set<UUID> personIds = new HashSet<>();
+		for (int i = 0; i < chunk.size(); i++) {
+			PetRequest petRequest = chunk.get(i).getT2();
+			Set<ConstraintViolation<PetRequest>> violations = validator.validate(petRequest);
+			if (!violations.isEmpty()) {
+				results[i] = invalid(chunk.get(i).getT1() + 1, violations.stream()
+						.map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+						.sorted()
+						.collect(Collectors.joining(", ")));
+			} else if (petRequest.personId() != null) {
+				personIds.add(petRequest.personId());
+			}
+		}
+		Mono<Set<UUID>> existingPersonIds = personIds.isEmpty() ? Mono.just(Set.of()) :
+				personRepository.findExistingIds(personIds).collect(Collectors.toSet());
+		return existingPersonIds.flatMapMany(existing -> {
+			List<Pet> pets = new ArrayList<>();
+			List<Integer> positions = new ArrayList<>();
+			for (int i = 0; i < chunk.size(); i++) {
+				PetRequest petRequest = chunk.get(i).getT2();
+				if (results[i] != null) {
+					continue;
+				}
+				if (petRequest.personId() != null && !existing.contains(petRequest.personId())) {
+					results[i] = invalid(chunk.get(i).getT1() + 1,
+							String.format(NO_PERSON_WITH_THAT_ID_AVAILABLE.getReason(), petRequest.personId()));
+				} else {
+					pets.add(entityMapper.toPet(petRequest));
+					positions.add(i);
+				}
+			}
+			return petRepository.insertAll(pets)
+					.doOnNext(inserted -> pets.stream()
+							.map(Pet::getPersonId)
+							.distinct()
+							.forEach(this::invalidateOwner))
+					.thenMany(Flux.defer(() -> {
+						for (int i = 0; i < pets.size(); i++) {
+							int position = positions.get(i);
+							results[position] = new ImportResultResponse(chunk.get(position).getT1() + 1,
+									ImportResultResponse.Status.CREATED, pets.get(i).getId(), null);
+						}
+						return Flux.fromArray(results);
+					}));
+		});
 	}
 
-	public Mono<PetResponse> getPetById(UUID petId) {
-		return petRepository.findById(petId)
+	private static ImportResultResponse invalid(long line, String message) {
+		return new ImportResultResponse(line, ImportResultResponse.Status.INVALID, null, message);
+	}
+
+	public Mono<Void> deletePetById(UUID id) {
+		return petRepository.deleteReturningById(id)
 				.switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND,
-						String.format(NO_PET_FOUND_WITH_ID, petId))))
-				.mapNotNull(entityMapper::toPetResponse);
+						String.format(NO_PET_FOUND_WITH_ID, id))))
+				.doOnNext(pet -> invalidateOwner(pet.getPersonId()))
+				.then();
+	}
+
+	/**
+	 * Streams all pets, reading them from the database as fast as the subscriber consumes them. The responses are read
+	 * straight from the rows, without an entity in between. The pets of an owner are not read with a streaming query:
+	 * they are served from the list cached per owner, which is loaded as a whole when it isn't cached.
+	 *
+	 * @param personId Only return pets of this person, or all pets when null.
+	 */
+	public Flux<PetResponse> getAllPets(UUID personId) {
+		if (personId != null) {
+			return getPetsByOwner(personId);
+		}
+		return petRepository.streamAllResponses();
+	}
+
+	/**
+	 * Retrieves a page of pets ordered by id, starting after the given id (keyset pagination). A page of an owner's
+	 * pets is taken from the cached list when it is already cached, and otherwise read with a keyset query, so a page
+	 * never loads all pets of the owner.
+	 *
+	 * @param personId Only return pets of this person, or all pets when null.
+	 * @param after The id of the last pet of the previous page, or null for the first page.
+	 * @param limit The maximum number of pets in the page.
+	 */
+	public Flux<PetResponse> getPets(UUID personId, UUID after, int limit) {
+		if (personId == null) {
+			return (after == null ? petRepository.findPage(limit) : petRepository.findPageAfter(after, limit))
+					.map(entityMapper::toPetResponse);
+		}
+		Flux<Pet> page = Flux.defer(() -> after == null ? petRepository.findPageByPersonId(personId, limit) :
+				petRepository.findPageByPersonIdAfter(personId, after, limit));
+		return petsByOwnerCache.getIfPresent(personId)
+				.map(pets -> Flux.fromIterable(pets)
+						.filter(pet -> after == null || Ids.ORDER.compare(pet.id(), after) > 0)
+						.take(limit))
+				.defaultIfEmpty(page.map(entityMapper::toPetResponse))
+				.flatMapMany(Function.identity());
+	}
+
+	/**
+	 * All pets of an owner, ordered by id. The list is cached per owner until one of its pets is created, updated or
+	 * deleted.
+	 */
+	private Flux<PetResponse> getPetsByOwner(UUID personId) {
+		return petsByOwnerCache.get(personId, key -> petRepository.findResponsesByPersonId(key).collectList())
+				.flatMapIterable(Function.identity());
 	}
 
-	public Flux<PetResponse> getPetsByPersonId(UUID personId) {
-		return petRepository.findPetsByPersonId(personId)
-				.mapNotNull(entityMapper::toPetResponse);
+	/**
+	 * Loads the pet together with the other pets looked up at the same time (see {@link BatchLoader}).
+	 */
+	public Mono<PetResponse> getPetById(UUID petId) {
+		return petLoader.load(petId)
+				.switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND,
+						String.format(NO_PET_FOUND_WITH_ID, petId))));
 	}
 
+	/**
+	 * Updates the pet with a single statement; the owner is checked by the foreign key on the pet table. Nothing is
+	 * written when the pet already has these values (see {@link UpdateMetrics}).
+	 */
 	public Mono<Void> updatePet(UUID id, PetRequest petRequest) {
-		return petRepository.findById(id)
+		return petRepository.updateReturningPrevious(id, petRequest.name(), petRequest.age(), petRequest.personId())
+				.onErrorMap(PetService::violatesOwnerConstraint, e -> noPersonWithId(petRequest.personId(), e))
 				.switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND,
 						String.format(NO_PET_FOUND_WITH_ID, id))))
-				.map(pet -> entityMapper.toPet(pet, petRequest))
-				.flatMap(petRepository::save)
+				.doOnNext(previous -> {
+					boolean changed = !petRequest.equals(entityMapper.toPetRequest(previous));
+					UpdateMetrics.count(meterRegistry, "pet", changed);
+					if (changed) {
+						invalidateOwner(previous.getPersonId());
+						invalidateOwner(petRequest.personId());
+					}
+				})
 				.then();
 	}
+
+	private static boolean violatesOwnerConstraint(Throwable throwable) {
+		return IntegrityConstraintViolationException.violates(throwable, OWNER_CONSTRAINT);
+	}
+
+	private static ResponseStatusException noPersonWithId(UUID personId, Throwable cause) {
+		return new ResponseStatusException(HttpStatus.BAD_REQUEST,
+				String.format(NO_PERSON_WITH_THAT_ID_AVAILABLE.getReason(), personId), cause);
+	}
+
+	private void invalidateOwner(UUID personId) {
+		if (personId != null) {
+			petsByOwnerCache.invalidate(personId);
+		}
+	}
 }
@@ -0,0 +1,23 @@
+package nl.rabobank.assessment.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Counts the updates that were written and the ones that were skipped because the stored row already had the
+ * requested values, per entity, in the {@value #UPDATES_METER} counter.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class UpdateMetrics {
+
+	static final String UPDATES_METER = "assessment.updates";
+
+	static final String PERFORMED = "performed";
+
+	static final String SKIPPED = "skipped";
+
+	static void count(MeterRegistry meterRegistry, String entity, boolean changed) {
+		meterRegistry.counter(UPDATES_METER, "entity", entity, "outcome", changed ? PERFORMED : SKIPPED).increment();
+	}
+}
@@ -0,0 +1,47 @@
+package nl.rabobank.assessment.ui.config;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.lang.Nullable;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Reads CBOR, which the CBOR decoder of Spring only does for a single value. A {@code Flux} is read from a CBOR array
+ * or from a CBOR sequence, the values written one after the other. As Jackson can't parse CBOR without blocking, the
+ * body is read as a whole first, up to the maximum in memory size of this decoder. Larger imports are better sent as a
+ * Smile sequence, which is parsed as it arrives.
+ */
+public class CborDecoder extends Jackson2CborDecoder {
+
+	public CborDecoder(ObjectMapper objectMapper, MediaType... mediaTypes) {
+		super(objectMapper, mediaTypes);
+	}
+
+	@Override
+	public Flux<Object> decode(Publisher<DataBuffer> input, ResolvableType elementType, @Nullable MimeType mimeType,
+	                           @Nullable Map<String, Object> hints) {
+		return DataBufferUtils.join(input, getMaxInMemorySize())
+				.flatMapIterable(buffer -> {
+					try (MappingIterator<Object> values = getObjectMapper()
+							.readerFor(getObjectMapper().constructType(elementType.getType()))
+							.readValues(buffer.asInputStream())) {
+						return values.readAll();
+					} catch (IOException e) {
+						throw new DecodingException("Could not read " + elementType.toClass().getSimpleName(), e);
+					} finally {
+						DataBufferUtils.release(buffer);
+					}
+				});
+	}
+}
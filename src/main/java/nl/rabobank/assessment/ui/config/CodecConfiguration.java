@@ -0,0 +1,78 @@
+package nl.rabobank.assessment.ui.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import nl.rabobank.assessment.ui.rest.BinaryMediaTypes;
+import nl.rabobank.assessment.ui.rest.model.response.ImportResultResponse;
+import nl.rabobank.assessment.ui.rest.model.response.PersonResponse;
+import nl.rabobank.assessment.ui.rest.model.response.PetResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+/**
+ * Registers the {@link ResponseEncoder} for the responses (and errors) of the endpoints, ahead of the default Jackson
+ * encoders, as JSON, CBOR and Smile. The CBOR and Smile codecs use an object mapper configured like the JSON one of
+ * Spring Boot, so dates and the like are written the same way in every format.
+ */
+@Configuration
+public class CodecConfiguration implements WebFluxConfigurer {
+
+	private static final Class<?>[] RESPONSE_TYPES = {PersonResponse.class, PetResponse.class,
+			ImportResultResponse.class, ExceptionBody.class};
+
+	private final ObjectMapper objectMapper;
+
+	private final ObjectMapper cborMapper;
+
+	private final ObjectMapper smileMapper;
+
+	private final int bufferSize;
+
+	/**
+	 * The number of rows a streaming query reads at a time, after which the values written for them are sent.
+	 */
+	private final int fetchSize;
+
+	/**
+	 * How much of a CBOR body may be read, which is more than for other bodies because a CBOR import or batch is read
+	 * as a whole (see {@link CborDecoder}).
+	 */
+	private final DataSize cborMaxInMemorySize;
+
+	public CodecConfiguration(ObjectMapper objectMapper, ObjectProvider<Jackson2ObjectMapperBuilder> builders,
+	                          @Value("${assessment.encoding.buffer-size:8192}") int bufferSize,
+	                          @Value("${assessment.streaming.fetch-size}") int fetchSize,
+	                          @Value("${assessment.encoding.cbor-max-in-memory-size:16MB}") DataSize cborMaxInMemorySize) {
+		this.objectMapper = objectMapper;
+		this.cborMapper = builders.getObject().factory(new CBORFactory()).build();
+		this.smileMapper = builders.getObject().factory(new SmileFactory()).build();
+		this.bufferSize = bufferSize;
+		this.fetchSize = fetchSize;
+		this.cborMaxInMemorySize = cborMaxInMemorySize;
+	}
+
+	@Override
+	public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+		configurer.customCodecs().register(new ResponseEncoder(objectMapper, bufferSize, fetchSize, RESPONSE_TYPES));
+		configurer.customCodecs().register(new ResponseEncoder(cborMapper, MediaType.APPLICATION_CBOR,
+				BinaryMediaTypes.APPLICATION_CBOR_SEQ, bufferSize, fetchSize, RESPONSE_TYPES));
+		configurer.customCodecs().register(new ResponseEncoder(smileMapper, BinaryMediaTypes.APPLICATION_SMILE,
+				BinaryMediaTypes.APPLICATION_STREAM_SMILE, bufferSize, fetchSize, RESPONSE_TYPES));
+		CborDecoder cborDecoder = new CborDecoder(cborMapper, MediaType.APPLICATION_CBOR,
+				BinaryMediaTypes.APPLICATION_CBOR_SEQ);
+		configurer.customCodecs().registerWithDefaultConfig(cborDecoder, config ->
+				cborDecoder.setMaxInMemorySize(Math.max((int) cborMaxInMemorySize.toBytes(),
+						config.maxInMemorySize() == null ? 0 : config.maxInMemorySize())));
+		configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper));
+		configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(smileMapper));
+	}
+}
@@ -0,0 +1,279 @@
+package nl.rabobank.assessment.ui.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.EncodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.HttpMessageEncoder;
+import org.springframework.lang.Nullable;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SynchronousSink;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Writes responses of the given types in the format of the object mapper, a single value, a list or a stream of them:
+ * as JSON or newline delimited JSON, or as CBOR or Smile and a sequence of their values. Unlike the Jackson encoder of
+ * Spring, which serializes every element into a byte array of its own and copies that into a buffer, the elements are
+ * written by a single generator straight into a buffer from the factory (pooled, on Netty). The buffer is emitted as
+ * soon as it holds {@code bufferSize} bytes, so many small elements go out in one write and a long list or stream is
+ * never held in memory as a whole. A sequence is also emitted after every {@code sequenceBatchSize} values, the number
+ * of rows a streaming query reads at a time, so the values of a batch of rows reach the client without waiting for the
+ * next batch to be read.
+ */
+public class ResponseEncoder implements HttpMessageEncoder<Object> {
+
+	private final ObjectMapper objectMapper;
+
+	private final MediaType sequenceMediaType;
+
+	private final List<MediaType> mediaTypes;
+
+	/**
+	 * Whether the format is text, which puts every value of a sequence on a line of its own.
+	 */
+	private final boolean text;
+
+	private final Map<Class<?>, ObjectWriter> writers;
+
+	private final int bufferSize;
+
+	private final int sequenceBatchSize;
+
+	public ResponseEncoder(ObjectMapper objectMapper, int bufferSize, int sequenceBatchSize, Class<?>... types) {
+		this(objectMapper, MediaType.APPLICATION_JSON, MediaType.APPLICATION_NDJSON, bufferSize, sequenceBatchSize,
+				types);
+	}
+
+	/**
+	 * @param mediaType The media type of a single value or an array of them.
+	 * @param sequenceMediaType The media type of the values written one after the other, for streaming.
+	 * @param sequenceBatchSize After how many values of a sequence the buffer is emitted, also when it isn't full.
+	 */
+	public ResponseEncoder(ObjectMapper objectMapper, MediaType mediaType, MediaType sequenceMediaType,
+	                       int bufferSize, int sequenceBatchSize, Class<?>... types) {
+		this.objectMapper = objectMapper;
+		this.sequenceMediaType = sequenceMediaType;
+		this.mediaTypes = List.of(mediaType, sequenceMediaType);
+		this.text = !objectMapper.getFactory().canHandleBinaryNatively();
+		this.bufferSize = bufferSize;
+		this.sequenceBatchSize = sequenceBatchSize;
+		this.writers = Arrays.stream(types).collect(Collectors.toUnmodifiableMap(Function.identity(),
+				type -> objectMapper.writerFor(type).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)));
+	}
+
+	@Override
+	public boolean canEncode(ResolvableType elementType, @Nullable MimeType mimeType) {
+		return (mimeType == null || mediaTypes.stream().anyMatch(mediaType -> mediaType.isCompatibleWith(mimeType))) &&
+				(writers.containsKey(elementType.toClass()) || isListOfResponses(elementType));
+	}
+
+	@Override
+	public List<MimeType> getEncodableMimeTypes() {
+		return List.copyOf(mediaTypes);
+	}
+
+	@Override
+	public List<MediaType> getStreamingMediaTypes() {
+		return List.of(sequenceMediaType);
+	}
+
+	/**
+	 * A {@code Mono} is written as a single value in a single buffer, as Spring expects for a body of a known length.
+	 * Otherwise the responses are written as an array, or for the sequence media type one after the other.
+	 */
+	@Override
+	public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory,
+	                               ResolvableType elementType, @Nullable MimeType mimeType,
+	                               @Nullable Map<String, Object> hints) {
+		if (inputStream instanceof Mono) {
+			return Mono.from(inputStream)
+					.map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints))
+					.flux();
+		}
+		Flux<?> responses = isListOfResponses(elementType) ? Flux.from(inputStream).flatMapIterable(value -> (Collection<?>) value) :
+				Flux.from(inputStream);
+		boolean sequence = mimeType != null && sequenceMediaType.isCompatibleWith(mimeType);
+		return Flux.defer(() -> {
+			Batch batch = new Batch(bufferFactory, sequence);
+			return responses.<DataBuffer>handle(batch::write)
+					.concatWith(Mono.fromSupplier(batch::finish))
+					.doFinally(signal -> batch.release());
+		});
+	}
+
+	@Override
+	public DataBuffer encodeValue(Object value, DataBufferFactory bufferFactory, ResolvableType valueType,
+	                              @Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
+		Batch batch = new Batch(bufferFactory, false);
+		try {
+			if (value instanceof Collection<?> responses) {
+				batch.generator.writeStartArray();
+				for (Object response : responses) {
+					writer(response).writeValue(batch.generator, response);
+				}
+				batch.generator.writeEndArray();
+			} else {
+				writer(value).writeValue(batch.generator, value);
+			}
+			batch.generator.flush();
+			return batch.take(true);
+		} catch (IOException e) {
+			throw new EncodingException("Could not write " + value.getClass().getSimpleName(), e);
+		} finally {
+			batch.release();
+		}
+	}
+
+	/**
+	 * A collection of which the element type is unknown is accepted too: the body of a {@code ResponseEntity} is
+	 * checked by its class at runtime, once the media type has been chosen for the declared list of responses.
+	 */
+	private boolean isListOfResponses(ResolvableType type) {
+		if (!Collection.class.isAssignableFrom(type.toClass())) {
+			return false;
+		}
+		ResolvableType elementType = type.asCollection().getGeneric();
+		return elementType.resolve() == null || writers.containsKey(elementType.toClass());
+	}
+
+	private ObjectWriter writer(Object value) {
+		ObjectWriter writer = writers.get(value.getClass());
+		return writer != null ? writer : objectMapper.writerFor(value.getClass())
+				.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+	}
+
+	/**
+	 * The buffer being filled for a single response body, which is also the stream the generator writes to.
+	 */
+	private class Batch extends OutputStream {
+
+		private final DataBufferFactory bufferFactory;
+
+		private final boolean sequence;
+
+		private final JsonGenerator generator;
+
+		private DataBuffer buffer;
+
+		private boolean started;
+
+		/**
+		 * The number of values written, to emit a sequence after every {@code sequenceBatchSize} of them.
+		 */
+		private long values;
+
+		Batch(DataBufferFactory bufferFactory, boolean sequence) {
+			this.bufferFactory = bufferFactory;
+			this.sequence = sequence;
+			this.buffer = bufferFactory.allocateBuffer(bufferSize);
+			try {
+				this.generator = objectMapper.getFactory().createGenerator(this)
+						.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+				if (text) {
+					generator.setRootValueSeparator(null);
+				}
+			} catch (IOException e) {
+				throw new EncodingException("Could not create a generator", e);
+			}
+		}
+
+		synchronized void write(Object value, SynchronousSink<DataBuffer> sink) {
+			try {
+				if (!started) {
+					start();
+				}
+				writer(value).writeValue(generator, value);
+				if (sequence && text) {
+					generator.writeRaw('\n');
+				}
+				boolean endOfBatch = sequence && ++values % sequenceBatchSize == 0;
+				if (endOfBatch || buffer.readableByteCount() + generator.getOutputBuffered() >= bufferSize) {
+					generator.flush();
+					sink.next(take(false));
+				}
+			} catch (IOException e) {
+				sink.error(new EncodingException("Could not write " + value.getClass().getSimpleName(), e));
+			}
+		}
+
+		/**
+		 * @return The last buffer, or null when nothing is left to write.
+		 */
+		synchronized DataBuffer finish() {
+			try {
+				if (!started) {
+					start();
+				}
+				if (!sequence) {
+					generator.writeEndArray();
+				}
+				generator.flush();
+				return buffer.readableByteCount() == 0 ? null : take(true);
+			} catch (IOException e) {
+				throw new EncodingException("Could not finish the response", e);
+			}
+		}
+
+		/**
+		 * Releases the buffer that wasn't emitted (on an error or a cancel) and returns the buffers of the generator.
+		 */
+		synchronized void release() {
+			if (buffer != null) {
+				DataBufferUtils.release(buffer);
+				buffer = null;
+			}
+			try {
+				generator.close();
+			} catch (IOException e) {
+				// Nothing is written anymore
+			}
+		}
+
+		private void start() throws IOException {
+			started = true;
+			if (!sequence) {
+				generator.writeStartArray();
+			}
+		}
+
+		/**
+		 * @param last Whether nothing is written after this buffer, so no new buffer is needed.
+		 */
+		private DataBuffer take(boolean last) {
+			DataBuffer full = buffer;
+			buffer = last ? null : bufferFactory.allocateBuffer(bufferSize);
+			return full;
+		}
+
+		@Override
+		public void write(int b) {
+			if (buffer != null) {
+				buffer.write((byte) b);
+			}
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) {
+			if (buffer != null) {
+				buffer.write(bytes, offset, length);
+			}
+		}
+	}
+}
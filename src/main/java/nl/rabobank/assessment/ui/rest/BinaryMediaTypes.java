@@ -0,0 +1,31 @@
+package nl.rabobank.assessment.ui.rest;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.springframework.http.MediaType;
+
+/**
+ * The binary alternatives of JSON the endpoints support, next to {@link MediaType#APPLICATION_CBOR}. Like newline
+ * delimited JSON, the sequence types hold one value after the other instead of an array, for the streaming endpoints.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class BinaryMediaTypes {
+
+	/**
+	 * CBOR sequence (RFC 8742): CBOR values written one after the other.
+	 */
+	public static final String APPLICATION_CBOR_SEQ_VALUE = "application/cbor-seq";
+
+	public static final MediaType APPLICATION_CBOR_SEQ = MediaType.parseMediaType(APPLICATION_CBOR_SEQ_VALUE);
+
+	public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+	public static final MediaType APPLICATION_SMILE = MediaType.parseMediaType(APPLICATION_SMILE_VALUE);
+
+	/**
+	 * Smile values written one after the other, the streaming type of the Smile codecs of Spring.
+	 */
+	public static final String APPLICATION_STREAM_SMILE_VALUE = "application/stream+x-jackson-smile";
+
+	public static final MediaType APPLICATION_STREAM_SMILE = MediaType.parseMediaType(APPLICATION_STREAM_SMILE_VALUE);
+}
@@ -0,0 +1,86 @@
+package nl.rabobank.assessment.ui.rest;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Keyset pagination for the list endpoints. A page is requested with a {@code limit} and the opaque {@code after}
+ * cursor of the previous page; the cursor for the next page is returned in the {@value #NEXT_CURSOR_HEADER} header
+ * and is absent on the last page.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class PageCursor {
+
+	public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+	public static final String DEFAULT_LIMIT = "100";
+
+	protected static final int MAX_LIMIT = 1000;
+
+	protected static final String INVALID_CURSOR = "Invalid cursor: %s";
+
+	protected static final String INVALID_LIMIT = "limit must be between 1 and " + MAX_LIMIT + ".";
+
+	private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+	private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+	public static String encode(UUID id) {
+		return ENCODER.encodeToString(ByteBuffer.allocate(16)
+				.putLong(id.getMostSignificantBits())
+				.putLong(id.getLeastSignificantBits())
+				.array());
+	}
+
+	/**
+	 * @return The id the cursor points at, or null when no cursor was given.
+	 * @throws ResponseStatusException With status 400 when the cursor isn't one that was handed out.
+	 */
+	public static UUID decode(String cursor) {
+		if (cursor == null) {
+			return null;
+		}
+		try {
+			byte[] bytes = DECODER.decode(cursor);
+			if (bytes.length != 16) {
+				throw new IllegalArgumentException();
+			}
+			ByteBuffer buffer = ByteBuffer.wrap(bytes);
+			return new UUID(buffer.getLong(), buffer.getLong());
+		} catch (IllegalArgumentException e) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.format(INVALID_CURSOR, cursor), e);
+		}
+	}
+
+	public static void validateLimit(int limit) {
+		if (limit < 1 || limit > MAX_LIMIT) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, INVALID_LIMIT);
+		}
+	}
+
+	/**
+	 * Collects a page (which holds at most {@code limit} elements) into a response, adding the cursor of the next page
+	 * when the page is full.
+	 */
+	public static <T> Mono<ResponseEntity<List<T>>> toResponse(Flux<T> page, int limit, Function<T, UUID> id) {
+		return page.collectList()
+				.map(elements -> {
+					ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+					if (elements.size() == limit) {
+						response.header(NEXT_CURSOR_HEADER, encode(id.apply(elements.get(elements.size() - 1))));
+					}
+					return response.body(elements);
+				});
+	}
+}
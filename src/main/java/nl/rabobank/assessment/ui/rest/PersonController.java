@@ -6,11 +6,13 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import lombok.RequiredArgsConstructor;
 import nl.rabobank.assessment.ui.rest.model.request.PersonRequest;
 import nl.rabobank.assessment.ui.rest.model.request.UpdateAddressRequest;
+import nl.rabobank.assessment.ui.rest.model.response.ImportResultResponse;
 import nl.rabobank.assessment.ui.rest.model.response.PersonResponse;
 import nl.rabobank.assessment.service.PersonService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.lang.Nullable;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -28,6 +30,7 @@ import reactor.core.publisher.Mono;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import java.net.URI;
+import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -41,14 +44,28 @@ public class PersonController {
 
 	protected static final String RETRIEVING_PERSON_WITH_ID = "Retrieving person with id {}";
 
-	protected static final String RETRIEVING_ALL_PEOPLE = "Retrieving all people.";
+	protected static final String RETRIEVING_ALL_PEOPLE = "Retrieving {} people after cursor {}.";
+
+	protected static final String STREAMING_ALL_PEOPLE = "Streaming all people.";
+
+	protected static final String SEARCHING_PEOPLE = "Searching {} people matching \"{}\"";
 
 	protected static final String CREATING_NEW_PERSON = "Creating new person: {}";
 
+	protected static final String IMPORTING_PEOPLE = "Importing people.";
+
 	private static final Logger log = LoggerFactory.getLogger(PersonController.class);
 
 	public static final String BASE_URL = "/v1/person";
 
+	public static final String IMPORT_URL = BASE_URL + "/import";
+
+	protected static final String SEARCH_DEFAULT_LIMIT = "10";
+
+	protected static final int SEARCH_MAX_LIMIT = 100;
+
+	protected static final String INVALID_SEARCH_LIMIT = "limit must be between 1 and " + SEARCH_MAX_LIMIT + ".";
+
 	protected static final String AT_LEAST_ONE_OF_FIRST_NAME_OR_LAST_NAME_MUST_BE_FILLED_TO_SEARCH = "At least one of firstName or lastName must be filled to search.";
 
 
@@ -64,11 +81,43 @@ public class PersonController {
 				.map(uuid -> ResponseEntity.created(URI.create(String.format("%s/%s", BASE_URL, uuid))).build());
 	}
 
-	@Operation(description = "Retrieve all people.")
-	@ApiResponse(responseCode = "200", description = "Ok.")
+	@Operation(description = "Import people from newline delimited JSON, one person per line, or from a CBOR or " +
+			"Smile array or sequence.")
+	@ApiResponse(responseCode = "200", description = "Ok. One result per line (or value), in the order of the " +
+			"request.")
+	@ApiResponse(responseCode = "401", description = "Unauthorized.")
+	@PostMapping(path = "/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+			BinaryMediaTypes.APPLICATION_CBOR_SEQ_VALUE, BinaryMediaTypes.APPLICATION_SMILE_VALUE,
+			BinaryMediaTypes.APPLICATION_STREAM_SMILE_VALUE}, produces = {MediaType.APPLICATION_NDJSON_VALUE,
+			BinaryMediaTypes.APPLICATION_CBOR_SEQ_VALUE, BinaryMediaTypes.APPLICATION_STREAM_SMILE_VALUE})
+	public Flux<ImportResultResponse> importPeople(@RequestBody Flux<PersonRequest> personRequests) {
+		log.debug(IMPORTING_PEOPLE);
+		return personService.importPeople(personRequests);
+	}
+
+	@Operation(description = "Retrieve all people, one page at a time.")
+	@ApiResponse(responseCode = "200", description = "Ok. The cursor of the next page is returned in the " +
+			PageCursor.NEXT_CURSOR_HEADER + " header.")
+	@ApiResponse(responseCode = "400", description = "Bad request.")
 	@GetMapping
-	public Flux<PersonResponse> getAllPeople() {
-		log.debug(RETRIEVING_ALL_PEOPLE);
+	public Mono<ResponseEntity<List<PersonResponse>>> getAllPeople(@Parameter(description = "Maximum number of people.")
+	                                                               @RequestParam(defaultValue = PageCursor.DEFAULT_LIMIT) int limit,
+	                                                               @Parameter(description = "Cursor of the page to retrieve.")
+	                                                               @RequestParam @Nullable String after) {
+		log.debug(RETRIEVING_ALL_PEOPLE, limit, after);
+		PageCursor.validateLimit(limit);
+		return PageCursor.toResponse(personService.getPeople(PageCursor.decode(after), limit), limit,
+				PersonResponse::id);
+	}
+
+	@Operation(description = "Stream all people as newline delimited JSON, server-sent events or a CBOR or Smile " +
+			"sequence, sent as the rows are read from the database, a fetch size (assessment.streaming.fetch-size) " +
+			"at a time.")
+	@ApiResponse(responseCode = "200", description = "Ok.")
+	@GetMapping(produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE,
+			BinaryMediaTypes.APPLICATION_CBOR_SEQ_VALUE, BinaryMediaTypes.APPLICATION_STREAM_SMILE_VALUE})
+	public Flux<PersonResponse> streamAllPeople() {
+		log.debug(STREAMING_ALL_PEOPLE);
 		return personService.getAllPeople();
 	}
 
@@ -99,6 +148,22 @@ public class PersonController {
 		return personService.findPersonByName(firstName, lastName);
 	}
 
+	@Operation(description = "Search people by (part of) their name, case-insensitively. Names starting with the " +
+			"query come first, followed by similar names, the most similar first.")
+	@ApiResponse(responseCode = "200", description = "Ok.")
+	@ApiResponse(responseCode = "400", description = "Bad request.")
+	@GetMapping(path = "/search", params = "q")
+	public Flux<PersonResponse> searchPeople(@Parameter(description = "Search text, at least two characters.")
+	                                         @RequestParam String q,
+	                                         @Parameter(description = "Maximum number of people.")
+	                                         @RequestParam(defaultValue = SEARCH_DEFAULT_LIMIT) int limit) {
+		log.debug(SEARCHING_PEOPLE, limit, q);
+		if (limit < 1 || limit > SEARCH_MAX_LIMIT) {
+			return Flux.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, INVALID_SEARCH_LIMIT));
+		}
+		return personService.searchPeople(q, limit);
+	}
+
 	@Operation(description = "Update address details for a person")
 	@ApiResponse(responseCode = "200", description = "Ok.")
 	@ApiResponse(responseCode = "404", description = "No person found.")
@@ -5,11 +5,13 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import lombok.RequiredArgsConstructor;
 import nl.rabobank.assessment.ui.rest.model.request.PetRequest;
+import nl.rabobank.assessment.ui.rest.model.response.ImportResultResponse;
 import nl.rabobank.assessment.ui.rest.model.response.PetResponse;
 import nl.rabobank.assessment.service.PetService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.lang.Nullable;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -29,6 +31,7 @@ import reactor.core.publisher.Mono;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import java.net.URI;
+import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -38,10 +41,14 @@ public class PetController {
 
 	protected static final String CREATING_NEW_PET = "Creating new Pet: {}";
 
+	protected static final String CREATING_PETS = "Creating a batch of pets.";
+
 	protected static final String DELETING_PET = "Deleting pet {}";
 
 	protected static final String RETRIEVING_ALL_PETS = "Retrieving all pets {}";
 
+	protected static final String STREAMING_ALL_PETS = "Streaming all pets {}";
+
 	protected static final String RETRIEVING_PET = "Retrieving pet {}";
 
 	protected static final String UPDATING_PET = "Updating pet {}: {}";
@@ -50,6 +57,8 @@ public class PetController {
 
 	public static final String BASE_URL = "/v1/pet";
 
+	public static final String BATCH_URL = BASE_URL + "/batch";
+
 	private static final String NO_PET_FOUND_WITH_ID = "No pet found with id: %s";
 
 	private final PetService petService;
@@ -64,6 +73,15 @@ public class PetController {
 						.build());
 	}
 
+	@Operation(description = "Create a batch of pets, from a JSON array or newline delimited JSON, or from a CBOR or " +
+			"Smile array or sequence.")
+	@ApiResponse(responseCode = "200", description = "Ok. One result per pet, in the order of the request.")
+	@PostMapping("/batch")
+	public Flux<ImportResultResponse> createPets(@RequestBody Flux<PetRequest> petRequests) {
+		log.debug(CREATING_PETS);
+		return petService.createPets(petRequests);
+	}
+
 	@Operation(description = "Delete pet.")
 	@ApiResponse(responseCode = "200", description = "Ok.")
 	@ApiResponse(responseCode = "404", description = "No pet found.")
@@ -74,13 +92,34 @@ public class PetController {
 		return petService.deletePetById(id);
 	}
 
-	@Operation(description = "Get all pets (filterable by personId).")
-	@ApiResponse(responseCode = "200", description = "Ok")
+	@Operation(description = "Get all pets (filterable by personId), one page at a time.")
+	@ApiResponse(responseCode = "200", description = "Ok. The cursor of the next page is returned in the " +
+			PageCursor.NEXT_CURSOR_HEADER + " header.")
+	@ApiResponse(responseCode = "400", description = "Bad request.")
 	@GetMapping
-	public Flux<PetResponse> getAllPets(@Parameter(description = "personId")
-	                                    @RequestParam @Nullable UUID personId) {
+	public Mono<ResponseEntity<List<PetResponse>>> getAllPets(@Parameter(description = "personId")
+	                                                          @RequestParam @Nullable UUID personId,
+	                                                          @Parameter(description = "Maximum number of pets.")
+	                                                          @RequestParam(defaultValue = PageCursor.DEFAULT_LIMIT) int limit,
+	                                                          @Parameter(description = "Cursor of the page to retrieve.")
+	                                                          @RequestParam @Nullable String after) {
 		log.debug(RETRIEVING_ALL_PETS, personId == null ? "" : String.format("matching personId %s", personId));
-		return personId == null ? petService.getAllPets() : petService.getPetsByPersonId(personId);
+		PageCursor.validateLimit(limit);
+		return PageCursor.toResponse(petService.getPets(personId, PageCursor.decode(after), limit), limit,
+				PetResponse::id);
+	}
+
+	@Operation(description = "Stream all pets (filterable by personId) as newline delimited JSON, server-sent " +
+			"events or a CBOR or Smile sequence, sent as the rows are read from the database, a fetch " +
+			"size (assessment.streaming.fetch-size) at a time. The pets of a person are served from the list " +
+			"cached per person, which is read as a whole.")
+	@ApiResponse(responseCode = "200", description = "Ok.")
+	@GetMapping(produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE,
+			BinaryMediaTypes.APPLICATION_CBOR_SEQ_VALUE, BinaryMediaTypes.APPLICATION_STREAM_SMILE_VALUE})
+	public Flux<PetResponse> streamAllPets(@Parameter(description = "personId")
+	                                       @RequestParam @Nullable UUID personId) {
+		log.debug(STREAMING_ALL_PETS, personId == null ? "" : String.format("matching personId %s", personId));
+		return petService.getAllPets(personId);
 	}
 
 	@Operation(description = "Get pet by id.")
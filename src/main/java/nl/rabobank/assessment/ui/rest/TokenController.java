@@ -0,0 +1,40 @@
+package nl.rabobank.assessment.ui.rest;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import lombok.RequiredArgsConstructor;
+import nl.rabobank.assessment.security.AccessTokenService;
+import nl.rabobank.assessment.ui.rest.model.response.TokenResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping(TokenController.BASE_URL)
+@RequiredArgsConstructor
+public class TokenController {
+
+	protected static final String ISSUING_ACCESS_TOKEN = "Issuing access token for {}";
+
+	private static final Logger log = LoggerFactory.getLogger(TokenController.class);
+
+	public static final String BASE_URL = "/v1/token";
+
+	private static final String BEARER = "Bearer";
+
+	private final AccessTokenService accessTokenService;
+
+	@Operation(description = "Exchange Basic credentials for a short-lived access token.")
+	@ApiResponse(responseCode = "200", description = "Ok.")
+	@ApiResponse(responseCode = "401", description = "Unauthorized.")
+	@PostMapping
+	public Mono<TokenResponse> createToken(Authentication authentication) {
+		log.debug(ISSUING_ACCESS_TOKEN, authentication.getName());
+		AccessTokenService.AccessToken accessToken = accessTokenService.issue(authentication);
+		return Mono.just(new TokenResponse(accessToken.value(), BEARER, accessToken.expiresIn().toSeconds()));
+	}
+}
@@ -0,0 +1,21 @@
+package nl.rabobank.assessment.ui.rest.model.response;
+
+import java.util.UUID;
+
+public record ImportResultResponse(
+
+		long line,
+
+		Status status,
+
+		UUID id,
+
+		String message
+) {
+
+	public enum Status {
+		CREATED,
+		DUPLICATE,
+		INVALID
+	}
+}
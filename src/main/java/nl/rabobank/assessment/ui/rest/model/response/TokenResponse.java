@@ -0,0 +1,10 @@
+package nl.rabobank.assessment.ui.rest.model.response;
+
+public record TokenResponse(
+
+		String accessToken,
+
+		String tokenType,
+
+		long expiresIn
+){}
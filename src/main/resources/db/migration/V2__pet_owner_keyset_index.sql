@@ -0,0 +1,2 @@
+-- Serves the pages of GET /v1/pet?personId= as an index range scan on (person_id, id).
+create index pet_person_id_id_idx on pet (person_id, id);
@@ -0,0 +1,7 @@
+-- Exact name lookups: existsByFirstNameAndLastName, findPersonByFirstNameAndLastName and the duplicate check of the
+-- bulk import use both columns, findFirstByFirstName uses the leading one.
+create index person_first_name_last_name_idx on person (first_name, last_name);
+create index person_last_name_idx on person (last_name);
+
+-- Every authenticated request looks its user up by name, and names must identify a single user.
+create unique index user_username_idx on "user" (username);
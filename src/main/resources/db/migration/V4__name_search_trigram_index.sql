@@ -0,0 +1,5 @@
+create extension if not exists pg_trgm;
+
+-- Name search (PersonRepository.searchByName) matches prefixes and similar words of the lower cased full name, both of
+-- which a trigram index answers without reading the whole table.
+create index person_full_name_trgm_idx on person using gin (lower(first_name || ' ' || last_name) gin_trgm_ops);
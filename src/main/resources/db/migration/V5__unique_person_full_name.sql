@@ -0,0 +1,27 @@
+-- A person is identified by their full name. The constraint replaces the plain index on the same columns and lets
+-- createPerson insert with ON CONFLICT DO NOTHING instead of checking for duplicates first.
+
+-- The check-then-save that came before could let people with the same full name through. Those can't be merged
+-- automatically (their other details may differ and pets refer to them), so they are listed and the migration stops
+-- before adding the constraint. Nothing is changed then, and the migration runs again on the next start.
+do
+$$
+    declare
+        duplicates text;
+    begin
+        select string_agg(format('%s %s (%s)', first_name, last_name, ids), '; ')
+        into duplicates
+        from (select first_name, last_name, string_agg(id::text, ', ' order by id) as ids
+              from person
+              group by first_name, last_name
+              having count(*) > 1) duplicate;
+        if duplicates is not null then
+            raise exception 'Can''t make the full name of a person unique, these people share their name: %', duplicates
+                using hint = 'Rename or delete all but one person of each name (moving their pets to the one that ' ||
+                             'remains) and start the application again.';
+        end if;
+    end
+$$;
+
+alter table person add constraint person_first_name_last_name_key unique (first_name, last_name);
+drop index person_first_name_last_name_idx;
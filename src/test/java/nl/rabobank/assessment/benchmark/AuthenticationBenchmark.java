@@ -0,0 +1,101 @@
+package nl.rabobank.assessment.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import nl.rabobank.assessment.security.AccessTokenAuthenticationManager;
+import nl.rabobank.assessment.security.AccessTokenProperties;
+import nl.rabobank.assessment.security.AccessTokenService;
+import nl.rabobank.assessment.security.BearerTokenAuthentication;
+import nl.rabobank.assessment.security.CachingReactiveAuthenticationManager;
+import nl.rabobank.assessment.security.CredentialCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UserDetailsRepositoryReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.MapReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request authentication cost of HTTP Basic (with and without the credential cache) versus a signed access token.
+ * The user lookup is served from memory, so the Basic numbers exclude the database round trip that production pays on
+ * top of them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthenticationBenchmark {
+
+	/**
+	 * The admin password as stored by V1__setup_database.sql (BCrypt, cost 12).
+	 */
+	private static final String ADMIN_PASSWORD_HASH = "$2a$12$5xP4JvgNaeF7UkPvSUD5xOO6dQACesKmAbolv51vi4dStwJEQmMwy";
+
+	private Authentication basicCredentials;
+
+	private Authentication bearerToken;
+
+	private UserDetailsRepositoryReactiveAuthenticationManager basicAuthentication;
+
+	private CachingReactiveAuthenticationManager cachedBasicAuthentication;
+
+	private AccessTokenAuthenticationManager accessTokenAuthentication;
+
+	@Setup
+	public void setUp() {
+		MapReactiveUserDetailsService userDetailsService = new MapReactiveUserDetailsService(User.withUsername("admin")
+				.password(ADMIN_PASSWORD_HASH)
+				.roles("ADMIN")
+				.build());
+		BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+
+		basicAuthentication = new UserDetailsRepositoryReactiveAuthenticationManager(userDetailsService);
+		basicAuthentication.setPasswordEncoder(passwordEncoder);
+		basicAuthentication.setScheduler(Schedulers.immediate());
+
+		cachedBasicAuthentication = new CachingReactiveAuthenticationManager(userDetailsService, passwordEncoder,
+				new CredentialCache(1000, Duration.ofMinutes(5)), Schedulers.immediate());
+
+		AccessTokenService accessTokenService = new AccessTokenService(new AccessTokenProperties(Duration.ofMinutes(15),
+				"benchmark", Map.of("benchmark", "YmVuY2htYXJrLWJlbmNobWFyay1iZW5jaG1hcmstYmVuY2g="), false),
+				new ObjectMapper(), Clock.systemUTC());
+		accessTokenAuthentication = new AccessTokenAuthenticationManager(accessTokenService);
+
+		basicCredentials = UsernamePasswordAuthenticationToken.unauthenticated("admin", "admin");
+		Authentication admin = basicAuthentication.authenticate(basicCredentials).block();
+		bearerToken = new BearerTokenAuthentication(accessTokenService.issue(admin).value());
+		cachedBasicAuthentication.authenticate(basicCredentials).block();
+	}
+
+	@Benchmark
+	public Authentication basic() {
+		return basicAuthentication.authenticate(basicCredentials).block();
+	}
+
+	@Benchmark
+	public Authentication basicWithCredentialCache() {
+		return cachedBasicAuthentication.authenticate(basicCredentials).block();
+	}
+
+	@Benchmark
+	public Authentication accessToken() {
+		return accessTokenAuthentication.authenticate(bearerToken).block();
+	}
+}
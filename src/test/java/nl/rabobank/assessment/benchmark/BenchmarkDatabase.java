@@ -0,0 +1,58 @@
+package nl.rabobank.assessment.benchmark;
+
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import lombok.Getter;
+import org.flywaydb.core.Flyway;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.repository.support.R2dbcRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * A migrated Postgres container with the repositories wired up the way Spring Data does it, but without starting the
+ * application context.
+ */
+@Getter
+public class BenchmarkDatabase implements AutoCloseable {
+
+	private final PostgreSQLContainer<?> container = new PostgreSQLContainer<>("postgres:14.1");
+
+	private final ConnectionFactory connectionFactory;
+
+	private final R2dbcEntityTemplate template;
+
+	private final R2dbcRepositoryFactory repositoryFactory;
+
+	public BenchmarkDatabase() {
+		container.start();
+		Flyway.configure()
+				.dataSource(container.getJdbcUrl(), container.getUsername(), container.getPassword())
+				.locations("classpath:db/migration")
+				.load()
+				.migrate();
+		connectionFactory = ConnectionFactories.get(ConnectionFactoryOptions
+				.parse("r2dbc:pool:" + container.getJdbcUrl().substring(5))
+				.mutate()
+				.option(ConnectionFactoryOptions.USER, container.getUsername())
+				.option(ConnectionFactoryOptions.PASSWORD, container.getPassword())
+				.build());
+		template = new R2dbcEntityTemplate(connectionFactory);
+		repositoryFactory = new R2dbcRepositoryFactory(template);
+	}
+
+	public <T> T getRepository(Class<T> repositoryInterface, Object... fragments) {
+		return repositoryFactory.getRepository(repositoryInterface,
+				RepositoryComposition.RepositoryFragments.just(fragments));
+	}
+
+	public void execute(String sql) {
+		template.getDatabaseClient().sql(sql).then().block();
+	}
+
+	@Override
+	public void close() {
+		container.stop();
+	}
+}
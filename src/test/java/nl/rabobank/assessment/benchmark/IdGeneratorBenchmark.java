@@ -0,0 +1,106 @@
+package nl.rabobank.assessment.benchmark;
+
+import nl.rabobank.assessment.persistence.entity.Pet;
+import nl.rabobank.assessment.persistence.id.IdGenerator;
+import nl.rabobank.assessment.persistence.id.Ids;
+import nl.rabobank.assessment.persistence.id.TimeOrderedIdGenerator;
+import nl.rabobank.assessment.persistence.repository.PetRepository;
+import nl.rabobank.assessment.persistence.repository.PetRepositoryCustomImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Insert throughput and primary key index size with random (version 4) versus time-ordered (version 7) ids, and the
+ * cost of generating the ids from several threads at once. The index size per row is printed at the end of each
+ * trial. Needs Docker for the Postgres container.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class IdGeneratorBenchmark {
+
+	private static final int BATCH = 1_000;
+
+	@Param({"random", "time-ordered"})
+	private String ids;
+
+	private IdGenerator generator;
+
+	private IdGenerator defaultGenerator;
+
+	private BenchmarkDatabase database;
+
+	private PetRepository petRepository;
+
+	@Setup
+	public void setUp() {
+		generator = switch (ids) {
+			case "random" -> IdGenerator.random();
+			case "time-ordered" -> new TimeOrderedIdGenerator(Clock.systemUTC());
+			default -> throw new IllegalArgumentException(ids);
+		};
+		defaultGenerator = Ids.getGenerator();
+		Ids.setGenerator(generator);
+		database = new BenchmarkDatabase();
+		petRepository = database.getRepository(PetRepository.class,
+				new PetRepositoryCustomImpl(database.getTemplate(), 256));
+	}
+
+	@TearDown
+	public void tearDown() {
+		Long rows = database.getTemplate().getDatabaseClient()
+				.sql("SELECT count(*) FROM pet")
+				.map(row -> row.get(0, Long.class))
+				.one()
+				.block();
+		Long indexSize = database.getTemplate().getDatabaseClient()
+				.sql("SELECT pg_relation_size('pet_pkey')")
+				.map(row -> row.get(0, Long.class))
+				.one()
+				.block();
+		System.out.printf("%n%s ids: %d rows, primary key index %d bytes (%.1f bytes per row)%n", ids, rows,
+				indexSize, (double) indexSize / rows);
+		database.close();
+		Ids.setGenerator(defaultGenerator);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public Long insert() {
+		List<Pet> pets = new ArrayList<>(BATCH);
+		for (int i = 0; i < BATCH; i++) {
+			Pet pet = new Pet();
+			pet.setName("Pet " + i);
+			pet.setAge(i % 20);
+			pets.add(pet);
+		}
+		return petRepository.insertAll(pets).block();
+	}
+
+	@Benchmark
+	@Threads(8)
+	public UUID generate() {
+		return generator.generate();
+	}
+}
@@ -0,0 +1,96 @@
+package nl.rabobank.assessment.benchmark;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nl.rabobank.assessment.cache.BatchLoader;
+import nl.rabobank.assessment.cache.ReactiveCache;
+import nl.rabobank.assessment.mapper.EntityMapperImpl;
+import nl.rabobank.assessment.persistence.repository.PersonRepository;
+import nl.rabobank.assessment.persistence.repository.PersonRepositoryCustomImpl;
+import nl.rabobank.assessment.service.PersonService;
+import nl.rabobank.assessment.ui.rest.model.request.PersonRequest;
+import nl.rabobank.assessment.ui.rest.model.response.PersonResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+
+import javax.validation.Validation;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-person cost of registering people one request at a time (duplicate check and insert per person) versus the bulk
+ * import (one duplicate check and one insert per chunk). Needs Docker for the Postgres container.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PersonImportBenchmark {
+
+	private static final int PEOPLE = 5_000;
+
+	private final AtomicLong sequence = new AtomicLong();
+
+	private BenchmarkDatabase database;
+
+	private PersonService personService;
+
+	@Setup
+	public void setUp() {
+		database = new BenchmarkDatabase();
+		PersonRepository personRepository = database.getRepository(PersonRepository.class,
+				new PersonRepositoryCustomImpl(database.getTemplate(), 256));
+		personService = new PersonService(new EntityMapperImpl(), personRepository,
+				Validation.buildDefaultValidatorFactory().getValidator(),
+				new ReactiveCache<>(Caffeine.newBuilder().maximumSize(10_000).buildAsync()),
+				new BatchLoader<>(personRepository::findResponsesByIdIn, PersonResponse::id, Duration.ofMillis(2), 100),
+				new SimpleMeterRegistry());
+	}
+
+	@Setup(Level.Iteration)
+	public void truncate() {
+		database.execute("TRUNCATE TABLE person CASCADE");
+	}
+
+	@TearDown
+	public void tearDown() {
+		database.close();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(PEOPLE)
+	public Object createPerson() {
+		return people()
+				.concatMap(personService::createPerson)
+				.blockLast();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(PEOPLE)
+	public Object importPeople() {
+		return personService.importPeople(people())
+				.blockLast();
+	}
+
+	private Flux<PersonRequest> people() {
+		return Flux.range(0, PEOPLE)
+				.map(i -> new PersonRequest("Person", String.valueOf(sequence.incrementAndGet()),
+						LocalDate.of(1989, 8, 14), "Soendastraat", 25, null, "9715NH", "Groningen", "Netherlands"));
+	}
+}
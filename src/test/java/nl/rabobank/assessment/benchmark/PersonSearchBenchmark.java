@@ -0,0 +1,105 @@
+package nl.rabobank.assessment.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nl.rabobank.assessment.cache.BatchLoader;
+import nl.rabobank.assessment.cache.ReactiveCache;
+import nl.rabobank.assessment.mapper.EntityMapperImpl;
+import nl.rabobank.assessment.persistence.repository.PersonRepository;
+import nl.rabobank.assessment.persistence.repository.PersonRepositoryCustomImpl;
+import nl.rabobank.assessment.service.PersonService;
+import nl.rabobank.assessment.ui.rest.model.response.PersonResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.validation.Validation;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the name search on a seeded table, for a prefix, a full name and a misspelled name. Seeding the default
+ * 5 million people takes a few minutes. Needs Docker for the Postgres container.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PersonSearchBenchmark {
+
+	private static final List<String> FIRST_NAMES = List.of("Jan", "Piet", "Klaas", "Kees", "Henk", "Gerrit",
+			"Willem", "Hendrik", "Johannes", "Cornelis", "Pieter", "Dirk", "Harm", "Bram", "Daan", "Sem", "Lucas", "Finn",
+			"Levi", "Milan", "Emma", "Julia", "Mila", "Tess", "Sophie", "Zoë", "Sara", "Nora", "Yara", "Eva", "Anna",
+			"Lotte", "Noor", "Fleur", "Saar", "Lieke", "Femke", "Anouk", "Maria", "Johanna");
+
+	private static final List<String> LAST_NAMES = List.of("de Jong", "Jansen", "de Vries", "van den Berg", "van Dijk",
+			"Bakker", "Janssen", "Visser", "Smit", "Meijer", "de Boer", "Mulder", "de Groot", "Bos", "Vos", "Peters",
+			"Hendriks", "van Leeuwen", "Dekker", "Brouwer", "de Wit", "Dijkstra", "Smits", "de Graaf", "van der Meer",
+			"van der Linden", "Kok", "Jacobs", "de Haan", "Vermeulen", "van den Heuvel", "van der Veen", "van den Broek",
+			"de Bruijn", "de Bruin", "van der Heijden", "Schouten", "van Beek", "Willems", "van Vliet", "van de Ven",
+			"Hoekstra", "Maas", "Verhoeven", "Koster", "van Dam", "van der Wal", "Prins", "Blom", "Huisman");
+
+	/**
+	 * Combines every first name with every last name and a number into unique full names, so names are shared by many
+	 * people like in a real population.
+	 */
+	private static final String SEED_PEOPLE = "INSERT INTO person (id, first_name, last_name, date_of_birth, street, " +
+			"house_number, house_number_additions, postal_code, city, country) " +
+			"SELECT gen_random_uuid(), ($1::varchar[])[1 + i % cardinality($1::varchar[])], " +
+			"($2::varchar[])[1 + (i / cardinality($1::varchar[])) % cardinality($2::varchar[])] || ' ' || " +
+			"i / (cardinality($1::varchar[]) * cardinality($2::varchar[])), " +
+			"'1989-08-14', 'Soendastraat', 25, null, '9715NH', 'Groningen', 'Netherlands' " +
+			"FROM generate_series(0, $3 - 1) i";
+
+	@Param("5000000")
+	private int people;
+
+	@Param({"jan", "piet van der wal 1", "hendrik jnasen 42"})
+	private String query;
+
+	private BenchmarkDatabase database;
+
+	private PersonService personService;
+
+	@Setup
+	public void setUp() {
+		database = new BenchmarkDatabase();
+		database.getTemplate().getDatabaseClient()
+				.sql(SEED_PEOPLE)
+				.bind(0, FIRST_NAMES.toArray(String[]::new))
+				.bind(1, LAST_NAMES.toArray(String[]::new))
+				.bind(2, people)
+				.then()
+				.block();
+		database.execute("ANALYZE person");
+		PersonRepository personRepository = database.getRepository(PersonRepository.class,
+				new PersonRepositoryCustomImpl(database.getTemplate(), 256));
+		personService = new PersonService(new EntityMapperImpl(), personRepository,
+				Validation.buildDefaultValidatorFactory().getValidator(), ReactiveCache.disabled(),
+				new BatchLoader<>(personRepository::findResponsesByIdIn, PersonResponse::id, Duration.ofMillis(2), 100),
+				new SimpleMeterRegistry());
+	}
+
+	@TearDown
+	public void tearDown() {
+		database.close();
+	}
+
+	@Benchmark
+	public List<PersonResponse> searchPeople() {
+		return personService.searchPeople(query, 10)
+				.collectList()
+				.block();
+	}
+}
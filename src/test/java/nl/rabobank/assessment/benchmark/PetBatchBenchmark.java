@@ -0,0 +1,101 @@
+package nl.rabobank.assessment.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nl.rabobank.assessment.cache.BatchLoader;
+import nl.rabobank.assessment.cache.ReactiveCache;
+import nl.rabobank.assessment.mapper.EntityMapperImpl;
+import nl.rabobank.assessment.persistence.repository.PersonRepository;
+import nl.rabobank.assessment.persistence.repository.PersonRepositoryCustomImpl;
+import nl.rabobank.assessment.persistence.repository.PetRepository;
+import nl.rabobank.assessment.persistence.repository.PetRepositoryCustomImpl;
+import nl.rabobank.assessment.service.PetService;
+import nl.rabobank.assessment.ui.rest.model.request.PetRequest;
+import nl.rabobank.assessment.ui.rest.model.response.PetResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+
+import javax.validation.Validation;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-pet cost of registering pets one request at a time (owner check and insert per pet) versus the batch endpoint
+ * (one owner check and one insert per chunk). Needs Docker for the Postgres container.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PetBatchBenchmark {
+
+	private static final int PETS = 5_000;
+
+	private static final int OWNERS = 100;
+
+	private final List<UUID> owners = Flux.range(0, OWNERS).map(i -> UUID.randomUUID()).collectList().block();
+
+	private BenchmarkDatabase database;
+
+	private PetService petService;
+
+	@Setup
+	public void setUp() {
+		database = new BenchmarkDatabase();
+		PersonRepository personRepository = database.getRepository(PersonRepository.class,
+				new PersonRepositoryCustomImpl(database.getTemplate(), 256));
+		PetRepository petRepository = database.getRepository(PetRepository.class,
+				new PetRepositoryCustomImpl(database.getTemplate(), 256));
+		petService = new PetService(new EntityMapperImpl(), personRepository, petRepository,
+				Validation.buildDefaultValidatorFactory().getValidator(), ReactiveCache.disabled(),
+				new BatchLoader<>(petRepository::findResponsesByIdIn, PetResponse::id, Duration.ofMillis(2), 100),
+				new SimpleMeterRegistry());
+		owners.forEach(owner -> database.execute(String.format("INSERT INTO person VALUES ('%s', 'Owner', '%s', " +
+				"'1989-08-14', 'Soendastraat', 25, null, '9715NH', 'Groningen', 'Netherlands')", owner, owner)));
+	}
+
+	@Setup(Level.Iteration)
+	public void truncate() {
+		database.execute("TRUNCATE TABLE pet");
+	}
+
+	@TearDown
+	public void tearDown() {
+		database.close();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(PETS)
+	public Object createPet() {
+		return pets()
+				.concatMap(petService::createPet)
+				.blockLast();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(PETS)
+	public Object createPets() {
+		return petService.createPets(pets())
+				.blockLast();
+	}
+
+	private Flux<PetRequest> pets() {
+		return Flux.range(0, PETS)
+				.map(i -> new PetRequest("Pet " + i, i % 20, owners.get(i % OWNERS)));
+	}
+}
@@ -0,0 +1,139 @@
+package nl.rabobank.assessment.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nl.rabobank.assessment.cache.BatchLoader;
+import nl.rabobank.assessment.cache.ReactiveCache;
+import nl.rabobank.assessment.mapper.EntityMapper;
+import nl.rabobank.assessment.mapper.EntityMapperImpl;
+import nl.rabobank.assessment.persistence.entity.Pet;
+import nl.rabobank.assessment.persistence.repository.PersonRepository;
+import nl.rabobank.assessment.persistence.repository.PersonRepositoryCustomImpl;
+import nl.rabobank.assessment.persistence.repository.PetRepository;
+import nl.rabobank.assessment.persistence.repository.PetRepositoryCustomImpl;
+import nl.rabobank.assessment.service.PetService;
+import nl.rabobank.assessment.ui.rest.model.request.PetRequest;
+import nl.rabobank.assessment.ui.rest.model.response.PetResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+
+import javax.validation.Validation;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of creating and deleting a single pet with a check query before the write (how the service used to do it)
+ * versus the single statements the service uses now. Needs Docker for the Postgres container.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PetWriteBenchmark {
+
+	private static final int PETS = 1_000;
+
+	private final UUID owner = UUID.randomUUID();
+
+	private final EntityMapper entityMapper = new EntityMapperImpl();
+
+	private BenchmarkDatabase database;
+
+	private PersonRepository personRepository;
+
+	private PetRepository petRepository;
+
+	private PetService petService;
+
+	private List<UUID> stored;
+
+	@Setup
+	public void setUp() {
+		database = new BenchmarkDatabase();
+		personRepository = database.getRepository(PersonRepository.class,
+				new PersonRepositoryCustomImpl(database.getTemplate(), 256));
+		petRepository = database.getRepository(PetRepository.class,
+				new PetRepositoryCustomImpl(database.getTemplate(), 256));
+		petService = new PetService(entityMapper, personRepository, petRepository,
+				Validation.buildDefaultValidatorFactory().getValidator(), ReactiveCache.disabled(),
+				new BatchLoader<>(petRepository::findResponsesByIdIn, PetResponse::id, Duration.ofMillis(2), 100),
+				new SimpleMeterRegistry());
+		database.execute(String.format("INSERT INTO person VALUES ('%s', 'Owner', 'Benchmark', '1989-08-14', " +
+				"'Soendastraat', 25, null, '9715NH', 'Groningen', 'Netherlands')", owner));
+	}
+
+	/**
+	 * Replaces the pets with {@value #PETS} new ones for the delete benchmarks to delete.
+	 */
+	@Setup(Level.Invocation)
+	public void storePets() {
+		database.execute("TRUNCATE TABLE pet");
+		List<Pet> pets = pets()
+				.map(entityMapper::toPet)
+				.collectList()
+				.block();
+		petRepository.insertAll(pets).block();
+		stored = pets.stream().map(Pet::getId).toList();
+	}
+
+	@TearDown
+	public void tearDown() {
+		database.close();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(PETS)
+	public Object createPetWithOwnerCheck() {
+		return pets()
+				.concatMap(petRequest -> personRepository.existsById(petRequest.personId())
+						.filter(Boolean::booleanValue)
+						.flatMap(exists -> petRepository.save(entityMapper.toPet(petRequest))))
+				.blockLast();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(PETS)
+	public Object createPet() {
+		return pets()
+				.concatMap(petService::createPet)
+				.blockLast();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(PETS)
+	public Object deletePetWithExistsCheck() {
+		return Flux.fromIterable(stored)
+				.concatMap(id -> petRepository.existsById(id)
+						.filter(Boolean::booleanValue)
+						.flatMap(exists -> petRepository.deleteById(id).thenReturn(id)))
+				.blockLast();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(PETS)
+	public Object deletePetById() {
+		return Flux.fromIterable(stored)
+				.concatMap(petService::deletePetById)
+				.blockLast();
+	}
+
+	private Flux<PetRequest> pets() {
+		return Flux.range(0, PETS)
+				.map(i -> new PetRequest("Pet " + i, i % 20, owner));
+	}
+}
@@ -0,0 +1,177 @@
+package nl.rabobank.assessment.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import nl.rabobank.assessment.mapper.EntityMapper;
+import nl.rabobank.assessment.mapper.EntityMapperImpl;
+import nl.rabobank.assessment.persistence.entity.Person;
+import nl.rabobank.assessment.persistence.entity.Pet;
+import nl.rabobank.assessment.ui.config.ExceptionBody;
+import nl.rabobank.assessment.ui.config.ExceptionHandlers;
+import nl.rabobank.assessment.ui.rest.PersonController;
+import nl.rabobank.assessment.ui.rest.model.request.PersonRequest;
+import nl.rabobank.assessment.ui.rest.model.request.PetRequest;
+import nl.rabobank.assessment.ui.rest.model.request.UpdateAddressRequest;
+import nl.rabobank.assessment.ui.rest.model.response.PersonResponse;
+import nl.rabobank.assessment.ui.rest.model.response.PetResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * The CPU-only work of a request: mapping, validation, JSON serialization of a full page and building an error body.
+ * Run with the gc profiler (the default of the benchmark profile) to see the bytes allocated per operation next to the
+ * throughput. Doesn't need Docker.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestHotPathBenchmark {
+
+	private static final int PAGE_SIZE = 100;
+
+	private final EntityMapper entityMapper = new EntityMapperImpl();
+
+	private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+	private final ExceptionHandlers exceptionHandlers = new ExceptionHandlers();
+
+	private ObjectMapper objectMapper;
+
+	private PersonRequest personRequest;
+
+	private PersonRequest invalidPersonRequest;
+
+	private PetRequest petRequest;
+
+	private UpdateAddressRequest updateAddressRequest;
+
+	private Person person;
+
+	private List<PersonResponse> personResponses;
+
+	private List<PetResponse> petResponses;
+
+	private ServerWebExchange exchange;
+
+	private ResponseStatusException notFound;
+
+	private WebExchangeBindException bindException;
+
+	@Setup
+	public void setUp() throws NoSuchMethodException {
+		// The same configuration Spring Boot applies to the ObjectMapper used by the codecs
+		objectMapper = Jackson2ObjectMapperBuilder.json()
+				.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+				.build();
+
+		personRequest = new PersonRequest("Harm", "van der Wal", LocalDate.of(1990, 1, 1), "Croeselaan", 18, "A",
+				"3521 CB", "Utrecht", "Nederland");
+		invalidPersonRequest = new PersonRequest("Harm", "van der Wal", LocalDate.of(1990, 1, 1), "Croeselaan", 18,
+				"A", "3521", "Utrecht", "Nederland");
+		petRequest = new PetRequest("Hond", 12, UUID.randomUUID());
+		updateAddressRequest = new UpdateAddressRequest("Catharijnesingel", 20, null, "3511 GB", "Utrecht",
+				"Nederland");
+
+		person = entityMapper.toPerson(personRequest);
+		person.isNew();
+		personResponses = IntStream.range(0, PAGE_SIZE)
+				.mapToObj(i -> new PersonResponse(UUID.randomUUID(), "First " + i, "Last " + i,
+						LocalDate.of(1990, 1, 1).plusDays(i), "Croeselaan", i + 1, null, "3521 CB", "Utrecht",
+						"Nederland"))
+				.toList();
+		petResponses = IntStream.range(0, PAGE_SIZE)
+				.mapToObj(i -> new PetResponse(UUID.randomUUID(), "Pet " + i, i % 20, UUID.randomUUID()))
+				.toList();
+
+		exchange = MockServerWebExchange.from(MockServerHttpRequest.post(PersonController.BASE_URL));
+		notFound = new ResponseStatusException(HttpStatus.NOT_FOUND,
+				String.format("No person found with id %s", person.getId()));
+		BeanPropertyBindingResult bindingResult = new BeanPropertyBindingResult(invalidPersonRequest, "personRequest");
+		bindingResult.addError(new FieldError("personRequest", "postalCode", invalidPersonRequest.postalCode(), false,
+				null, null, "must match \"(?i)^\\d{4}\\s?[A-Z]{2}$\""));
+		bindException = new WebExchangeBindException(new MethodParameter(PersonController.class
+				.getMethod("createPerson", PersonRequest.class), 0), bindingResult);
+	}
+
+	@Benchmark
+	public Person toPerson() {
+		return entityMapper.toPerson(personRequest);
+	}
+
+	@Benchmark
+	public PersonResponse toPersonResponse() {
+		return entityMapper.toPersonResponse(person);
+	}
+
+	@Benchmark
+	public Pet toPet() {
+		return entityMapper.toPet(petRequest);
+	}
+
+	@Benchmark
+	public Person updatePersonAddress() {
+		return entityMapper.updatePersonAddress(person, updateAddressRequest);
+	}
+
+	@Benchmark
+	public byte[] serializePersonResponses() throws Exception {
+		return objectMapper.writeValueAsBytes(personResponses);
+	}
+
+	@Benchmark
+	public byte[] serializePetResponses() throws Exception {
+		return objectMapper.writeValueAsBytes(petResponses);
+	}
+
+	@Benchmark
+	public Set<ConstraintViolation<PersonRequest>> validatePersonRequest() {
+		return validator.validate(personRequest);
+	}
+
+	@Benchmark
+	public Set<ConstraintViolation<PersonRequest>> validateInvalidPersonRequest() {
+		return validator.validate(invalidPersonRequest);
+	}
+
+	@Benchmark
+	public ResponseEntity<ExceptionBody> handleResponseStatusException() {
+		return exceptionHandlers.handle(exchange, notFound);
+	}
+
+	@Benchmark
+	public ExceptionBody handleBindException() {
+		return exceptionHandlers.handle(exchange, bindException);
+	}
+}
@@ -0,0 +1,98 @@
+package nl.rabobank.assessment.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.netty.buffer.PooledByteBufAllocator;
+import nl.rabobank.assessment.ui.config.ResponseEncoder;
+import nl.rabobank.assessment.ui.rest.model.response.PersonResponse;
+import nl.rabobank.assessment.ui.rest.model.response.PetResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Encoder;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Encoding a stream of people into pooled Netty buffers, with the Jackson encoder of Spring or the
+ * {@link ResponseEncoder}, as JSON array or newline delimited JSON. Sample time mode reports the percentiles (p99) of
+ * encoding a whole response; the gc profiler (the default of the benchmark profile) the bytes allocated for it.
+ * Doesn't need Docker.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ResponseEncoderBenchmark {
+
+	private static final ResolvableType PERSON_TYPE = ResolvableType.forClass(PersonResponse.class);
+
+	@Param("100000")
+	private int people;
+
+	@Param({"jackson", "response"})
+	private String encoder;
+
+	@Param({"application/json", "application/x-ndjson"})
+	private String mediaType;
+
+	private final DataBufferFactory bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+
+	private Encoder<Object> selectedEncoder;
+
+	private MediaType selectedMediaType;
+
+	private List<PersonResponse> responses;
+
+	@Setup
+	public void setUp() {
+		ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+				.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+				.build();
+		selectedEncoder = encoder.equals("jackson") ? new Jackson2JsonEncoder(objectMapper) :
+				new ResponseEncoder(objectMapper, 8192, 256, PersonResponse.class, PetResponse.class);
+		selectedMediaType = MediaType.parseMediaType(mediaType);
+		responses = IntStream.range(0, people)
+				.mapToObj(i -> new PersonResponse(UUID.randomUUID(), "First " + i, "Last " + i,
+						LocalDate.of(1989, 8, 14), "Soendastraat", 25, null, "9715NH", "Groningen", "Netherlands"))
+				.toList();
+	}
+
+	/**
+	 * @return The number of bytes written; the buffers are released as they are written, like Netty does.
+	 */
+	@Benchmark
+	public long encode() {
+		return selectedEncoder.encode(Flux.fromIterable(responses), bufferFactory, PERSON_TYPE, selectedMediaType,
+						null)
+				.map(buffer -> {
+					long size = buffer.readableByteCount();
+					DataBufferUtils.release(buffer);
+					return size;
+				})
+				.reduce(0L, Long::sum)
+				.block();
+	}
+}
@@ -0,0 +1,168 @@
+package nl.rabobank.assessment.benchmark;
+
+import io.r2dbc.spi.ColumnMetadata;
+import io.r2dbc.spi.R2dbcType;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import io.r2dbc.spi.Type;
+import nl.rabobank.assessment.mapper.EntityMapper;
+import nl.rabobank.assessment.mapper.EntityMapperImpl;
+import nl.rabobank.assessment.persistence.entity.Person;
+import nl.rabobank.assessment.persistence.entity.Pet;
+import nl.rabobank.assessment.persistence.repository.ResponseProjections;
+import nl.rabobank.assessment.ui.rest.model.response.PersonResponse;
+import nl.rabobank.assessment.ui.rest.model.response.PetResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.r2dbc.convert.MappingR2dbcConverter;
+import org.springframework.data.r2dbc.convert.R2dbcConverter;
+import org.springframework.data.r2dbc.convert.R2dbcCustomConversions;
+import org.springframework.data.r2dbc.dialect.PostgresDialect;
+import org.springframework.data.r2dbc.mapping.R2dbcMappingContext;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading a single row into a response: through the entity converter and the {@link EntityMapper}, as the reads by
+ * entity do, or straight from the columns with {@link ResponseProjections}. An operation is one row, so with the gc
+ * profiler (the default of the benchmark profile) {@code gc.alloc.rate.norm} is the number of bytes allocated per row.
+ * The rows are held in memory, so decoding the columns (the same for both) is left out. Doesn't need Docker.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowMappingBenchmark {
+
+	private final EntityMapper entityMapper = new EntityMapperImpl();
+
+	private R2dbcConverter converter;
+
+	private Row personRow;
+
+	private Row petRow;
+
+	@Setup
+	public void setUp() {
+		R2dbcCustomConversions conversions = R2dbcCustomConversions.of(PostgresDialect.INSTANCE);
+		R2dbcMappingContext mappingContext = new R2dbcMappingContext();
+		mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+		converter = new MappingR2dbcConverter(mappingContext, conversions);
+		personRow = new InMemoryRow(ResponseProjections.PERSON_COLUMNS, UUID.randomUUID(), "Harm", "van der Wal",
+				LocalDate.of(1989, 8, 14), "Soendastraat", 25, null, "9715NH", "Groningen", "Netherlands");
+		petRow = new InMemoryRow(ResponseProjections.PET_COLUMNS, UUID.randomUUID(), "Lester", 12, UUID.randomUUID());
+	}
+
+	@Benchmark
+	public PersonResponse personThroughEntity() {
+		return entityMapper.toPersonResponse(converter.read(Person.class, personRow, personRow.getMetadata()));
+	}
+
+	@Benchmark
+	public PersonResponse personProjection() {
+		return ResponseProjections.toPersonResponse(personRow);
+	}
+
+	@Benchmark
+	public PetResponse petThroughEntity() {
+		return entityMapper.toPetResponse(converter.read(Pet.class, petRow, petRow.getMetadata()));
+	}
+
+	@Benchmark
+	public PetResponse petProjection() {
+		return ResponseProjections.toPetResponse(petRow);
+	}
+
+	/**
+	 * A row of decoded values, which finds a column by name the way the Postgres driver does: by comparing the names of
+	 * all columns in order.
+	 */
+	private static class InMemoryRow implements Row, RowMetadata {
+
+		private final List<Column> columns;
+
+		private final Object[] values;
+
+		InMemoryRow(String columnNames, Object... values) {
+			this.columns = Arrays.stream(columnNames.split(",\\s*")).map(Column::new).toList();
+			this.values = values;
+		}
+
+		@Override
+		public <T> T get(int index, Class<T> type) {
+			return type.cast(values[index]);
+		}
+
+		@Override
+		public <T> T get(String name, Class<T> type) {
+			return get(indexOf(name), type);
+		}
+
+		@Override
+		public RowMetadata getMetadata() {
+			return this;
+		}
+
+		@Override
+		public ColumnMetadata getColumnMetadata(int index) {
+			return columns.get(index);
+		}
+
+		@Override
+		public ColumnMetadata getColumnMetadata(String name) {
+			return columns.get(indexOf(name));
+		}
+
+		@Override
+		public List<? extends ColumnMetadata> getColumnMetadatas() {
+			return columns;
+		}
+
+		@Override
+		@SuppressWarnings("deprecation")
+		public List<String> getColumnNames() {
+			return columns.stream().map(Column::getName).toList();
+		}
+
+		@Override
+		public boolean contains(String name) {
+			return indexOf(name) >= 0;
+		}
+
+		private int indexOf(String name) {
+			for (int i = 0; i < columns.size(); i++) {
+				if (columns.get(i).getName().equalsIgnoreCase(name)) {
+					return i;
+				}
+			}
+			return -1;
+		}
+	}
+
+	private record Column(String name) implements ColumnMetadata {
+
+		@Override
+		public String getName() {
+			return name;
+		}
+
+		@Override
+		public Type getType() {
+			return R2dbcType.VARCHAR;
+		}
+	}
+}
@@ -0,0 +1,134 @@
+package nl.rabobank.assessment.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.netty.buffer.PooledByteBufAllocator;
+import nl.rabobank.assessment.ui.config.ResponseEncoder;
+import nl.rabobank.assessment.ui.rest.BinaryMediaTypes;
+import nl.rabobank.assessment.ui.rest.model.response.PersonResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A page of people as JSON, CBOR or Smile: encoding it with the {@link ResponseEncoder}, decoding it like a client
+ * does and compressing it with gzip, as the server does for a large response. The size of the payload, without and
+ * with gzip, is printed at the setup. Doesn't need Docker.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class SerializationFormatBenchmark {
+
+	private static final ResolvableType PERSON_LIST_TYPE = ResolvableType.forClassWithGenerics(List.class,
+			PersonResponse.class);
+
+	@Param("1000")
+	private int people;
+
+	@Param({"json", "cbor", "smile"})
+	private String format;
+
+	private final DataBufferFactory bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+
+	private ResponseEncoder encoder;
+
+	private MediaType mediaType;
+
+	private ObjectReader reader;
+
+	private List<PersonResponse> responses;
+
+	private byte[] payload;
+
+	@Setup
+	public void setUp() throws IOException {
+		JsonFactory factory = switch (format) {
+			case "cbor" -> new CBORFactory();
+			case "smile" -> new SmileFactory();
+			default -> new JsonFactory();
+		};
+		ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+				.factory(factory)
+				.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+				.build();
+		mediaType = switch (format) {
+			case "cbor" -> MediaType.APPLICATION_CBOR;
+			case "smile" -> BinaryMediaTypes.APPLICATION_SMILE;
+			default -> MediaType.APPLICATION_JSON;
+		};
+		MediaType sequenceMediaType = switch (format) {
+			case "cbor" -> BinaryMediaTypes.APPLICATION_CBOR_SEQ;
+			case "smile" -> BinaryMediaTypes.APPLICATION_STREAM_SMILE;
+			default -> MediaType.APPLICATION_NDJSON;
+		};
+		encoder = new ResponseEncoder(objectMapper, mediaType, sequenceMediaType, 8192, 256, PersonResponse.class);
+		reader = objectMapper.readerFor(PersonResponse[].class);
+		responses = IntStream.range(0, people)
+				.mapToObj(i -> new PersonResponse(UUID.randomUUID(), "First " + i, "Last " + i,
+						LocalDate.of(1989, 8, 14), "Soendastraat", 25, null, "9715NH", "Groningen", "Netherlands"))
+				.toList();
+		payload = objectMapper.writeValueAsBytes(responses);
+		System.out.printf("%n%s: %d bytes, %d bytes with gzip%n", format, payload.length, gzip().length);
+	}
+
+	/**
+	 * @return The number of bytes written; the buffer is released as it is written, like Netty does.
+	 */
+	@Benchmark
+	public long encode() {
+		return encoder.encode(Mono.just(responses), bufferFactory, PERSON_LIST_TYPE, mediaType, null)
+				.map(buffer -> {
+					long size = buffer.readableByteCount();
+					DataBufferUtils.release(buffer);
+					return size;
+				})
+				.reduce(0L, Long::sum)
+				.block();
+	}
+
+	@Benchmark
+	public PersonResponse[] decode() throws IOException {
+		return reader.readValue(payload);
+	}
+
+	@Benchmark
+	public byte[] gzip() throws IOException {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream(payload.length / 4);
+		try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+			out.write(payload);
+		}
+		return compressed.toByteArray();
+	}
+}
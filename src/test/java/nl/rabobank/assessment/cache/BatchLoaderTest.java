@@ -0,0 +1,139 @@
+package nl.rabobank.assessment.cache;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BatchLoaderTest {
+
+	private static final Duration WINDOW = Duration.ofMillis(2);
+
+	private static final Map<Integer, String> VALUES = Map.of(1, "1", 2, "2", 3, "3");
+
+	private final VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+
+	/**
+	 * The keys of the batches that were loaded, like queries that were executed.
+	 */
+	private final List<Collection<Integer>> batches = new ArrayList<>();
+
+	private final BatchLoader<Integer, String> batchLoader = new BatchLoader<>(this::load, Integer::valueOf, WINDOW, 3,
+			scheduler);
+
+	@Test
+	void testLoad_LookupsWithinTheWindowShareOneQuery() {
+		// Given
+		CompletableFuture<String> first = batchLoader.load(1).toFuture();
+		CompletableFuture<String> second = batchLoader.load(2).toFuture();
+
+		// When
+		scheduler.advanceTimeBy(WINDOW);
+
+		// Then
+		assertThat(first).isCompletedWithValue("1");
+		assertThat(second).isCompletedWithValue("2");
+		assertThat(batches).containsExactly(List.of(1, 2));
+	}
+
+	@Test
+	void testLoad_NoQueryBeforeTheWindowPassed() {
+		// When
+		CompletableFuture<String> value = batchLoader.load(1).toFuture();
+		scheduler.advanceTimeBy(WINDOW.minusNanos(1));
+
+		// Then
+		assertThat(value).isNotDone();
+		assertThat(batches).isEmpty();
+	}
+
+	@Test
+	void testLoad_FullBatchIsLoadedAtOnce() {
+		// When
+		CompletableFuture<String> first = batchLoader.load(1).toFuture();
+		batchLoader.load(2).subscribe();
+		batchLoader.load(3).subscribe();
+		CompletableFuture<String> next = batchLoader.load(1).toFuture();
+
+		// Then
+		assertThat(first).isCompletedWithValue("1");
+		assertThat(next).isNotDone();
+		scheduler.advanceTimeBy(WINDOW);
+		assertThat(next).isCompletedWithValue("1");
+		assertThat(batches).containsExactly(List.of(1, 2, 3), List.of(1));
+	}
+
+	@Test
+	void testLoad_SameKeySharesTheValue() {
+		// Given
+		CompletableFuture<String> first = batchLoader.load(1).toFuture();
+		CompletableFuture<String> second = batchLoader.load(1).toFuture();
+
+		// When
+		scheduler.advanceTimeBy(WINDOW);
+
+		// Then
+		assertThat(first).isCompletedWithValue("1");
+		assertThat(second).isCompletedWithValue("1");
+		assertThat(batches).containsExactly(List.of(1));
+	}
+
+	@Test
+	void testLoad_MissingKeyCompletesEmpty() {
+		// Given
+		CompletableFuture<String> missing = batchLoader.load(4).toFuture();
+		CompletableFuture<String> found = batchLoader.load(1).toFuture();
+
+		// When
+		scheduler.advanceTimeBy(WINDOW);
+
+		// Then
+		assertThat(missing).isCompletedWithValue(null);
+		assertThat(found).isCompletedWithValue("1");
+	}
+
+	@Test
+	void testLoad_ErrorReachesEveryLookup() {
+		// Given
+		BatchLoader<Integer, String> failing = new BatchLoader<>(
+				keys -> Flux.error(new IllegalStateException("failed")), Integer::valueOf, WINDOW, 3, scheduler);
+		CompletableFuture<String> first = failing.load(1).toFuture();
+		CompletableFuture<String> second = failing.load(2).toFuture();
+
+		// When
+		scheduler.advanceTimeBy(WINDOW);
+
+		// Then
+		assertThat(first).isCompletedExceptionally();
+		assertThat(second).isCompletedExceptionally();
+	}
+
+	@Test
+	void testLoad_CancelledLookupDoesNotCancelTheBatch() {
+		// Given
+		batchLoader.load(1).subscribe().dispose();
+		CompletableFuture<String> waiting = batchLoader.load(2).toFuture();
+
+		// When
+		scheduler.advanceTimeBy(WINDOW);
+
+		// Then
+		assertThat(waiting).isCompletedWithValue("2");
+		assertThat(batches).containsExactly(List.of(1, 2));
+	}
+
+	private Flux<String> load(Collection<Integer> keys) {
+		batches.add(keys);
+		return Flux.fromIterable(keys)
+				.filter(VALUES::containsKey)
+				.map(VALUES::get);
+	}
+}
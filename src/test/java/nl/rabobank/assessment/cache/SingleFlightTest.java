@@ -0,0 +1,137 @@
+package nl.rabobank.assessment.cache;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SingleFlightTest {
+
+	private static final String KEY = "key";
+
+	private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+	/**
+	 * The loads that were subscribed to, like queries that were executed.
+	 */
+	private final List<Sinks.One<String>> loads = new ArrayList<>();
+
+	private final AtomicInteger cancelledLoads = new AtomicInteger();
+
+	@Test
+	void testGet_ConcurrentLookupsShareOneLoad() {
+		// Given
+		CompletableFuture<List<String>> values = Flux.range(0, 100)
+				.flatMap(i -> get())
+				.collectList()
+				.toFuture();
+
+		// When
+		loads.get(0).tryEmitValue("value");
+
+		// Then
+		assertThat(values).succeedsWithin(Duration.ofSeconds(1)).asList()
+				.hasSize(100)
+				.containsOnly("value");
+		assertThat(loads).hasSize(1);
+		assertThat(singleFlight.size()).isZero();
+	}
+
+	@Test
+	void testGet_EmptyLoad() {
+		// Given
+		CompletableFuture<String> first = get().toFuture();
+		CompletableFuture<String> second = get().toFuture();
+
+		// When
+		loads.get(0).tryEmitEmpty();
+
+		// Then
+		assertThat(first).isCompletedWithValue(null);
+		assertThat(second).isCompletedWithValue(null);
+		assertThat(loads).hasSize(1);
+	}
+
+	@Test
+	void testGet_ErrorReachesEveryLookup() {
+		// Given
+		CompletableFuture<String> first = get().toFuture();
+		CompletableFuture<String> second = get().toFuture();
+
+		// When
+		loads.get(0).tryEmitError(new IllegalStateException("failed"));
+
+		// Then
+		assertThat(first).isCompletedExceptionally();
+		assertThat(second).isCompletedExceptionally();
+		assertThat(singleFlight.size()).isZero();
+		get().subscribe();
+		assertThat(loads).hasSize(2);
+	}
+
+	@Test
+	void testGet_CancelledLookupLeavesTheLoadToTheOthers() {
+		// Given
+		Disposable cancelled = get().subscribe();
+		CompletableFuture<String> waiting = get().toFuture();
+
+		// When
+		cancelled.dispose();
+		loads.get(0).tryEmitValue("value");
+
+		// Then
+		assertThat(cancelledLoads).hasValue(0);
+		assertThat(waiting).isCompletedWithValue("value");
+		assertThat(loads).hasSize(1);
+	}
+
+	@Test
+	void testGet_LoadIsCancelledWhenNoLookupWaits() {
+		// Given
+		Disposable first = get().subscribe();
+		Disposable second = get().subscribe();
+
+		// When
+		first.dispose();
+		second.dispose();
+
+		// Then
+		assertThat(cancelledLoads).hasValue(1);
+		assertThat(singleFlight.size()).isZero();
+		get().subscribe();
+		assertThat(loads).hasSize(2);
+	}
+
+	@Test
+	void testForget_NextLookupLoadsAgain() {
+		// Given
+		CompletableFuture<String> before = get().toFuture();
+
+		// When
+		singleFlight.forget(KEY);
+		CompletableFuture<String> after = get().toFuture();
+		loads.get(0).tryEmitValue("old");
+		loads.get(1).tryEmitValue("new");
+
+		// Then
+		assertThat(before).isCompletedWithValue("old");
+		assertThat(after).isCompletedWithValue("new");
+	}
+
+	private Mono<String> get() {
+		return singleFlight.get(KEY, key -> Mono.defer(() -> {
+			Sinks.One<String> load = Sinks.one();
+			loads.add(load);
+			return load.asMono().doOnCancel(cancelledLoads::incrementAndGet);
+		}));
+	}
+}
@@ -0,0 +1,86 @@
+package nl.rabobank.assessment.config;
+
+import nl.rabobank.assessment.ui.rest.PersonController;
+import nl.rabobank.assessment.ui.rest.PetController;
+import nl.rabobank.assessment.ui.rest.model.request.PersonRequest;
+import nl.rabobank.assessment.ui.rest.model.request.PetRequest;
+import nl.rabobank.assessment.ui.rest.model.request.UpdateAddressRequest;
+import nl.rabobank.assessment.ui.rest.model.response.PetResponse;
+import nl.rabobank.assessment.util.ResourceHelper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.net.URI;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The whole application on the in-memory repositories, so without a database.
+ */
+@SpringBootTest
+@AutoConfigureWebTestClient
+@ActiveProfiles(InMemoryRepositoryConfiguration.PROFILE)
+class InMemoryRepositoryConfigurationTest {
+
+	@Autowired
+	private WebTestClient webTestClient;
+
+	@Test
+	void testCreateAndUpdateWithoutDatabase() {
+		// Given
+		PersonRequest personRequest = ResourceHelper.getResourceAsType("json/create_person_request_success.json",
+				PersonRequest.class);
+
+		// When
+		URI location = webTestClient.post()
+				.uri(PersonController.BASE_URL)
+				.bodyValue(personRequest)
+				.exchange()
+				.expectStatus().isCreated()
+				.returnResult(Void.class)
+				.getResponseHeaders()
+				.getLocation();
+		UUID personId = UUID.fromString(location.getPath().substring(location.getPath().lastIndexOf('/') + 1));
+
+		// Then
+		webTestClient.post()
+				.uri(PersonController.BASE_URL)
+				.bodyValue(personRequest)
+				.exchange()
+				.expectStatus().isBadRequest();
+		webTestClient.post()
+				.uri(PetController.BASE_URL)
+				.bodyValue(new PetRequest("Hond", 12, personId))
+				.exchange()
+				.expectStatus().isCreated();
+		webTestClient.post()
+				.uri(PetController.BASE_URL)
+				.bodyValue(new PetRequest("Kat", 3, UUID.randomUUID()))
+				.exchange()
+				.expectStatus().isBadRequest();
+		webTestClient.put()
+				.uri(PersonController.BASE_URL + "/{id}", personId)
+				.header(HttpHeaders.AUTHORIZATION, "Basic YWRtaW46YWRtaW4=")
+				.bodyValue(ResourceHelper.getResourceAsType("json/update_person_request_success.json",
+						UpdateAddressRequest.class))
+				.exchange()
+				.expectStatus().isOk();
+		assertThat(webTestClient.get()
+				.uri(uriBuilder -> uriBuilder.path(PetController.BASE_URL)
+						.queryParam("personId", personId)
+						.build())
+				.exchange()
+				.expectStatus().isOk()
+				.expectBodyList(PetResponse.class)
+				.returnResult()
+				.getResponseBody())
+				.extracting(PetResponse::name)
+				.containsExactly("Hond");
+	}
+}
@@ -0,0 +1,268 @@
+package nl.rabobank.assessment.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nl.rabobank.assessment.persistence.metrics.QueryStatistics;
+import nl.rabobank.assessment.persistence.metrics.QueryStatisticsEndpoint;
+import nl.rabobank.assessment.persistence.repository.UserRepository;
+import nl.rabobank.assessment.security.CredentialCache;
+import nl.rabobank.assessment.service.PersonService;
+import nl.rabobank.assessment.service.PetService;
+import nl.rabobank.assessment.ui.rest.PersonController;
+import nl.rabobank.assessment.ui.rest.PetController;
+import nl.rabobank.assessment.ui.rest.TokenController;
+import nl.rabobank.assessment.ui.rest.model.request.UpdateAddressRequest;
+import nl.rabobank.assessment.ui.rest.model.response.TokenResponse;
+import nl.rabobank.assessment.util.ResourceHelper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.endpoint.EndpointAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.endpoint.web.WebEndpointAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.web.server.ManagementContextAutoConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@WebFluxTest(controllers = {PersonController.class, PetController.class, TokenController.class},
+		properties = {
+				"assessment.security.password-hashing.pool-size=1",
+				"assessment.security.password-hashing.queue-capacity=1",
+				"assessment.security.token.generate-key=true",
+				"management.server.port="
+		})
+@ImportAutoConfiguration({EndpointAutoConfiguration.class, WebEndpointAutoConfiguration.class,
+		ManagementContextAutoConfiguration.class})
+@Import({SecurityConfiguration.class, SecurityConfigurationTest.MetricsConfiguration.class})
+class SecurityConfigurationTest {
+
+	private static final String ADMIN_BASIC_HEADER = "Basic YWRtaW46YWRtaW4=";
+
+	private static final String QUERIES_URL = "/actuator/queries";
+
+	private static final Duration MAX_UNAUTHENTICATED_LATENCY = Duration.ofMillis(500);
+
+	private final CountDownLatch hashingReleased = new CountDownLatch(1);
+
+	private final CountDownLatch hashingStarted = new CountDownLatch(1);
+
+	@MockBean
+	private PasswordEncoder passwordEncoder;
+
+	@MockBean
+	private PersonService personService;
+
+	@MockBean
+	private PetService petService;
+
+	@MockBean
+	private UserRepository userRepository;
+
+	@Autowired
+	private CredentialCache credentialCache;
+
+	@Autowired
+	private ThreadPoolExecutor passwordHashingExecutor;
+
+	@Autowired
+	private WebTestClient webTestClient;
+
+	@BeforeEach
+	void setUp() {
+		credentialCache.invalidate("admin");
+	}
+
+	@AfterEach
+	void tearDown() {
+		hashingReleased.countDown();
+	}
+
+	@Test
+	void testUnauthenticatedLatencyWhilePasswordHashingIsSaturated() throws Exception {
+		// Given
+		when(userRepository.findByUsername("admin")).thenReturn(Mono.just(User.withUsername("admin")
+				.password("{bcrypt}admin")
+				.roles("ADMIN")
+				.build()));
+		when(passwordEncoder.matches(anyString(), anyString())).thenAnswer(invocation -> {
+			hashingStarted.countDown();
+			return hashingReleased.await(10, TimeUnit.SECONDS);
+		});
+		when(personService.updatePersonAddress(any(UUID.class), any(UpdateAddressRequest.class)))
+				.thenReturn(Mono.empty());
+		when(petService.getPets(null, null, 100)).thenReturn(Flux.empty());
+		WebTestClient slowClient = webTestClient.mutate().responseTimeout(Duration.ofSeconds(15)).build();
+
+		// When
+		CompletableFuture<Void> running = CompletableFuture.runAsync(() -> updatePerson(slowClient)
+				.expectStatus().isOk());
+		assertThat(hashingStarted.await(5, TimeUnit.SECONDS)).isTrue();
+		CompletableFuture<Void> queued = CompletableFuture.runAsync(() -> updatePerson(slowClient)
+				.expectStatus().isOk());
+		awaitQueuedHashes(1);
+
+		// Then
+		updatePerson(webTestClient).expectStatus().isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+		List<Duration> latencies = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			long start = System.nanoTime();
+			webTestClient.get()
+					.uri(PetController.BASE_URL)
+					.exchange()
+					.expectStatus().isOk();
+			latencies.add(Duration.ofNanos(System.nanoTime() - start));
+		}
+		assertThat(latencies).allSatisfy(latency -> assertThat(latency).isLessThan(MAX_UNAUTHENTICATED_LATENCY));
+
+		hashingReleased.countDown();
+		CompletableFuture.allOf(running, queued).get(10, TimeUnit.SECONDS);
+	}
+
+	@Test
+	void testAccessTokenIssuedOnceAndAcceptedWithoutLookup() {
+		// Given
+		when(userRepository.findByUsername("admin")).thenReturn(Mono.just(User.withUsername("admin")
+				.password("{bcrypt}admin")
+				.roles("ADMIN")
+				.build()));
+		when(passwordEncoder.matches(anyString(), anyString())).thenReturn(true);
+		when(personService.updatePersonAddress(any(UUID.class), any(UpdateAddressRequest.class)))
+				.thenReturn(Mono.empty());
+
+		// When
+		TokenResponse token = webTestClient.post()
+				.uri(TokenController.BASE_URL)
+				.header(HttpHeaders.AUTHORIZATION, ADMIN_BASIC_HEADER)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody(TokenResponse.class)
+				.returnResult()
+				.getResponseBody();
+
+		// Then
+		assertThat(token).isNotNull();
+		assertThat(token.tokenType()).isEqualTo("Bearer");
+		for (int i = 0; i < 3; i++) {
+			updatePerson(webTestClient, "Bearer " + token.accessToken()).expectStatus().isOk();
+		}
+		updatePerson(webTestClient, "Bearer " + token.accessToken() + "x").expectStatus().isUnauthorized();
+		verify(userRepository, times(1)).findByUsername("admin");
+		verify(passwordEncoder, times(1)).matches(anyString(), anyString());
+	}
+
+	@Test
+	void testAccessTokenCannotBeExchangedForAnother() {
+		webTestClient.post()
+				.uri(TokenController.BASE_URL)
+				.header(HttpHeaders.AUTHORIZATION, "Bearer some.access.token")
+				.exchange()
+				.expectStatus().isUnauthorized();
+	}
+
+	@Test
+	void testImportPeopleRequiresAuthentication() {
+		webTestClient.post()
+				.uri(PersonController.IMPORT_URL)
+				.contentType(MediaType.APPLICATION_NDJSON)
+				.bodyValue("")
+				.exchange()
+				.expectStatus().isUnauthorized();
+		verify(personService, never()).importPeople(any());
+	}
+
+	@Test
+	void testQueryStatisticsRequireAdmin() {
+		// Given
+		when(userRepository.findByUsername("admin")).thenReturn(Mono.just(User.withUsername("admin")
+				.password("{bcrypt}admin")
+				.roles("ADMIN")
+				.build()));
+		when(passwordEncoder.matches(anyString(), anyString())).thenReturn(true);
+
+		// When / Then
+		webTestClient.get()
+				.uri(QUERIES_URL)
+				.exchange()
+				.expectStatus().isUnauthorized();
+		webTestClient.delete()
+				.uri(QUERIES_URL)
+				.exchange()
+				.expectStatus().isUnauthorized();
+		webTestClient.get()
+				.uri(QUERIES_URL)
+				.header(HttpHeaders.AUTHORIZATION, ADMIN_BASIC_HEADER)
+				.exchange()
+				.expectStatus().isOk();
+		webTestClient.delete()
+				.uri(QUERIES_URL)
+				.header(HttpHeaders.AUTHORIZATION, ADMIN_BASIC_HEADER)
+				.exchange()
+				.expectStatus().isNoContent();
+	}
+
+	private WebTestClient.ResponseSpec updatePerson(WebTestClient client) {
+		return updatePerson(client, ADMIN_BASIC_HEADER);
+	}
+
+	private WebTestClient.ResponseSpec updatePerson(WebTestClient client, String authorization) {
+		return client.put()
+				.uri(uriBuilder -> uriBuilder.path(PersonController.BASE_URL)
+						.pathSegment("{id}")
+						.build(UUID.randomUUID()))
+				.header(HttpHeaders.AUTHORIZATION, authorization)
+				.bodyValue(ResourceHelper.getResourceAsType("json/update_person_request_success.json",
+						UpdateAddressRequest.class))
+				.exchange();
+	}
+
+	private void awaitQueuedHashes(int expected) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (passwordHashingExecutor.getQueue().size() < expected && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(passwordHashingExecutor.getQueue()).hasSize(expected);
+	}
+
+	@TestConfiguration
+	static class MetricsConfiguration {
+
+		@Bean
+		MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+
+		@Bean
+		QueryStatisticsEndpoint queryStatisticsEndpoint() {
+			return new QueryStatisticsEndpoint(new QueryStatistics(Duration.ofMillis(200), 10), 10);
+		}
+	}
+}
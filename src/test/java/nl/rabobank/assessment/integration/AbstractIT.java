@@ -1,5 +1,7 @@
 package nl.rabobank.assessment.integration;
 
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
 import nl.rabobank.assessment.persistence.repository.PersonRepository;
 import nl.rabobank.assessment.persistence.repository.PetRepository;
 import org.junit.jupiter.api.AfterEach;
@@ -7,10 +9,16 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.context.jdbc.Sql;
 import org.testcontainers.containers.PostgreSQLContainer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.UUID;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @AutoConfigureWebTestClient
@@ -19,14 +27,65 @@ public abstract class AbstractIT {
 	public static final PostgreSQLContainer<?> postgreSQLContainer =
 			new PostgreSQLContainer<>("postgres:14.1");
 
+	private static final Duration LOCK_WAIT_TIMEOUT = Duration.ofSeconds(10);
+
+	@Autowired
+	private ConnectionFactory connectionFactory;
+
+	@Autowired
+	private DatabaseClient lockClient;
+
 	@DynamicPropertySource
 	static void postgreSQLProperties(DynamicPropertyRegistry registry) {
 		registry.add("global.datasource.url", () -> postgreSQLContainer.getJdbcUrl().substring(5));
 		registry.add("global.datasource.password", postgreSQLContainer::getPassword);
 		registry.add("global.datasource.username", postgreSQLContainer::getUsername);
+		registry.add("assessment.security.token.generate-key", () -> true);
 	}
 
 	static {
 		postgreSQLContainer.start();
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Locks a row in a transaction of its own, so statements that write the row wait until it is
+	 * {@linkplain #release(Connection) released}.
+	 */
+	protected Connection lockRow(String table, UUID id) {
+		Connection connection = Mono.from(connectionFactory.create()).block();
+		Mono.from(connection.beginTransaction())
+				.thenMany(Flux.from(connection.createStatement("SELECT id FROM " + table + " WHERE id = $1 FOR UPDATE")
+								.bind("$1", id)
+								.execute())
+						.flatMap(result -> result.map((row, metadata) -> row)))
+				.then()
+				.block();
+		return connection;
+	}
+
+	protected void release(Connection connection) {
+		Mono.from(connection.commitTransaction())
+				.then(Mono.from(connection.close()))
+				.block();
+	}
+
+	/**
+	 * Waits until the given number of statements wait for a lock, like one held with {@link #lockRow}.
+	 */
+	protected void awaitLockWaiters(long count) throws InterruptedException {
+		long deadline = System.nanoTime() + LOCK_WAIT_TIMEOUT.toNanos();
+		while (lockWaiters() < count) {
+			if (System.nanoTime() > deadline) {
+				throw new IllegalStateException("Timed out waiting for " + count + " statements to wait for a lock");
+			}
+			Thread.sleep(10);
+		}
+	}
+
+	private long lockWaiters() {
+		return lockClient.sql("SELECT count(*) FROM pg_stat_activity WHERE wait_event_type = 'Lock'")
+				.map(row -> row.get(0, Long.class))
+				.one()
+				.block();
+	}
+}
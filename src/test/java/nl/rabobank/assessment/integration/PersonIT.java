@@ -1,5 +1,7 @@
 package nl.rabobank.assessment.integration;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.spi.Connection;
 import nl.rabobank.assessment.mapper.EntityMapper;
 import nl.rabobank.assessment.persistence.entity.Pet;
 import nl.rabobank.assessment.ui.rest.model.request.PersonRequest;
@@ -9,27 +11,38 @@ import nl.rabobank.assessment.persistence.repository.PersonRepository;
 import nl.rabobank.assessment.persistence.repository.PetRepository;
 import nl.rabobank.assessment.service.PersonService;
 import nl.rabobank.assessment.ui.rest.PersonController;
+import nl.rabobank.assessment.ui.rest.TokenController;
+import nl.rabobank.assessment.ui.rest.model.response.ImportResultResponse;
 import nl.rabobank.assessment.ui.rest.model.response.PersonResponse;
+import nl.rabobank.assessment.ui.rest.model.response.TokenResponse;
 import nl.rabobank.assessment.util.ResourceHelper;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.stubbing.Answer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.SpyBean;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -56,6 +69,9 @@ class PersonIT extends AbstractIT {
 	@Autowired
 	private WebTestClient webTestClient;
 
+	@Autowired
+	private MeterRegistry meterRegistry;
+
 	@AfterEach
 	void tearDown() {
 		petRepository.deleteAll()
@@ -85,12 +101,36 @@ class PersonIT extends AbstractIT {
 
 		// Then
 		verify(personService).createPerson(personRequest);
-		verify(personRepository, times(2)).existsByFirstNameAndLastName(anyString(), anyString());
+		verify(personRepository).insertIfAbsent(any(Person.class));
+		verify(personRepository, never()).save(any(Person.class));
 		verify(entityMapper).toPerson(any(PersonRequest.class));
-		verify(personRepository).save(any(Person.class));
+		verify(entityMapper).toPersonResponse(any(Person.class));
 		verifyNoMoreInteractions(personService, entityMapper);
 	}
 
+	@Test
+	@Sql("/sql/insert_person.sql")
+	@DirtiesContext
+	void testCreatePerson_Duplicate() {
+		// Given
+		PersonRequest personRequest = ResourceHelper
+				.getResourceAsType("json/create_person_request_success.json", PersonRequest.class);
+
+		// When
+		webTestClient.post()
+				.uri(uriBuilder -> uriBuilder.path(PersonController.BASE_URL).build())
+				.bodyValue(personRequest)
+				.exchange()
+
+				// Then
+				.expectStatus().isBadRequest();
+		verify(personRepository).insertIfAbsent(any(Person.class));
+		personRepository.count()
+				.as(StepVerifier::create)
+				.expectNext(1L)
+				.verifyComplete();
+	}
+
 	@Test
 	@Sql("/sql/insert_person.sql")
 	@DirtiesContext
@@ -111,14 +151,40 @@ class PersonIT extends AbstractIT {
 				.as(StepVerifier::create)
 				.assertNext(actual -> {
 					assertEquals(expected, actual);
-					verify(personService).getAllPeople();
-					verify(personRepository).findAll();
+					verify(personService).getPeople(null, 100);
+					verify(personRepository).findPage(100);
 					verify(entityMapper).toPersonResponse(any(Person.class));
 					verifyNoMoreInteractions(personService, entityMapper);
 				})
 				.verifyComplete();
 	}
 
+	@Test
+	@Sql("/sql/insert_person.sql")
+	@DirtiesContext
+	void testStreamAllPeople() {
+		// Given
+		PersonResponse expected = ResourceHelper.getResourceAsType("json/get_person_response_success.json",
+				PersonResponse.class);
+
+		// When
+		webTestClient.get()
+				.uri(PersonController.BASE_URL)
+				.accept(MediaType.APPLICATION_NDJSON)
+				.exchange()
+
+				// Then
+				.expectStatus().isOk()
+				.expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+				.returnResult(PersonResponse.class)
+				.getResponseBody()
+				.as(StepVerifier::create)
+				.assertNext(actual -> assertEquals(expected, actual))
+				.verifyComplete();
+		verify(personService).getAllPeople();
+		verify(personRepository).streamAllResponses();
+	}
+
 	@Test
 	@Sql("/sql/insert_person.sql")
 	@DirtiesContext
@@ -184,6 +250,29 @@ class PersonIT extends AbstractIT {
 				.verifyComplete();
 	}
 
+	@ParameterizedTest
+	@ValueSource(strings = {"HARM V", "van der wall"})
+	@Sql("/sql/insert_person.sql")
+	@DirtiesContext
+	void testSearchPeople(String query) {
+		// Given
+		PersonResponse expected = ResourceHelper.getResourceAsType("json/get_person_response_success.json",
+				PersonResponse.class);
+
+		// When
+		webTestClient.get()
+				.uri(uriBuilder -> uriBuilder.path(PersonController.BASE_URL)
+						.pathSegment("search")
+						.queryParam("q", query)
+						.build())
+				.exchange()
+
+				// Then
+				.expectStatus().isOk()
+				.expectBodyList(PersonResponse.class).contains(expected).hasSize(1);
+		verify(personService).searchPeople(query, 10);
+	}
+
 	@Test
 	@Sql("/sql/insert_person.sql")
 	@DirtiesContext
@@ -229,12 +318,145 @@ class PersonIT extends AbstractIT {
 
 		// Then
 		verify(personService).updatePersonAddress(any(UUID.class), any(UpdateAddressRequest.class));
-		verify(personRepository).findById(personId);
-		verify(personRepository).save(any(Person.class));
+		verify(personRepository).updateAddressReturningPrevious(personId, updateAddressRequest.street(),
+				updateAddressRequest.houseNumber(), updateAddressRequest.houseNumberAdditions(),
+				updateAddressRequest.postalCode(), updateAddressRequest.city(), updateAddressRequest.country());
+		verify(personRepository, never()).findById(personId);
+		verify(personRepository, never()).save(any(Person.class));
+		verify(entityMapper).toUpdateAddressRequest(any(Person.class));
 		verify(entityMapper).updatePersonAddress(any(Person.class), eq(updateAddressRequest));
+		verify(entityMapper).toPersonResponse(any(Person.class));
 		verifyNoMoreInteractions(personService, entityMapper);
 	}
 
+	@Test
+	@Sql("/sql/insert_person.sql")
+	@DirtiesContext
+	void testUpdatePerson_AccessToken() {
+		// Given
+		UUID personId = UUID.fromString("0fa281f4-9507-40dd-9165-7d6f49631cab");
+		UpdateAddressRequest updateAddressRequest = ResourceHelper
+				.getResourceAsType("json/update_person_request_success.json", UpdateAddressRequest.class);
+		TokenResponse token = webTestClient.post()
+				.uri(TokenController.BASE_URL)
+				.headers(httpHeaders -> httpHeaders.add(HttpHeaders.AUTHORIZATION, ADMIN_BASIC_HEADER))
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody(TokenResponse.class)
+				.returnResult()
+				.getResponseBody();
+
+		// When
+		webTestClient.put()
+				.uri(uriBuilder -> uriBuilder.path(PersonController.BASE_URL)
+						.pathSegment("{id}")
+						.build(personId))
+				.headers(httpHeaders -> httpHeaders.setBearerAuth(token.accessToken()))
+				.bodyValue(updateAddressRequest)
+				.exchange()
+				.expectStatus()
+				.isOk();
+
+		// Then
+		verify(personService).updatePersonAddress(any(UUID.class), any(UpdateAddressRequest.class));
+	}
+
+	@Test
+	@Sql("/sql/insert_person.sql")
+	@DirtiesContext
+	void testUpdatePerson_Concurrent() throws InterruptedException {
+		// Given
+		UUID personId = UUID.fromString("0fa281f4-9507-40dd-9165-7d6f49631cab");
+		PersonResponse expected = ResourceHelper.getResourceAsType("json/get_person_response_success.json",
+				PersonResponse.class);
+		UpdateAddressRequest current = ResourceHelper
+				.getResourceAsType("json/update_person_request_success.json", UpdateAddressRequest.class);
+		UpdateAddressRequest moved = new UpdateAddressRequest("Catharijnesingel", 20, null, "3511GB", "Utrecht",
+				"Netherlands");
+		CompletableFuture<Void> moving = new CompletableFuture<>();
+		Answer<?> repository = mockingDetails(personRepository).getMockCreationSettings().getDefaultAnswer();
+		// The update back to the current address handles its result after the first update has cached its own
+		doAnswer(invocation -> ((Mono<?>) repository.answer(invocation))
+				.delayUntil(previous -> Mono.fromFuture(moving)))
+				.when(personRepository).updateAddressReturningPrevious(personId, current.street(),
+						current.houseNumber(), current.houseNumberAdditions(), current.postalCode(), current.city(),
+						current.country());
+		Connection personLock = lockRow("person", personId);
+
+		// When both updates wait for the person, the second one (which reads the person before the first one writes
+		// it) moving back to the current address
+		CompletableFuture.runAsync(() -> updateAddress(personId, moved))
+				.whenComplete((ignored, e) -> moving.complete(null));
+		awaitLockWaiters(1);
+		CompletableFuture<Void> movingBack = CompletableFuture.runAsync(() -> updateAddress(personId, current));
+		awaitLockWaiters(2);
+		release(personLock);
+		movingBack.join();
+
+		// Then
+		webTestClient.get()
+				.uri(uriBuilder -> uriBuilder.path(PersonController.BASE_URL)
+						.pathSegment("{id}")
+						.build(personId))
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody(PersonResponse.class)
+				.isEqualTo(expected);
+		personRepository.findById(personId)
+				.as(StepVerifier::create)
+				.assertNext(person -> assertEquals(current.street(), person.getStreet()))
+				.verifyComplete();
+		assertEquals(2, meterRegistry.counter("assessment.updates", "entity", "person", "outcome", "performed")
+				.count());
+	}
+
+	private void updateAddress(UUID personId, UpdateAddressRequest updateAddressRequest) {
+		webTestClient.put()
+				.uri(uriBuilder -> uriBuilder.path(PersonController.BASE_URL)
+						.pathSegment("{id}")
+						.build(personId))
+				.headers(httpHeaders -> httpHeaders.add(HttpHeaders.AUTHORIZATION, ADMIN_BASIC_HEADER))
+				.bodyValue(updateAddressRequest)
+				.exchange()
+				.expectStatus()
+				.isOk();
+	}
+
+	@Test
+	@Sql("/sql/insert_person.sql")
+	@DirtiesContext
+	void testImportPeople() {
+		// Given
+		PersonRequest registered = ResourceHelper.getResourceAsType("json/create_person_request_success.json",
+				PersonRequest.class);
+		PersonRequest newPerson = new PersonRequest("Jan", "Jansen", registered.dateOfBirth(), registered.street(),
+				registered.houseNumber(), "a", registered.postalCode(), registered.city(), registered.country());
+
+		// When
+		webTestClient.post()
+				.uri(PersonController.IMPORT_URL)
+				.headers(httpHeaders -> httpHeaders.add(HttpHeaders.AUTHORIZATION, ADMIN_BASIC_HEADER))
+				.contentType(MediaType.APPLICATION_NDJSON)
+				.accept(MediaType.APPLICATION_NDJSON)
+				.body(Flux.just(newPerson, registered), PersonRequest.class)
+				.exchange()
+
+				// Then
+				.expectStatus().isOk()
+				.returnResult(ImportResultResponse.class)
+				.getResponseBody()
+				.as(StepVerifier::create)
+				.assertNext(actual -> {
+					assertEquals(ImportResultResponse.Status.CREATED, actual.status());
+					personRepository.findById(actual.id())
+							.as(StepVerifier::create)
+							.assertNext(person -> assertEquals("a", person.getHouseNumberAdditions()))
+							.verifyComplete();
+				})
+				.assertNext(actual -> assertEquals(ImportResultResponse.Status.DUPLICATE, actual.status()))
+				.verifyComplete();
+	}
+
 	@Test
 	@Sql("/sql/insert_person.sql")
 	@DirtiesContext
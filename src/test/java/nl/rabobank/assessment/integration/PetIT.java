@@ -1,18 +1,24 @@
 package nl.rabobank.assessment.integration;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.spi.Connection;
 import nl.rabobank.assessment.mapper.EntityMapper;
 import nl.rabobank.assessment.persistence.entity.Pet;
 import nl.rabobank.assessment.persistence.repository.PersonRepository;
 import nl.rabobank.assessment.persistence.repository.PetRepository;
 import nl.rabobank.assessment.service.PetService;
+import nl.rabobank.assessment.ui.rest.PageCursor;
 import nl.rabobank.assessment.ui.rest.PetController;
 import nl.rabobank.assessment.ui.rest.model.request.PetRequest;
+import nl.rabobank.assessment.ui.rest.model.response.ImportResultResponse;
 import nl.rabobank.assessment.ui.rest.model.response.PetResponse;
 import nl.rabobank.assessment.util.ResourceHelper;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.web.reactive.server.WebTestClient;
@@ -21,6 +27,7 @@ import reactor.test.StepVerifier;
 import java.rmi.server.UID;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -45,6 +52,12 @@ class PetIT extends AbstractIT {
 	@Autowired
 	private WebTestClient webTestClient;
 
+	@Autowired
+	private DatabaseClient databaseClient;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
 	@AfterEach
 	void tearDown() {
 		petRepository.deleteAll()
@@ -73,6 +86,39 @@ class PetIT extends AbstractIT {
 		verify(petRepository).save(any(Pet.class));
 	}
 
+	@Test
+	@Sql("/sql/insert_person.sql")
+	@DirtiesContext
+	void testCreatePets() {
+		// Given
+		UUID personId = UUID.fromString("0fa281f4-9507-40dd-9165-7d6f49631cab");
+		UUID unknownPersonId = UUID.randomUUID();
+		List<PetRequest> petRequests = List.of(new PetRequest("Lester", 12, personId),
+				new PetRequest("Bas", 14, unknownPersonId),
+				new PetRequest("Stray", 1, null));
+
+		// When
+		List<ImportResultResponse> results = webTestClient.post()
+				.uri(PetController.BATCH_URL)
+				.bodyValue(petRequests)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBodyList(ImportResultResponse.class)
+				.returnResult()
+				.getResponseBody();
+
+		// Then
+		assertThat(results).extracting(ImportResultResponse::status).containsExactly(
+				ImportResultResponse.Status.CREATED, ImportResultResponse.Status.INVALID,
+				ImportResultResponse.Status.CREATED);
+		petRepository.findById(results.get(0).id())
+				.as(StepVerifier::create)
+				.assertNext(pet -> assertEquals(personId, pet.getPersonId()))
+				.verifyComplete();
+		verify(personRepository).findExistingIds(any());
+		verify(personRepository, never()).existsById(any(UUID.class));
+	}
+
 	@Test
 	@DirtiesContext
 	void testCreatePet_NonExistentOwner() {
@@ -91,8 +137,12 @@ class PetIT extends AbstractIT {
 
 		// Then
 		verify(petService).createPet(petRequest);
-		verify(personRepository).existsById(personId);
-		verify(petRepository, never()).save(any(Pet.class));
+		verify(personRepository, never()).existsById(personId);
+		verify(petRepository).save(any(Pet.class));
+		petRepository.count()
+				.as(StepVerifier::create)
+				.expectNext(0L)
+				.verifyComplete();
 	}
 
 	@Test
@@ -114,7 +164,12 @@ class PetIT extends AbstractIT {
 				.isOk();
 
 		verify(petService).deletePetById(petId);
-		verify(petRepository).deleteById(petId);
+		verify(petRepository).deleteReturningById(petId);
+		verify(petRepository, never()).findById(petId);
+		petRepository.existsById(petId)
+				.as(StepVerifier::create)
+				.expectNext(false)
+				.verifyComplete();
 	}
 
 	@Test
@@ -142,8 +197,8 @@ class PetIT extends AbstractIT {
 						.toList())
 						.containsAll(allPets));
 
-		verify(petService).getAllPets();
-		verify(petRepository).findAll();
+		verify(petService).getPets(null, null, 100);
+		verify(petRepository).findPage(100);
 	}
 
 	@Test
@@ -169,8 +224,43 @@ class PetIT extends AbstractIT {
 				.as(StepVerifier::create)
 				.assertNext(actual -> assertEquals(petId, actual.id()));
 
-		verify(petService).getPetsByPersonId(personId);
-		verify(petRepository).findPetsByPersonId(personId);
+		verify(petService).getPets(personId, null, 100);
+		verify(petRepository).findPageByPersonId(personId, 100);
+	}
+
+	@Test
+	@Sql("/sql/insert_pet.sql")
+	@DirtiesContext
+	void testGetAllPets_Paged() {
+		// Given
+		UUID firstPet = UUID.fromString("0fa281f4-9507-40dd-9165-7d6f49631cac");
+		UUID secondPet = UUID.fromString("0fa281f4-9507-40dd-9165-7d6f49631cad");
+
+		// When
+		String nextCursor = webTestClient.get()
+				.uri(uriBuilder -> uriBuilder.path(PetController.BASE_URL)
+						.queryParam("limit", 1)
+						.build())
+				.exchange()
+
+				// Then
+				.expectStatus().isOk()
+				.expectBodyList(PetResponse.class)
+				.value(page -> assertThat(page).extracting(PetResponse::id).containsExactly(firstPet))
+				.returnResult()
+				.getResponseHeaders()
+				.getFirst(PageCursor.NEXT_CURSOR_HEADER);
+
+		webTestClient.get()
+				.uri(uriBuilder -> uriBuilder.path(PetController.BASE_URL)
+						.queryParam("limit", 1)
+						.queryParam("after", nextCursor)
+						.build())
+				.exchange()
+				.expectStatus().isOk()
+				.expectBodyList(PetResponse.class)
+				.value(page -> assertThat(page).extracting(PetResponse::id).containsExactly(secondPet));
+		verify(petRepository).findPageAfter(firstPet, 1);
 	}
 
 	@Test
@@ -194,6 +284,115 @@ class PetIT extends AbstractIT {
 
 		// Then
 		verify(petService).updatePet(petId, petRequest);
-		verify(petRepository).save(any(Pet.class));
+		verify(petRepository).updateReturningPrevious(petId, petRequest.name(), petRequest.age(),
+				petRequest.personId());
+		verify(petRepository, never()).save(any(Pet.class));
+		petRepository.findById(petId)
+				.as(StepVerifier::create)
+				.assertNext(pet -> {
+					assertEquals(petRequest.name(), pet.getName());
+					assertEquals(petRequest.age(), pet.getAge());
+					assertEquals(petRequest.personId(), pet.getPersonId());
+				})
+				.verifyComplete();
+	}
+
+	@Test
+	@Sql("/sql/insert_pet.sql")
+	@DirtiesContext
+	void testUpdatePet_Unchanged() {
+		// Given
+		UUID petId = UUID.fromString("0fa281f4-9507-40dd-9165-7d6f49631cac");
+		PetRequest petRequest = new PetRequest("Lester", 12, UUID.fromString("0fa281f4-9507-40dd-9165-7d6f49631cab"));
+		String version = rowVersion(petId);
+
+		// When
+		webTestClient.put()
+				.uri(uriBuilder -> uriBuilder.path(PetController.BASE_URL)
+						.pathSegment("{petId}")
+						.build(petId))
+				.bodyValue(petRequest)
+				.exchange()
+				.expectStatus()
+				.isOk();
+
+		// Then
+		verify(petService).updatePet(petId, petRequest);
+		assertEquals(version, rowVersion(petId));
+	}
+
+	@Test
+	@Sql({"/sql/insert_pet.sql", "/sql/insert_pet_owners.sql"})
+	@DirtiesContext
+	void testUpdatePet_Concurrent() throws InterruptedException {
+		// Given
+		UUID petId = UUID.fromString("0fa281f4-9507-40dd-9165-7d6f49631cac");
+		UUID firstOwner = UUID.fromString("0fa281f4-9507-40dd-9165-7d6f49631cab");
+		UUID secondOwner = UUID.fromString("0fa281f4-9507-40dd-9165-7d6f49631cae");
+		UUID thirdOwner = UUID.fromString("0fa281f4-9507-40dd-9165-7d6f49631caf");
+		Connection petLock = lockRow("pet", petId);
+		Connection thirdOwnerLock = lockRow("person", thirdOwner);
+
+		// When both updates wait for the pet, the second one (which reads the pet before the first one writes it)
+		// moving it away from the owner the first one gives it
+		CompletableFuture<Void> toSecondOwner = CompletableFuture.runAsync(() ->
+				updatePet(petId, new PetRequest("Lester", 12, secondOwner)));
+		awaitLockWaiters(1);
+		CompletableFuture<Void> toThirdOwner = CompletableFuture.runAsync(() ->
+				updatePet(petId, new PetRequest("Lester", 12, thirdOwner)));
+		awaitLockWaiters(2);
+		release(petLock);
+		toSecondOwner.join();
+
+		// and the pets of the second owner are cached while the second update waits for the foreign key check
+		assertThat(streamPetIds(secondOwner)).containsExactly(petId);
+		release(thirdOwnerLock);
+		toThirdOwner.join();
+
+		// Then
+		assertThat(streamPetIds(firstOwner)).isEmpty();
+		assertThat(streamPetIds(secondOwner)).isEmpty();
+		assertThat(streamPetIds(thirdOwner)).containsExactly(petId);
+		assertEquals(2, meterRegistry.counter("assessment.updates", "entity", "pet", "outcome", "performed").count());
+	}
+
+	private void updatePet(UUID petId, PetRequest petRequest) {
+		webTestClient.put()
+				.uri(uriBuilder -> uriBuilder.path(PetController.BASE_URL)
+						.pathSegment("{petId}")
+						.build(petId))
+				.bodyValue(petRequest)
+				.exchange()
+				.expectStatus()
+				.isOk();
+	}
+
+	/**
+	 * The ids of the pets of the owner, from the stream that is served from the pets by owner cache.
+	 */
+	private List<UUID> streamPetIds(UUID personId) {
+		return webTestClient.get()
+				.uri(uriBuilder -> uriBuilder.path(PetController.BASE_URL)
+						.queryParam("personId", personId)
+						.build())
+				.accept(MediaType.APPLICATION_NDJSON)
+				.exchange()
+				.expectStatus().isOk()
+				.returnResult(PetResponse.class)
+				.getResponseBody()
+				.map(PetResponse::id)
+				.collectList()
+				.block();
+	}
+
+	/**
+	 * The id of the transaction that wrote the current version of the row, which changes with every UPDATE.
+	 */
+	private String rowVersion(UUID petId) {
+		return databaseClient.sql("SELECT xmin::text FROM pet WHERE id = $1")
+				.bind(0, petId)
+				.map(row -> row.get(0, String.class))
+				.one()
+				.block();
 	}
 }
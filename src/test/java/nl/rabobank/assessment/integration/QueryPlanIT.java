@@ -0,0 +1,172 @@
+package nl.rabobank.assessment.integration;
+
+import io.r2dbc.proxy.ProxyConnectionFactory;
+import io.r2dbc.proxy.core.QueryInfo;
+import io.r2dbc.spi.ConnectionFactory;
+import nl.rabobank.assessment.persistence.repository.PersonRepository;
+import nl.rabobank.assessment.persistence.repository.PersonRepositoryCustomImpl;
+import nl.rabobank.assessment.persistence.repository.PetRepository;
+import nl.rabobank.assessment.persistence.repository.PetRepositoryCustomImpl;
+import nl.rabobank.assessment.persistence.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.repository.support.R2dbcRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.Parameter;
+import org.springframework.test.context.jdbc.Sql;
+import reactor.core.publisher.Flux;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs every query method of the repositories against seeded tables, captures the SQL Spring Data generates for it
+ * and fails when {@code EXPLAIN} shows a sequential scan of a seeded table, i.e. when the query isn't backed by an
+ * index.
+ */
+@Sql("/sql/seed_query_plans.sql")
+@Sql(scripts = "/sql/clean_query_plans.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class QueryPlanIT extends AbstractIT {
+
+	private static final Pattern SEQUENTIAL_SCAN = Pattern.compile("Seq Scan on \"?(person|pet|user)\"?\\b");
+
+	private static final UUID SOME_ID = UUID.fromString("0fa281f4-9507-40dd-9165-7d6f49631cab");
+
+	private static final List<QueryMethod<?>> QUERY_METHODS = List.of(
+			new QueryMethod<>(PersonRepository.class, "existsByFirstNameAndLastName",
+					repository -> repository.existsByFirstNameAndLastName("First 42", "Last 42"), "First 42", "Last 42"),
+			new QueryMethod<>(PersonRepository.class, "findFirstByFirstName",
+					repository -> repository.findFirstByFirstName("First 42"), "First 42"),
+			new QueryMethod<>(PersonRepository.class, "findPersonByFirstNameAndLastName",
+					repository -> repository.findPersonByFirstNameAndLastName("First 42", "Last 42"), "First 42",
+					"Last 42"),
+			new QueryMethod<>(PersonRepository.class, "findFirstByLastName",
+					repository -> repository.findFirstByLastName("Last 42"), "Last 42"),
+			new QueryMethod<>(PersonRepository.class, "findPage",
+					repository -> repository.findPage(100), 100),
+			new QueryMethod<>(PersonRepository.class, "findPageAfter",
+					repository -> repository.findPageAfter(SOME_ID, 100), SOME_ID, 100),
+			new QueryMethod<>(PersonRepository.class, "updateAddressReturningPrevious",
+					repository -> repository.updateAddressReturningPrevious(SOME_ID, "Soendastraat", 25, null,
+							"9715NH", "Groningen", "Netherlands"), SOME_ID, "Soendastraat", 25,
+					Parameter.empty(String.class), "9715NH", "Groningen", "Netherlands"),
+			new QueryMethod<>(PersonRepository.class, "searchByName",
+					repository -> repository.searchByName("first 42", "first 42%", 10), "first 42", "first 42%", 10),
+			new QueryMethod<>(PetRepository.class, "findPage",
+					repository -> repository.findPage(100), 100),
+			new QueryMethod<>(PetRepository.class, "findPageAfter",
+					repository -> repository.findPageAfter(SOME_ID, 100), SOME_ID, 100),
+			new QueryMethod<>(PetRepository.class, "findPageByPersonId",
+					repository -> repository.findPageByPersonId(SOME_ID, 100), SOME_ID, 100),
+			new QueryMethod<>(PetRepository.class, "findPageByPersonIdAfter",
+					repository -> repository.findPageByPersonIdAfter(SOME_ID, SOME_ID, 100), SOME_ID, SOME_ID, 100),
+			new QueryMethod<>(PetRepository.class, "updateReturningPrevious",
+					repository -> repository.updateReturningPrevious(SOME_ID, "Lester", 12, SOME_ID), SOME_ID, "Lester",
+					12, SOME_ID),
+			new QueryMethod<>(PetRepository.class, "deleteReturningById",
+					repository -> repository.deleteReturningById(SOME_ID), SOME_ID),
+			new QueryMethod<>(UserRepository.class, "findByUsername",
+					repository -> repository.findByUsername("seeded-42"), "seeded-42")
+	);
+
+	private final List<String> executedQueries = new CopyOnWriteArrayList<>();
+
+	@Autowired
+	private ConnectionFactory connectionFactory;
+
+	@Autowired
+	private DatabaseClient databaseClient;
+
+	@Autowired
+	private PersonRepositoryCustomImpl personRepositoryCustom;
+
+	@Autowired
+	private PetRepositoryCustomImpl petRepositoryCustom;
+
+	private Map<Class<?>, Object> repositories;
+
+	@BeforeEach
+	void setUp() {
+		ConnectionFactory recordingConnectionFactory = ProxyConnectionFactory.builder(connectionFactory)
+				.onAfterQuery(execution -> execution.getQueries().stream()
+						.map(QueryInfo::getQuery)
+						.forEach(executedQueries::add))
+				.build();
+		R2dbcRepositoryFactory repositoryFactory =
+				new R2dbcRepositoryFactory(new R2dbcEntityTemplate(recordingConnectionFactory));
+		repositories = Map.of(
+				PersonRepository.class, repositoryFactory.getRepository(PersonRepository.class,
+						RepositoryComposition.RepositoryFragments.just(personRepositoryCustom)),
+				PetRepository.class, repositoryFactory.getRepository(PetRepository.class,
+						RepositoryComposition.RepositoryFragments.just(petRepositoryCustom)),
+				UserRepository.class, repositoryFactory.getRepository(UserRepository.class));
+	}
+
+	@ParameterizedTest(name = "{0}")
+	@MethodSource("queryMethods")
+	<R> void testQueryUsesIndex(QueryMethod<R> queryMethod) {
+		// Given
+		R repository = queryMethod.repository().cast(repositories.get(queryMethod.repository()));
+
+		// When
+		Flux.from(queryMethod.invocation().apply(repository)).then().block();
+
+		// Then
+		assertThat(executedQueries).hasSize(1);
+		DatabaseClient.GenericExecuteSpec explain = databaseClient.sql("EXPLAIN " + executedQueries.get(0));
+		for (int i = 0; i < queryMethod.arguments().size(); i++) {
+			explain = explain.bind(i, queryMethod.arguments().get(i));
+		}
+		List<String> plan = explain.map(row -> row.get(0, String.class)).all().collectList().block();
+		assertThat(plan)
+				.as("Plan of %s", executedQueries.get(0))
+				.noneMatch(line -> SEQUENTIAL_SCAN.matcher(line).find());
+	}
+
+	@Test
+	void testEveryQueryMethodIsExplained() {
+		Map<Class<?>, List<String>> explained = QUERY_METHODS.stream()
+				.collect(Collectors.groupingBy(QueryMethod::repository,
+						Collectors.mapping(QueryMethod::method, Collectors.toList())));
+		for (Class<?> repository : List.of(PersonRepository.class, PetRepository.class, UserRepository.class)) {
+			assertThat(explained.get(repository))
+					.as("Query methods of %s", repository.getSimpleName())
+					.containsExactlyInAnyOrderElementsOf(Arrays.stream(repository.getDeclaredMethods())
+							.map(Method::getName)
+							.toList());
+		}
+	}
+
+	static Stream<QueryMethod<?>> queryMethods() {
+		return QUERY_METHODS.stream();
+	}
+
+	record QueryMethod<R>(Class<R> repository, String method, Function<R, Publisher<?>> invocation,
+	                      List<Object> arguments) {
+
+		QueryMethod(Class<R> repository, String method, Function<R, Publisher<?>> invocation, Object... arguments) {
+			this(repository, method, invocation, List.of(arguments));
+		}
+
+		@Override
+		public String toString() {
+			return repository.getSimpleName() + "." + method;
+		}
+	}
+}
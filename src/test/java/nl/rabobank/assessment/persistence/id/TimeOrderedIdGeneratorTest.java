@@ -0,0 +1,108 @@
+package nl.rabobank.assessment.persistence.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TimeOrderedIdGeneratorTest {
+
+	private static final Instant NOW = Instant.parse("2022-10-01T12:00:00Z");
+
+	/**
+	 * The order of ids in Postgres, which compares the bytes unsigned.
+	 */
+	private static final Comparator<UUID> ID_ORDER = Comparator
+			.comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+			.thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+
+	@Test
+	void testGenerate_Version7() {
+		// Given
+		TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(Clock.fixed(NOW, ZoneOffset.UTC));
+
+		// When
+		UUID id = generator.generate();
+
+		// Then
+		assertThat(id.version()).isEqualTo(7);
+		assertThat(id.variant()).isEqualTo(2);
+		assertThat(id.getMostSignificantBits() >>> 16).isEqualTo(NOW.toEpochMilli());
+	}
+
+	@Test
+	void testGenerate_MonotonicWithinMillisecond() {
+		// Given
+		TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(Clock.fixed(NOW, ZoneOffset.UTC));
+
+		// When
+		List<UUID> ids = generate(generator, 10_000);
+
+		// Then
+		assertThat(ids).isSortedAccordingTo(ID_ORDER).doesNotHaveDuplicates();
+		assertThat(ids).allSatisfy(id -> assertThat(id.version()).isEqualTo(7));
+		assertThat(ids.get(ids.size() - 1).getMostSignificantBits() >>> 16)
+				.as("The counter overflows into the timestamp")
+				.isEqualTo(NOW.toEpochMilli() + 2);
+	}
+
+	@Test
+	void testGenerate_MonotonicWhenClockGoesBack() {
+		// Given
+		Clock clock = mock(Clock.class);
+		when(clock.millis()).thenReturn(NOW.toEpochMilli(), NOW.minusSeconds(1).toEpochMilli());
+		TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(clock);
+
+		// When
+		UUID before = generator.generate();
+		UUID after = generator.generate();
+
+		// Then
+		assertThat(ID_ORDER.compare(before, after)).isNegative();
+	}
+
+	@Test
+	void testGenerate_UniqueAndMonotonicPerThreadWhenConcurrent() throws Exception {
+		// Given
+		TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(Clock.systemUTC());
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+
+		// When
+		List<Future<List<UUID>>> futures = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			futures.add(executor.submit(() -> generate(generator, 20_000)));
+		}
+
+		// Then
+		Set<UUID> all = new HashSet<>();
+		for (Future<List<UUID>> future : futures) {
+			List<UUID> ids = future.get();
+			assertThat(ids).isSortedAccordingTo(ID_ORDER);
+			all.addAll(ids);
+		}
+		executor.shutdown();
+		assertThat(all).hasSize(8 * 20_000);
+	}
+
+	private static List<UUID> generate(IdGenerator generator, int count) {
+		List<UUID> ids = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			ids.add(generator.generate());
+		}
+		return ids;
+	}
+}
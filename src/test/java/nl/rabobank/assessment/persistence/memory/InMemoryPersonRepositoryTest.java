@@ -0,0 +1,130 @@
+package nl.rabobank.assessment.persistence.memory;
+
+import nl.rabobank.assessment.persistence.entity.Person;
+import nl.rabobank.assessment.persistence.repository.IntegrityConstraintViolationException;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryPersonRepositoryTest {
+
+	private final InMemoryPersonRepository personRepository = new InMemoryPersonRepository();
+
+	@Test
+	void testInsertIfAbsent_Duplicate() {
+		// Given
+		UUID id = personRepository.insertIfAbsent(person("Harm", "van der Wal")).block();
+
+		// When
+		personRepository.insertIfAbsent(person("Harm", "van der Wal"))
+				.as(StepVerifier::create)
+
+				// Then
+				.verifyComplete();
+		assertThat(personRepository.findPersonByFirstNameAndLastName("Harm", "van der Wal").block())
+				.extracting(Person::getId)
+				.isEqualTo(id);
+	}
+
+	@Test
+	void testInsertAll_RolledBackOnDuplicate() {
+		// Given
+		personRepository.insertIfAbsent(person("Harm", "van der Wal")).block();
+
+		// When
+		personRepository.insertAll(List.of(person("Jan", "Jansen"), person("Harm", "van der Wal")))
+				.as(StepVerifier::create)
+
+				// Then
+				.expectErrorMatches(throwable -> throwable instanceof IntegrityConstraintViolationException exception &&
+						exception.getConstraintName().equals(InMemoryPersonRepository.FULL_NAME_CONSTRAINT))
+				.verify();
+		assertThat(personRepository.count().block()).isEqualTo(1);
+		assertThat(personRepository.findFirstByFirstName("Jan").block()).isNull();
+	}
+
+	@Test
+	void testInsertAllIfAbsent_SkipsDuplicates() {
+		// Given
+		personRepository.insertIfAbsent(person("Harm", "van der Wal")).block();
+		Person jan = person("Jan", "Jansen");
+
+		// When
+		personRepository.insertAllIfAbsent(List.of(jan, person("Harm", "van der Wal"), person("Jan", "Jansen")))
+				.as(StepVerifier::create)
+
+				// Then
+				.assertNext(id -> assertThat(id).isEqualTo(jan.getId()))
+				.verifyComplete();
+		assertThat(personRepository.count().block()).isEqualTo(2);
+	}
+
+	@Test
+	void testUpdateAddressReturningPrevious() {
+		// Given
+		Person person = person("Harm", "van der Wal");
+		UUID id = personRepository.insertIfAbsent(person).block();
+
+		// When
+		Person previous = personRepository.updateAddressReturningPrevious(id, "Catharijnesingel", 20, null, "3511 GB",
+				"Utrecht", "Nederland").block();
+
+		// Then
+		assertThat(previous.getStreet()).isEqualTo(person.getStreet());
+		assertThat(personRepository.findById(id).block().getStreet()).isEqualTo("Catharijnesingel");
+		assertThat(personRepository.findFirstByLastName("van der Wal").block().getStreet())
+				.isEqualTo("Catharijnesingel");
+	}
+
+	@Test
+	void testFindById_ReturnsCopy() {
+		// Given
+		UUID id = personRepository.insertIfAbsent(person("Harm", "van der Wal")).block();
+
+		// When
+		personRepository.findById(id).block().setFirstName("Jan");
+
+		// Then
+		assertThat(personRepository.findById(id).block().getFirstName()).isEqualTo("Harm");
+		assertThat(personRepository.findFirstByFirstName("Jan").block()).isNull();
+	}
+
+	@Test
+	void testSearchByName() {
+		// Given
+		personRepository.insertAll(List.of(person("Harm", "van der Wal"), person("Harmen", "de Vries"),
+				person("Jan", "Jansen"))).block();
+
+		// When
+		personRepository.searchByName("harm v", "harm v%", 10)
+				.map(Person::getLastName)
+				.as(StepVerifier::create)
+
+				// Then
+				.expectNext("van der Wal")
+				.verifyComplete();
+		personRepository.searchByName("van der wall", "van der wall%", 10)
+				.map(Person::getLastName)
+				.as(StepVerifier::create)
+				.expectNext("van der Wal")
+				.verifyComplete();
+	}
+
+	private static Person person(String firstName, String lastName) {
+		Person person = new Person();
+		person.setFirstName(firstName);
+		person.setLastName(lastName);
+		person.setDateOfBirth(LocalDate.of(1990, 1, 1));
+		person.setStreet("Croeselaan");
+		person.setHouseNumber(18);
+		person.setPostalCode("3521 CB");
+		person.setCity("Utrecht");
+		person.setCountry("Nederland");
+		return person;
+	}
+}
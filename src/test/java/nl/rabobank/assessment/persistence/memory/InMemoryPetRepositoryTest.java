@@ -0,0 +1,140 @@
+package nl.rabobank.assessment.persistence.memory;
+
+import nl.rabobank.assessment.persistence.entity.Person;
+import nl.rabobank.assessment.persistence.entity.Pet;
+import nl.rabobank.assessment.persistence.id.Ids;
+import nl.rabobank.assessment.persistence.repository.IntegrityConstraintViolationException;
+import nl.rabobank.assessment.ui.rest.model.response.PetResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryPetRepositoryTest {
+
+	private final InMemoryPersonRepository personRepository = new InMemoryPersonRepository();
+
+	private final InMemoryPetRepository petRepository = new InMemoryPetRepository(personRepository);
+
+	private UUID ownerId;
+
+	@BeforeEach
+	void setUp() {
+		Person owner = new Person();
+		owner.setFirstName("Harm");
+		owner.setLastName("van der Wal");
+		owner.setDateOfBirth(LocalDate.of(1990, 1, 1));
+		ownerId = personRepository.insertIfAbsent(owner).block();
+	}
+
+	@Test
+	void testSave_UnknownOwner() {
+		petRepository.save(pet("Hond", UUID.randomUUID()))
+				.as(StepVerifier::create)
+				.expectErrorMatches(throwable -> IntegrityConstraintViolationException.violates(throwable,
+						InMemoryPetRepository.OWNER_CONSTRAINT))
+				.verify();
+		assertThat(petRepository.count().block()).isZero();
+	}
+
+	@Test
+	void testFindPageByPersonId() {
+		// Given
+		petRepository.insertAll(List.of(pet("Hond", ownerId), pet("Kat", null), pet("Vis", ownerId),
+				pet("Paard", ownerId))).block();
+
+		// When
+		List<Pet> firstPage = petRepository.findPageByPersonId(ownerId, 2).collectList().block();
+		List<Pet> nextPage = petRepository.findPageByPersonIdAfter(ownerId, firstPage.get(1).getId(), 2)
+				.collectList()
+				.block();
+
+		// Then
+		assertThat(firstPage).hasSize(2);
+		assertThat(nextPage).hasSize(1);
+		List<Pet> pets = new ArrayList<>(firstPage);
+		pets.addAll(nextPage);
+		assertThat(pets).extracting(Pet::getName).containsExactlyInAnyOrder("Hond", "Vis", "Paard");
+		assertThat(pets).extracting(Pet::getId).isSortedAccordingTo(Ids.ORDER);
+	}
+
+	@Test
+	void testFindResponsesByPersonId() {
+		// Given
+		petRepository.insertAll(List.of(pet("Hond", ownerId), pet("Kat", null), pet("Vis", ownerId))).block();
+
+		// When
+		List<PetResponse> pets = petRepository.findResponsesByPersonId(ownerId).collectList().block();
+
+		// Then
+		assertThat(pets).extracting(PetResponse::name).containsExactlyInAnyOrder("Hond", "Vis");
+		assertThat(pets).extracting(PetResponse::personId).containsOnly(ownerId);
+		assertThat(pets).extracting(PetResponse::id).isSortedAccordingTo(Ids.ORDER);
+	}
+
+	@Test
+	void testFindResponsesByIdIn() {
+		// Given
+		petRepository.insertAll(List.of(pet("Hond", ownerId), pet("Kat", null))).block();
+		List<UUID> ids = petRepository.findAll().map(Pet::getId).collectList().block();
+
+		// When
+		List<PetResponse> pets = petRepository.findResponsesByIdIn(List.of(ids.get(0), UUID.randomUUID(), ids.get(0),
+				ids.get(1))).collectList().block();
+
+		// Then
+		assertThat(pets).extracting(PetResponse::id).containsExactlyInAnyOrderElementsOf(ids);
+	}
+
+	@Test
+	void testUpdateReturningPrevious_MovesToNewOwner() {
+		// Given
+		UUID petId = petRepository.save(pet("Hond", ownerId)).block().getId();
+
+		// When
+		Pet previous = petRepository.updateReturningPrevious(petId, "Hond", 13, null).block();
+
+		// Then
+		assertThat(previous.getPersonId()).isEqualTo(ownerId);
+		assertThat(petRepository.findResponsesByPersonId(ownerId).collectList().block()).isEmpty();
+		assertThat(petRepository.findById(petId).block().getAge()).isEqualTo(13);
+	}
+
+	@Test
+	void testDeleteOwner_SetsOwnerToNull() {
+		// Given
+		UUID petId = petRepository.save(pet("Hond", ownerId)).block().getId();
+
+		// When
+		personRepository.deleteById(ownerId).block();
+
+		// Then
+		assertThat(petRepository.findById(petId).block().getPersonId()).isNull();
+		assertThat(petRepository.findResponsesByPersonId(ownerId).collectList().block()).isEmpty();
+	}
+
+	@Test
+	void testDeleteReturningById() {
+		// Given
+		UUID petId = petRepository.save(pet("Hond", ownerId)).block().getId();
+
+		// When / Then
+		assertThat(petRepository.deleteReturningById(petId).block()).extracting(Pet::getName).isEqualTo("Hond");
+		assertThat(petRepository.deleteReturningById(petId).block()).isNull();
+		assertThat(petRepository.findResponsesByPersonId(ownerId).collectList().block()).isEmpty();
+	}
+
+	private static Pet pet(String name, UUID personId) {
+		Pet pet = new Pet();
+		pet.setName(name);
+		pet.setAge(12);
+		pet.setPersonId(personId);
+		return pet;
+	}
+}
@@ -0,0 +1,123 @@
+package nl.rabobank.assessment.persistence.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Statement;
+import io.r2dbc.spi.Wrapped;
+import nl.rabobank.assessment.persistence.entity.Person;
+import nl.rabobank.assessment.persistence.memory.InMemoryPersonRepository;
+import nl.rabobank.assessment.persistence.repository.PersonRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PersistenceMetricsPostProcessorTest {
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final QueryStatistics queryStatistics = new QueryStatistics(Duration.ofSeconds(1), 100);
+
+	private PersistenceMetricsPostProcessor postProcessor;
+
+	@Mock
+	private ConnectionFactory connectionFactory;
+
+	@Mock
+	private Connection connection;
+
+	@Mock
+	private Statement statement;
+
+	@BeforeEach
+	void setUp() {
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		beanFactory.registerSingleton("meterRegistry", meterRegistry);
+		beanFactory.registerSingleton("queryStatistics", queryStatistics);
+		postProcessor = new PersistenceMetricsPostProcessor(beanFactory.getBeanProvider(MeterRegistry.class),
+				beanFactory.getBeanProvider(QueryStatistics.class));
+	}
+
+	@Test
+	void testRepositoryCallsAreTimedPerMethodAndOutcome() {
+		// Given
+		PersonRepository personRepository = (PersonRepository) postProcessor
+				.postProcessAfterInitialization(new InMemoryPersonRepository(), "personRepository");
+		UUID id = personRepository.insertIfAbsent(person()).block();
+
+		// When
+		personRepository.findById(id).block();
+		personRepository.findById(id).block();
+		personRepository.save(person())
+				.as(StepVerifier::create)
+				.expectError()
+				.verify();
+
+		// Then
+		assertThat(meterRegistry.get(RepositoryMetricsInterceptor.INVOCATIONS_METER)
+				.tags("repository", "PersonRepository", "method", "findById", "outcome", "success")
+				.timer()
+				.count()).isEqualTo(2);
+		assertThat(meterRegistry.get(RepositoryMetricsInterceptor.INVOCATIONS_METER)
+				.tags("repository", "PersonRepository", "method", "save", "outcome", "error")
+				.timer()
+				.count()).isEqualTo(1);
+	}
+
+	@Test
+	void testConnectionAcquisitionIsTimedAndStatementsAreRecorded() {
+		// Given
+		when(connectionFactory.create()).thenAnswer(invocation -> Mono.just(connection));
+		when(connection.createStatement("SELECT 1")).thenReturn(statement);
+		when(statement.execute()).thenAnswer(invocation -> Flux.empty());
+		lenient().when(connection.validate(any())).thenReturn(Mono.just(true));
+		lenient().when(connection.close()).thenReturn(Mono.empty());
+		ConnectionPool pool = new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory).build());
+		ConnectionFactory timed = (ConnectionFactory) postProcessor.postProcessAfterInitialization(pool,
+				"connectionFactory");
+
+		// When
+		Connection acquired = Mono.from(timed.create()).block();
+		Flux.from(acquired.createStatement("SELECT 1").execute()).blockLast();
+		Mono.from(acquired.close()).block();
+
+		// Then
+		assertThat(((Wrapped<?>) timed).unwrap()).isSameAs(pool);
+		assertThat(meterRegistry.get(AcquireTimingConnectionFactory.ACQUIRE_METER)
+				.tags("name", "connectionFactory", "outcome", "success")
+				.timer()
+				.count()).isEqualTo(1);
+		assertThat(queryStatistics.top(10))
+				.extracting(QueryStatistics.StatementStatistics::sql, QueryStatistics.StatementStatistics::executions)
+				.containsExactly(tuple("SELECT 1", 1L));
+		pool.dispose();
+	}
+
+	private static Person person() {
+		Person person = new Person();
+		person.setFirstName("Harm");
+		person.setLastName("van der Wal");
+		person.setDateOfBirth(LocalDate.of(1990, 1, 1));
+		return person;
+	}
+}
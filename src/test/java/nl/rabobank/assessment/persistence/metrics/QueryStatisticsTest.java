@@ -0,0 +1,68 @@
+package nl.rabobank.assessment.persistence.metrics;
+
+import io.r2dbc.proxy.core.BoundValue;
+import io.r2dbc.proxy.core.Bindings;
+import io.r2dbc.proxy.core.QueryInfo;
+import io.r2dbc.proxy.test.MockQueryExecutionInfo;
+import nl.rabobank.assessment.persistence.metrics.QueryStatistics.StatementStatistics;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryStatisticsTest {
+
+	private static final String FIND_PERSON = "SELECT person.* FROM person WHERE person.id = $1";
+
+	private static final String FIND_PETS = "SELECT pet.* FROM pet WHERE pet.person_id = $1 ORDER BY pet.id ASC";
+
+	private final QueryStatistics queryStatistics = new QueryStatistics(Duration.ofMillis(200), 2);
+
+	@Test
+	void testStatementsAreRankedByTotalTime() {
+		// When
+		queryStatistics.afterQuery(execution(FIND_PERSON, 3, 1));
+		queryStatistics.afterQuery(execution(FIND_PERSON, 5, 0));
+		queryStatistics.afterQuery(execution(FIND_PETS, 20, 4));
+
+		// Then
+		List<StatementStatistics> top = queryStatistics.top(10);
+		assertThat(top).extracting(StatementStatistics::sql).containsExactly(FIND_PETS, FIND_PERSON);
+		assertThat(top.get(1)).isEqualTo(new StatementStatistics(FIND_PERSON, 2, 8, 4, 5, 1, 2));
+		assertThat(queryStatistics.top(1)).extracting(StatementStatistics::sql).containsExactly(FIND_PETS);
+	}
+
+	@Test
+	void testStatementsBeyondTheMaximumAreOnlyCounted() {
+		// When
+		queryStatistics.afterQuery(execution(FIND_PERSON, 1, 1));
+		queryStatistics.afterQuery(execution(FIND_PETS, 1, 1));
+		queryStatistics.afterQuery(execution("SELECT 1", 300, 1));
+
+		// Then
+		assertThat(queryStatistics.top(10)).hasSize(2);
+		assertThat(queryStatistics.getUntrackedExecutions()).isEqualTo(1);
+
+		// When
+		queryStatistics.reset();
+
+		// Then
+		assertThat(queryStatistics.top(10)).isEmpty();
+		assertThat(queryStatistics.getUntrackedExecutions()).isZero();
+	}
+
+	private static MockQueryExecutionInfo execution(String sql, long millis, int rows) {
+		QueryInfo query = new QueryInfo(sql);
+		Bindings bindings = new Bindings();
+		bindings.addIndexBinding(Bindings.indexBinding(0, BoundValue.value("7e1b3c39-4b1f-4c5e-9d36-0b8d4e1c2a10")));
+		query.getBindingsList().add(bindings);
+		return MockQueryExecutionInfo.builder()
+				.queryInfo(query)
+				.executeDuration(Duration.ofMillis(millis))
+				.currentResultCount(rows)
+				.isSuccess(true)
+				.build();
+	}
+}
@@ -0,0 +1,122 @@
+package nl.rabobank.assessment.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AccessTokenServiceTest {
+
+	private static final String OLD_KEY = "b2xkLWtleS1vbGQta2V5LW9sZC1rZXktb2xkLWtleSE=";
+
+	private static final String NEW_KEY = "bmV3LWtleS1uZXcta2V5LW5ldy1rZXktbmV3LWtleSE=";
+
+	private static final Instant NOW = Instant.parse("2022-10-01T12:00:00Z");
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private final Authentication admin = UsernamePasswordAuthenticationToken.authenticated("admin", null,
+			AuthorityUtils.createAuthorityList("ROLE_ADMIN"));
+
+	@Test
+	void testIssueAndVerify() {
+		// Given
+		AccessTokenService accessTokenService = service("old", Map.of("old", OLD_KEY), NOW);
+
+		// When
+		AccessTokenService.AccessToken token = accessTokenService.issue(admin);
+		Authentication actual = accessTokenService.verify(token.value());
+
+		// Then
+		assertThat(token.expiresIn()).isEqualTo(Duration.ofMinutes(15));
+		assertThat(actual.isAuthenticated()).isTrue();
+		assertThat(actual.getName()).isEqualTo("admin");
+		assertThat(actual.getAuthorities()).extracting(GrantedAuthority::getAuthority).containsExactly("ROLE_ADMIN");
+	}
+
+	@Test
+	void testVerify_Expired() {
+		// Given
+		String token = service("old", Map.of("old", OLD_KEY), NOW).issue(admin).value();
+		AccessTokenService later = service("old", Map.of("old", OLD_KEY), NOW.plus(Duration.ofMinutes(15)));
+
+		// When / Then
+		assertThrows(BadCredentialsException.class, () -> later.verify(token));
+	}
+
+	@Test
+	void testVerify_Tampered() {
+		// Given
+		AccessTokenService accessTokenService = service("old", Map.of("old", OLD_KEY), NOW);
+		String token = accessTokenService.issue(admin).value();
+		String[] parts = token.split("\\.");
+		String forgedClaims = Base64.getUrlEncoder().withoutPadding()
+				.encodeToString("{\"sub\":\"user\",\"roles\":[\"ROLE_ADMIN\"],\"exp\":9999999999}".getBytes());
+
+		// When / Then
+		assertThrows(BadCredentialsException.class,
+				() -> accessTokenService.verify(parts[0] + "." + forgedClaims + "." + parts[2]));
+		assertThrows(BadCredentialsException.class, () -> accessTokenService.verify("not-a-token"));
+	}
+
+	@Test
+	void testVerify_KeyRotation() {
+		// Given
+		String signedWithOldKey = service("old", Map.of("old", OLD_KEY), NOW).issue(admin).value();
+		AccessTokenService rotated = service("new", Map.of("old", OLD_KEY, "new", NEW_KEY), NOW);
+		AccessTokenService retired = service("new", Map.of("new", NEW_KEY), NOW);
+
+		// When
+		String signedWithNewKey = rotated.issue(admin).value();
+
+		// Then
+		assertThat(rotated.verify(signedWithOldKey).getName()).isEqualTo("admin");
+		assertThat(retired.verify(signedWithNewKey).getName()).isEqualTo("admin");
+		assertThrows(BadCredentialsException.class, () -> retired.verify(signedWithOldKey));
+	}
+
+	@Test
+	void testConstruct_UnknownActiveKey() {
+		assertThrows(IllegalArgumentException.class, () -> service("missing", Map.of("old", OLD_KEY), NOW));
+	}
+
+	@Test
+	void testConstruct_NoKeys() {
+		assertThrows(IllegalArgumentException.class, () -> service(null, null, NOW));
+	}
+
+	@Test
+	void testIssueAndVerify_GeneratedKey() {
+		// Given
+		AccessTokenProperties properties = new AccessTokenProperties(Duration.ofMinutes(15), null, null, true);
+		AccessTokenService accessTokenService = new AccessTokenService(properties, objectMapper,
+				Clock.fixed(NOW, ZoneOffset.UTC));
+		AccessTokenService restarted = new AccessTokenService(properties, objectMapper,
+				Clock.fixed(NOW, ZoneOffset.UTC));
+
+		// When
+		String token = accessTokenService.issue(admin).value();
+
+		// Then
+		assertThat(accessTokenService.verify(token).getName()).isEqualTo("admin");
+		assertThrows(BadCredentialsException.class, () -> restarted.verify(token));
+	}
+
+	private AccessTokenService service(String activeKeyId, Map<String, String> keys, Instant now) {
+		return new AccessTokenService(new AccessTokenProperties(Duration.ofMinutes(15), activeKeyId, keys, false),
+				objectMapper, Clock.fixed(now, ZoneOffset.UTC));
+	}
+}
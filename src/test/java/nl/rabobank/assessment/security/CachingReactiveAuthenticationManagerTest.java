@@ -0,0 +1,144 @@
+package nl.rabobank.assessment.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.LockedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CachingReactiveAuthenticationManagerTest {
+
+	private static final String USERNAME = "admin";
+
+	private static final String PASSWORD = "admin";
+
+	private static final String ENCODED_PASSWORD = "{bcrypt}encoded";
+
+	@Mock
+	private ReactiveUserDetailsService userDetailsService;
+
+	@Mock
+	private PasswordEncoder passwordEncoder;
+
+	private CredentialCache credentialCache;
+
+	private CachingReactiveAuthenticationManager authenticationManager;
+
+	@BeforeEach
+	void setUp() {
+		credentialCache = new CredentialCache(10, Duration.ofMinutes(1));
+		authenticationManager = new CachingReactiveAuthenticationManager(userDetailsService, passwordEncoder,
+				credentialCache, Schedulers.immediate());
+	}
+
+	@Test
+	void testAuthenticate_HashesOncePerCredential() {
+		// Given
+		when(userDetailsService.findByUsername(USERNAME)).thenReturn(Mono.just(user(ENCODED_PASSWORD, false)));
+		when(passwordEncoder.matches(PASSWORD, ENCODED_PASSWORD)).thenReturn(true);
+
+		// When
+		authenticate(PASSWORD).as(StepVerifier::create).assertNext(auth -> assertTrue(auth.isAuthenticated()))
+				.verifyComplete();
+		authenticate(PASSWORD).as(StepVerifier::create).assertNext(auth -> assertTrue(auth.isAuthenticated()))
+				.verifyComplete();
+
+		// Then
+		verify(userDetailsService, times(2)).findByUsername(USERNAME);
+		verify(passwordEncoder).matches(PASSWORD, ENCODED_PASSWORD);
+	}
+
+	@Test
+	void testAuthenticate_WrongPasswordIsNotCached() {
+		// Given
+		when(userDetailsService.findByUsername(USERNAME)).thenReturn(Mono.just(user(ENCODED_PASSWORD, false)));
+		when(passwordEncoder.matches("wrong", ENCODED_PASSWORD)).thenReturn(false);
+
+		// When
+		authenticate("wrong").as(StepVerifier::create).verifyError(BadCredentialsException.class);
+		authenticate("wrong").as(StepVerifier::create).verifyError(BadCredentialsException.class);
+
+		// Then
+		verify(passwordEncoder, times(2)).matches("wrong", ENCODED_PASSWORD);
+	}
+
+	@Test
+	void testAuthenticate_PasswordChangeBypassesCache() {
+		// Given
+		when(userDetailsService.findByUsername(USERNAME))
+				.thenReturn(Mono.just(user(ENCODED_PASSWORD, false)))
+				.thenReturn(Mono.just(user("{bcrypt}changed", false)));
+		when(passwordEncoder.matches(PASSWORD, ENCODED_PASSWORD)).thenReturn(true);
+		when(passwordEncoder.matches(PASSWORD, "{bcrypt}changed")).thenReturn(false);
+
+		// When
+		authenticate(PASSWORD).as(StepVerifier::create).expectNextCount(1).verifyComplete();
+		authenticate(PASSWORD).as(StepVerifier::create).verifyError(BadCredentialsException.class);
+
+		// Then
+		verify(passwordEncoder).matches(PASSWORD, "{bcrypt}changed");
+	}
+
+	@Test
+	void testAuthenticate_InvalidatedUserIsHashedAgain() {
+		// Given
+		when(userDetailsService.findByUsername(USERNAME)).thenReturn(Mono.just(user(ENCODED_PASSWORD, false)));
+		when(passwordEncoder.matches(PASSWORD, ENCODED_PASSWORD)).thenReturn(true);
+
+		// When
+		authenticate(PASSWORD).as(StepVerifier::create).expectNextCount(1).verifyComplete();
+		credentialCache.invalidate(USERNAME);
+		authenticate(PASSWORD).as(StepVerifier::create).expectNextCount(1).verifyComplete();
+
+		// Then
+		verify(passwordEncoder, times(2)).matches(PASSWORD, ENCODED_PASSWORD);
+	}
+
+	@Test
+	void testAuthenticate_LockedUserIsRejectedBeforeHashing() {
+		// Given
+		when(userDetailsService.findByUsername(USERNAME)).thenReturn(Mono.just(user(ENCODED_PASSWORD, true)));
+
+		// When
+		authenticate(PASSWORD)
+				.as(StepVerifier::create)
+
+				// Then
+				.verifyError(LockedException.class);
+		verify(passwordEncoder, never()).matches(anyString(), anyString());
+	}
+
+	private Mono<Authentication> authenticate(String password) {
+		return authenticationManager.authenticate(UsernamePasswordAuthenticationToken.unauthenticated(USERNAME,
+				password));
+	}
+
+	private static UserDetails user(String encodedPassword, boolean locked) {
+		return User.withUsername(USERNAME)
+				.password(encodedPassword)
+				.roles("ADMIN")
+				.accountLocked(locked)
+				.build();
+	}
+}
@@ -1,9 +1,15 @@
 package nl.rabobank.assessment.service;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nl.rabobank.assessment.cache.BatchLoader;
+import nl.rabobank.assessment.cache.ReactiveCache;
 import nl.rabobank.assessment.mapper.EntityMapper;
 import nl.rabobank.assessment.mapper.EntityMapperImpl;
 import nl.rabobank.assessment.ui.rest.model.request.PersonRequest;
 import nl.rabobank.assessment.ui.rest.model.request.UpdateAddressRequest;
+import nl.rabobank.assessment.ui.rest.model.response.ImportResultResponse;
 import nl.rabobank.assessment.ui.rest.model.response.PersonResponse;
 import nl.rabobank.assessment.persistence.entity.Person;
 import nl.rabobank.assessment.persistence.repository.PersonRepository;
@@ -20,14 +26,23 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 import reactor.test.StepVerifier;
 
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -48,6 +63,19 @@ class PersonServiceTest {
 	@Mock
 	private PersonRepository personRepository;
 
+	@Spy
+	private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+	@Spy
+	private ReactiveCache<UUID, PersonResponse> personCache = new ReactiveCache<>(Caffeine.newBuilder().buildAsync());
+
+	@Spy
+	private BatchLoader<UUID, PersonResponse> personLoader = new BatchLoader<>(
+			ids -> personRepository.findResponsesByIdIn(ids), PersonResponse::id, Duration.ZERO, 100);
+
+	@Spy
+	private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
 	@InjectMocks
 	private PersonService personService;
 
@@ -64,7 +92,7 @@ class PersonServiceTest {
 		// Given
 		PersonRequest personRequest = ResourceHelper
 				.getResourceAsType("json/create_person_request_success.json", PersonRequest.class);
-		when(personRepository.existsByFirstNameAndLastName(anyString(), anyString())).thenReturn(Mono.just(true));
+		when(personRepository.insertIfAbsent(any(Person.class))).thenReturn(Mono.empty());
 
 		// When
 		personService.createPerson(personRequest)
@@ -72,9 +100,9 @@ class PersonServiceTest {
 
 				// Then
 				.verifyError(ResponseStatusException.class);
-		verify(personRepository).existsByFirstNameAndLastName(anyString(), anyString());
-		verify(entityMapper, never()).toPerson(any(PersonRequest.class));
-		verify(personRepository, never()).save(any(Person.class));
+		verify(personRepository).insertIfAbsent(any(Person.class));
+		verify(personCache, never()).put(any(), any());
+		verifyNoMoreInteractions(personRepository);
 	}
 
 	@Test
@@ -82,21 +110,24 @@ class PersonServiceTest {
 		// Given
 		PersonRequest personRequest = ResourceHelper
 				.getResourceAsType("json/create_person_request_success.json", PersonRequest.class);
-		when(personRepository.existsByFirstNameAndLastName(anyString(), anyString())).thenReturn(Mono.just(false));
-		when(personRepository.save(any(Person.class))).thenReturn(Mono.just(person));
-		UUID id = UUID.randomUUID();
-		when(person.getId()).thenReturn(id);
+		when(personRepository.insertIfAbsent(any(Person.class))).thenAnswer(invocation -> {
+			Person inserted = invocation.getArgument(0);
+			inserted.isNew();
+			return Mono.just(inserted.getId());
+		});
 
 		// When
-		personService.createPerson(personRequest)
-				.as(StepVerifier::create)
+		UUID id = personService.createPerson(personRequest).block();
 
-				// Then
-				.assertNext(uuid -> assertEquals(id, uuid))
+		// Then
+		assertNotNull(id);
+		verify(entityMapper).toPerson(personRequest);
+		verify(personRepository).insertIfAbsent(argThat(person -> id.equals(person.getId())));
+		verifyNoMoreInteractions(personRepository);
+		personService.getPersonById(id)
+				.as(StepVerifier::create)
+				.assertNext(actual -> assertEquals(personRequest.firstName(), actual.firstName()))
 				.verifyComplete();
-		verify(personRepository).existsByFirstNameAndLastName(anyString(), anyString());
-		verify(entityMapper).toPerson(any(PersonRequest.class));
-		verify(personRepository).save(any(Person.class));
 	}
 
 	@ParameterizedTest
@@ -130,11 +161,76 @@ class PersonServiceTest {
 		verifyNoInteractions(personRepository, entityMapper);
 	}
 
+	@Test
+	void testImportPeople() {
+		// Given
+		PersonRequest valid = ResourceHelper
+				.getResourceAsType("json/create_person_request_success.json", PersonRequest.class);
+		PersonRequest invalid = ResourceHelper
+				.getResourceAsType("json/create_person_request_bad_request.json", PersonRequest.class);
+		PersonRequest registered = new PersonRequest("Jan", "Jansen", valid.dateOfBirth(), valid.street(),
+				valid.houseNumber(), null, valid.postalCode(), valid.city(), valid.country());
+		when(personRepository.insertAllIfAbsent(anyList())).thenAnswer(invocation -> {
+			List<Person> people = invocation.getArgument(0);
+			people.forEach(Person::isNew);
+			return Flux.fromIterable(people)
+					.filter(person -> !person.getFirstName().equals(registered.firstName()))
+					.map(Person::getId);
+		});
+
+		// When
+		personService.importPeople(Flux.just(valid, invalid, valid, registered))
+				.as(StepVerifier::create)
+
+				// Then
+				.assertNext(actual -> {
+					assertEquals(1, actual.line());
+					assertEquals(ImportResultResponse.Status.CREATED, actual.status());
+					assertNotNull(actual.id());
+				})
+				.assertNext(actual -> {
+					assertEquals(2, actual.line());
+					assertEquals(ImportResultResponse.Status.INVALID, actual.status());
+					assertEquals("country must not be null", actual.message());
+				})
+				.assertNext(actual -> assertEquals(new ImportResultResponse(3, ImportResultResponse.Status.DUPLICATE,
+						null, "Another person with the same full name is already registered."), actual))
+				.assertNext(actual -> assertEquals(new ImportResultResponse(4, ImportResultResponse.Status.DUPLICATE,
+						null, "Another person with the same full name is already registered."), actual))
+				.verifyComplete();
+		verify(personRepository).insertAllIfAbsent(argThat(people -> people.size() == 2));
+		verifyNoMoreInteractions(personRepository);
+	}
+
+	@Test
+	void testImportPeople_Chunked() {
+		// Given
+		PersonRequest valid = ResourceHelper
+				.getResourceAsType("json/create_person_request_success.json", PersonRequest.class);
+		Flux<PersonRequest> personRequests = Flux.range(0, PersonService.IMPORT_CHUNK_SIZE + 1)
+				.map(i -> new PersonRequest(valid.firstName(), valid.lastName() + i, valid.dateOfBirth(),
+						valid.street(), valid.houseNumber(), null, valid.postalCode(), valid.city(), valid.country()));
+		when(personRepository.insertAllIfAbsent(anyList())).thenAnswer(invocation -> {
+			List<Person> people = invocation.getArgument(0);
+			people.forEach(Person::isNew);
+			return Flux.fromIterable(people).map(Person::getId);
+		});
+
+		// When
+		personService.importPeople(personRequests)
+				.as(StepVerifier::create)
+
+				// Then
+				.expectNextCount(PersonService.IMPORT_CHUNK_SIZE + 1)
+				.verifyComplete();
+		verify(personRepository, times(2)).insertAllIfAbsent(anyList());
+	}
+
 	@Test
 	void testGetAllPersons() {
 		// Given
-		when(personRepository.findAll()).thenReturn(Flux.just(person));
 		PersonResponse expected = entityMapper.toPersonResponse(person);
+		when(personRepository.streamAllResponses()).thenReturn(Flux.just(expected));
 
 		// When
 		personService.getAllPeople()
@@ -143,17 +239,82 @@ class PersonServiceTest {
 				// Then
 				.assertNext(actual -> assertEquals(expected, actual))
 				.verifyComplete();
-		verify(personRepository).findAll();
-		verify(entityMapper, times(2)).toPersonResponse(any(Person.class));
+		verify(personRepository).streamAllResponses();
+		verify(entityMapper).toPersonResponse(any(Person.class));
 		verifyNoMoreInteractions(personRepository, entityMapper);
 	}
 
+	@Test
+	void testGetPeople_FirstPage() {
+		// Given
+		when(personRepository.findPage(10)).thenReturn(Flux.just(person));
+		PersonResponse expected = entityMapper.toPersonResponse(person);
+
+		// When
+		personService.getPeople(null, 10)
+				.as(StepVerifier::create)
+
+				// Then
+				.assertNext(actual -> assertEquals(expected, actual))
+				.verifyComplete();
+		verify(personRepository).findPage(10);
+		verifyNoMoreInteractions(personRepository);
+	}
+
+	@Test
+	void testGetPeople_NextPage() {
+		// Given
+		UUID after = UUID.randomUUID();
+		when(personRepository.findPageAfter(after, 10)).thenReturn(Flux.just(person));
+		PersonResponse expected = entityMapper.toPersonResponse(person);
+
+		// When
+		personService.getPeople(after, 10)
+				.as(StepVerifier::create)
+
+				// Then
+				.assertNext(actual -> assertEquals(expected, actual))
+				.verifyComplete();
+		verify(personRepository).findPageAfter(after, 10);
+		verifyNoMoreInteractions(personRepository);
+	}
+
+	@Test
+	void testSearchPeople() {
+		// Given
+		when(personRepository.searchByName("50%_\\ jans", "50\\%\\_\\\\ jans%", 10)).thenReturn(Flux.just(person));
+		PersonResponse expected = entityMapper.toPersonResponse(person);
+
+		// When
+		personService.searchPeople(" 50%_\\ Jans ", 10)
+				.as(StepVerifier::create)
+
+				// Then
+				.assertNext(actual -> assertEquals(expected, actual))
+				.verifyComplete();
+	}
+
+	@Test
+	void testSearchPeople_QueryTooShort() {
+		// Given
+
+		// When
+		personService.searchPeople(" j ", 10)
+				.as(StepVerifier::create)
+
+				// Then
+				.expectErrorMatches(throwable -> throwable instanceof ResponseStatusException exception &&
+						PersonService.SEARCH_QUERY_TOO_SHORT.equals(exception.getReason()))
+				.verify();
+		verifyNoInteractions(personRepository);
+	}
+
 	@Test
 	void testGetPersonById() {
 		// Given
 		UUID id = UUID.randomUUID();
-		when(personRepository.findById(id)).thenReturn(Mono.just(person));
-		PersonResponse expected = entityMapper.toPersonResponse(person);
+		PersonResponse expected = personResponse(id);
+		when(personRepository.findResponsesByIdIn(List.of(id))).thenReturn(Flux.just(expected));
 
 		// When
 		personService.getPersonById(id)
@@ -162,9 +323,9 @@ class PersonServiceTest {
 				// Then
 				.assertNext(actual -> assertEquals(expected, actual))
 				.verifyComplete();
-		verify(personRepository).findById(id);
-		verify(entityMapper, times(2)).toPersonResponse(person);
-		verifyNoMoreInteractions(personRepository, entityMapper);
+		verify(personRepository).findResponsesByIdIn(List.of(id));
+		verifyNoMoreInteractions(personRepository);
+		verifyNoInteractions(entityMapper);
 	}
 
 	@Test
@@ -173,7 +334,7 @@ class PersonServiceTest {
 		UUID id = UUID.randomUUID();
 		UpdateAddressRequest addressRequest = ResourceHelper
 				.getResourceAsType("json/update_person_request_success.json", UpdateAddressRequest.class);
-		when(personRepository.findById(id)).thenReturn(Mono.empty());
+		when(updateAddress(id, addressRequest)).thenReturn(Mono.empty());
 
 		// When
 		personService.updatePersonAddress(id, addressRequest)
@@ -181,7 +342,7 @@ class PersonServiceTest {
 
 				// Then
 				.verifyError(ResponseStatusException.class);
-		verify(personRepository).findById(id);
+		updateAddress(verify(personRepository), id, addressRequest);
 		verifyNoMoreInteractions(personRepository, entityMapper);
 	}
 
@@ -191,8 +352,8 @@ class PersonServiceTest {
 		UUID id = UUID.randomUUID();
 		UpdateAddressRequest addressRequest = ResourceHelper
 				.getResourceAsType("json/update_person_request_success.json", UpdateAddressRequest.class);
-		when(personRepository.findById(id)).thenReturn(Mono.just(person));
-		when(personRepository.save(person)).thenReturn(Mono.just(person));
+		when(updateAddress(id, addressRequest)).thenReturn(Mono.just(person));
+		when(person.getId()).thenReturn(id);
 
 		// When
 		personService.updatePersonAddress(id, addressRequest)
@@ -200,9 +361,129 @@ class PersonServiceTest {
 
 				// Then
 				.verifyComplete();
-		verify(personRepository).findById(id);
+		updateAddress(verify(personRepository), id, addressRequest);
 		verify(entityMapper).updatePersonAddress(person, addressRequest);
-		verify(personRepository).save(person);
-		verifyNoMoreInteractions(personRepository, entityMapper);
+		verify(entityMapper).toPersonResponse(person);
+		verify(personCache).put(id, entityMapper.toPersonResponse(person));
+		verifyNoMoreInteractions(personRepository);
+	}
+
+	@Test
+	void testGetPersonById_Cached() {
+		// Given
+		UUID id = UUID.randomUUID();
+		PersonResponse expected = personResponse(id);
+		when(personRepository.findResponsesByIdIn(List.of(id))).thenReturn(Flux.just(expected));
+
+		// When
+		Flux.concat(personService.getPersonById(id), personService.getPersonById(id))
+				.as(StepVerifier::create)
+
+				// Then
+				.expectNext(expected, expected)
+				.verifyComplete();
+		verify(personRepository).findResponsesByIdIn(List.of(id));
+		verifyNoMoreInteractions(personRepository);
+	}
+
+	@Test
+	void testGetPersonById_ConcurrentLookupsShareOneQuery() {
+		// Given
+		UUID id = UUID.randomUUID();
+		AtomicInteger queries = new AtomicInteger();
+		when(personRepository.findResponsesByIdIn(List.of(id))).thenReturn(Flux.defer(() -> {
+			queries.incrementAndGet();
+			return Flux.just(personResponse(id)).delayElements(Duration.ofMillis(100));
+		}));
+
+		// When
+		Flux.range(0, 200)
+				.flatMap(i -> personService.getPersonById(id).subscribeOn(Schedulers.parallel()), 200)
+				.as(StepVerifier::create)
+
+				// Then
+				.expectNextCount(200)
+				.verifyComplete();
+		assertEquals(1, queries.get());
+	}
+
+	@Test
+	void testGetPersonById_NotFoundIsNotCached() {
+		// Given
+		UUID id = UUID.randomUUID();
+		when(personRepository.findResponsesByIdIn(List.of(id)))
+				.thenReturn(Flux.empty())
+				.thenReturn(Flux.just(personResponse(id)));
+
+		// When
+		personService.getPersonById(id)
+				.as(StepVerifier::create)
+				.verifyError(ResponseStatusException.class);
+		personService.getPersonById(id)
+				.as(StepVerifier::create)
+
+				// Then
+				.expectNextCount(1)
+				.verifyComplete();
+		verify(personRepository, times(2)).findResponsesByIdIn(List.of(id));
+	}
+
+	@Test
+	void testUpdatePerson_Unchanged() {
+		// Given
+		Person stored = entityMapper.toPerson(ResourceHelper
+				.getResourceAsType("json/create_person_request_success.json", PersonRequest.class));
+		stored.isNew();
+		UpdateAddressRequest addressRequest = entityMapper.toUpdateAddressRequest(stored);
+		when(updateAddress(stored.getId(), addressRequest)).thenReturn(Mono.just(stored));
+
+		// When
+		personService.updatePersonAddress(stored.getId(), addressRequest)
+				.as(StepVerifier::create)
+
+				// Then
+				.verifyComplete();
+		verify(personCache, never()).put(any(), any());
+		assertEquals(1, meterRegistry.counter("assessment.updates", "entity", "person", "outcome", "skipped").count());
+		assertEquals(0, meterRegistry.counter("assessment.updates", "entity", "person", "outcome", "performed")
+				.count());
+	}
+
+	@Test
+	void testUpdatePerson_RefreshesCache() {
+		// Given
+		Person stored = entityMapper.toPerson(ResourceHelper
+				.getResourceAsType("json/create_person_request_success.json", PersonRequest.class));
+		stored.isNew();
+		UpdateAddressRequest addressRequest = ResourceHelper
+				.getResourceAsType("json/update_person_request_success.json", UpdateAddressRequest.class);
+		PersonResponse response = entityMapper.toPersonResponse(stored);
+		when(personRepository.findResponsesByIdIn(List.of(stored.getId()))).thenReturn(Flux.just(response));
+		when(updateAddress(stored.getId(), addressRequest)).thenReturn(Mono.just(stored));
+		personService.getPersonById(stored.getId()).block();
+
+		// When
+		personService.updatePersonAddress(stored.getId(), addressRequest).block();
+
+		// Then
+		personService.getPersonById(stored.getId())
+				.as(StepVerifier::create)
+				.assertNext(actual -> assertEquals(addressRequest.street(), actual.street()))
+				.verifyComplete();
+		verify(personRepository).findResponsesByIdIn(List.of(stored.getId()));
+	}
+
+	private static PersonResponse personResponse(UUID id) {
+		return new PersonResponse(id, "First", "Last", LocalDate.of(1989, 8, 14), "Soendastraat", 25, null, "9715NH",
+				"Groningen", "Netherlands");
+	}
+
+	private Mono<Person> updateAddress(UUID id, UpdateAddressRequest address) {
+		return updateAddress(personRepository, id, address);
+	}
+
+	private static Mono<Person> updateAddress(PersonRepository repository, UUID id, UpdateAddressRequest address) {
+		return repository.updateAddressReturningPrevious(id, address.street(), address.houseNumber(), address.houseNumberAdditions(),
+				address.postalCode(), address.city(), address.country());
 	}
-}
\ No newline at end of file
+}
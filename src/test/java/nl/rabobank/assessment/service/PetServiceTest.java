@@ -1,8 +1,18 @@
 package nl.rabobank.assessment.service;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.postgresql.api.ErrorDetails;
+import io.r2dbc.postgresql.api.PostgresqlException;
+import io.r2dbc.postgresql.message.backend.Field;
+import io.r2dbc.spi.R2dbcDataIntegrityViolationException;
+import nl.rabobank.assessment.cache.BatchLoader;
+import nl.rabobank.assessment.cache.ReactiveCache;
 import nl.rabobank.assessment.mapper.EntityMapper;
 import nl.rabobank.assessment.mapper.EntityMapperImpl;
 import nl.rabobank.assessment.ui.rest.model.request.PetRequest;
+import nl.rabobank.assessment.ui.rest.model.response.ImportResultResponse;
 import nl.rabobank.assessment.ui.rest.model.response.PetResponse;
 import nl.rabobank.assessment.persistence.entity.Pet;
 import nl.rabobank.assessment.persistence.repository.PersonRepository;
@@ -14,18 +24,31 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 import reactor.test.StepVerifier;
 
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
@@ -44,24 +67,115 @@ class PetServiceTest {
 	@Mock
 	private PetRepository petRepository;
 
+	@Spy
+	private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+	@Spy
+	private ReactiveCache<UUID, List<PetResponse>> petsByOwnerCache =
+			new ReactiveCache<>(Caffeine.newBuilder().buildAsync());
+
+	@Spy
+	private BatchLoader<UUID, PetResponse> petLoader = new BatchLoader<>(ids -> petRepository.findResponsesByIdIn(ids),
+			PetResponse::id, Duration.ZERO, 100);
+
+	@Spy
+	private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
 	@InjectMocks
 	private PetService petService;
 
+	@Test
+	void testCreatePets() {
+		// Given
+		UUID owner = UUID.randomUUID();
+		UUID unknownOwner = UUID.randomUUID();
+		when(personRepository.findExistingIds(Set.of(owner, unknownOwner))).thenReturn(Flux.just(owner));
+		when(petRepository.insertAll(anyList())).thenAnswer(invocation -> {
+			List<Pet> pets = invocation.getArgument(0);
+			pets.forEach(Pet::isNew);
+			return Mono.just((long) pets.size());
+		});
+
+		// When
+		petService.createPets(Flux.just(new PetRequest("Lester", 12, owner),
+						new PetRequest("Bas", 14, unknownOwner),
+						new PetRequest(null, 3, owner),
+						new PetRequest("Stray", 1, null)))
+				.as(StepVerifier::create)
+
+				// Then
+				.assertNext(actual -> {
+					assertEquals(1, actual.line());
+					assertEquals(ImportResultResponse.Status.CREATED, actual.status());
+					assertNotNull(actual.id());
+				})
+				.assertNext(actual -> {
+					assertEquals(ImportResultResponse.Status.INVALID, actual.status());
+					assertEquals(String.format("No person with ID %s is registered. Try registering your pet to an " +
+							"actual person.", unknownOwner), actual.message());
+				})
+				.assertNext(actual -> assertEquals(new ImportResultResponse(3, ImportResultResponse.Status.INVALID,
+						null, "name must not be null"), actual))
+				.assertNext(actual -> assertEquals(ImportResultResponse.Status.CREATED, actual.status()))
+				.verifyComplete();
+		verify(personRepository).findExistingIds(Set.of(owner, unknownOwner));
+		verify(petRepository).insertAll(argThat(pets -> pets.size() == 2));
+		verifyNoMoreInteractions(petRepository, personRepository);
+	}
+
+	@Test
+	void testCreatePets_WithoutOwners() {
+		// Given
+		when(petRepository.insertAll(anyList())).thenReturn(Mono.just(1L));
+
+		// When
+		petService.createPets(Flux.just(new PetRequest("Stray", 1, null)))
+				.as(StepVerifier::create)
+
+				// Then
+				.assertNext(actual -> assertEquals(ImportResultResponse.Status.CREATED, actual.status()))
+				.verifyComplete();
+		verifyNoInteractions(personRepository);
+	}
+
 	@Test
 	void testCreatePet_WithNonExistentOwner() {
 		// Given
 		PetRequest petRequest = ResourceHelper
 				.getResourceAsType("json/create_pet_request_success.json", PetRequest.class);
-		when(personRepository.existsById(petRequest.personId())).thenReturn(Mono.just(false));
+		when(petRepository.save(any(Pet.class))).thenReturn(Mono.error(new DataIntegrityViolationException(
+				"insert", new OwnerConstraintViolation(PetService.OWNER_CONSTRAINT))));
 
 		// When
 		petService.createPet(petRequest)
 				.as(StepVerifier::create)
 
 				// Then
-				.verifyError(ResponseStatusException.class);
-		verify(personRepository).existsById(petRequest.personId());
+				.expectErrorMatches(throwable -> throwable instanceof ResponseStatusException exception &&
+						exception.getStatus() == HttpStatus.BAD_REQUEST &&
+						exception.getReason().contains(petRequest.personId().toString()))
+				.verify();
+		verify(entityMapper).toPet(petRequest);
+		verify(petRepository).save(any(Pet.class));
 		verifyNoMoreInteractions(petRepository, personRepository, entityMapper);
+		verifyNoInteractions(petsByOwnerCache);
+	}
+
+	@Test
+	void testCreatePet_OtherIntegrityViolation() {
+		// Given
+		PetRequest petRequest = ResourceHelper
+				.getResourceAsType("json/create_pet_request_success.json", PetRequest.class);
+		DataIntegrityViolationException violation = new DataIntegrityViolationException("insert",
+				new OwnerConstraintViolation("pet_pkey"));
+		when(petRepository.save(any(Pet.class))).thenReturn(Mono.error(violation));
+
+		// When
+		petService.createPet(petRequest)
+				.as(StepVerifier::create)
+
+				// Then
+				.verifyErrorMatches(violation::equals);
 	}
 
 	@Test
@@ -70,7 +184,6 @@ class PetServiceTest {
 		UUID expected = UUID.randomUUID();
 		PetRequest petRequest = ResourceHelper
 				.getResourceAsType("json/create_pet_request_success.json", PetRequest.class);
-		when(personRepository.existsById(petRequest.personId())).thenReturn(Mono.just(true));
 		when(petRepository.save(any(Pet.class))).thenAnswer(invocationOnMock -> {
 			ReflectionTestUtils.setField(invocationOnMock.getArgument(0, Pet.class), "id", expected);
 			return Mono.just(invocationOnMock.getArgument(0, Pet.class));
@@ -83,7 +196,6 @@ class PetServiceTest {
 				// Then
 				.assertNext(actual -> assertEquals(expected, actual))
 				.verifyComplete();
-		verify(personRepository).existsById(petRequest.personId());
 		verify(entityMapper).toPet(petRequest);
 		verify(petRepository).save(any(Pet.class));
 		verifyNoMoreInteractions(petRepository, personRepository, entityMapper);
@@ -116,7 +228,7 @@ class PetServiceTest {
 	void testDeletePet_NotFound() {
 		// Given
 		UUID id = UUID.randomUUID();
-		when(petRepository.existsById(id)).thenReturn(Mono.just(false));
+		when(petRepository.deleteReturningById(id)).thenReturn(Mono.empty());
 
 		// When
 		petService.deletePetById(id)
@@ -124,7 +236,7 @@ class PetServiceTest {
 
 				// Then
 				.verifyError();
-		verify(petRepository).existsById(id);
+		verify(petRepository).deleteReturningById(id);
 		verifyNoMoreInteractions(petRepository, personRepository, entityMapper);
 	}
 
@@ -132,8 +244,9 @@ class PetServiceTest {
 	void testDeletePet_Success() {
 		// Given
 		UUID id = UUID.randomUUID();
-		when(petRepository.existsById(id)).thenReturn(Mono.just(true));
-		when(petRepository.deleteById(id)).thenReturn(Mono.empty());
+		UUID personId = UUID.randomUUID();
+		when(petRepository.deleteReturningById(id)).thenReturn(Mono.just(pet));
+		when(pet.getPersonId()).thenReturn(personId);
 
 		// When
 		petService.deletePetById(id)
@@ -141,35 +254,195 @@ class PetServiceTest {
 
 				// Then
 				.verifyComplete();
-		verify(petRepository).existsById(id);
-		verify(petRepository).deleteById(id);
+		verify(petRepository).deleteReturningById(id);
+		verify(petsByOwnerCache).invalidate(personId);
 		verifyNoMoreInteractions(petRepository, personRepository, entityMapper);
 	}
 
 	@Test
 	void testGetAllPets() {
 		// Given
-		when(petRepository.findAll()).thenReturn(Flux.just(pet));
 		PetResponse petResponse = entityMapper.toPetResponse(pet);
+		when(petRepository.streamAllResponses()).thenReturn(Flux.just(petResponse));
 
 		// When
-		petService.getAllPets()
+		petService.getAllPets(null)
 				.as(StepVerifier::create)
 
 				// Then
 				.thenConsumeWhile(petResponse::equals)
 				.verifyComplete();
-		verify(petRepository).findAll();
-		verify(entityMapper, times(2)).toPetResponse(pet);
+		verify(petRepository).streamAllResponses();
+		verify(entityMapper).toPetResponse(pet);
 		verifyNoMoreInteractions(petRepository, personRepository, entityMapper);
 	}
 
+	@Test
+	void testGetPets_Pages() {
+		// Given
+		UUID after = UUID.randomUUID();
+		when(petRepository.findPage(10)).thenReturn(Flux.just(pet));
+		when(petRepository.findPageAfter(after, 10)).thenReturn(Flux.just(pet));
+
+		// When
+		Flux.concat(petService.getPets(null, null, 10),
+						petService.getPets(null, after, 10))
+				.as(StepVerifier::create)
+
+				// Then
+				.expectNextCount(2)
+				.verifyComplete();
+		verify(petRepository).findPage(10);
+		verify(petRepository).findPageAfter(after, 10);
+		verifyNoMoreInteractions(petRepository, personRepository);
+	}
+
+	@Test
+	void testGetPets_ByOwnerFromCache() {
+		// Given
+		UUID personId = UUID.randomUUID();
+		UUID first = UUID.fromString("7fffffff-0000-0000-0000-000000000000");
+		UUID second = UUID.fromString("80000000-0000-0000-0000-000000000000");
+		Flux<PetResponse> pets = Flux.just(petResponse(first, personId), petResponse(second, personId));
+		when(petRepository.findResponsesByPersonId(personId)).thenReturn(pets);
+		petService.getAllPets(personId).blockLast();
+
+		// When
+		Flux.concat(petService.getPets(personId, null, 1),
+						petService.getPets(personId, first, 1),
+						petService.getPets(personId, second, 1))
+				.map(PetResponse::id)
+				.as(StepVerifier::create)
+
+				// Then
+				.expectNext(first, second)
+				.verifyComplete();
+		verify(petRepository).findResponsesByPersonId(personId);
+		verifyNoMoreInteractions(petRepository, personRepository);
+	}
+
+	@Test
+	void testGetPets_ByOwnerNotCached() {
+		// Given
+		UUID personId = UUID.randomUUID();
+		UUID after = UUID.randomUUID();
+		when(petRepository.findPageByPersonId(personId, 10)).thenReturn(Flux.just(pet));
+		when(petRepository.findPageByPersonIdAfter(personId, after, 10)).thenReturn(Flux.empty());
+
+		// When
+		Flux.concat(petService.getPets(personId, null, 10),
+						petService.getPets(personId, after, 10))
+				.as(StepVerifier::create)
+
+				// Then
+				.expectNextCount(1)
+				.verifyComplete();
+		verify(petRepository).findPageByPersonId(personId, 10);
+		verify(petRepository).findPageByPersonIdAfter(personId, after, 10);
+		verifyNoMoreInteractions(petRepository, personRepository);
+		petsByOwnerCache.getIfPresent(personId)
+				.as(StepVerifier::create)
+				.verifyComplete();
+	}
+
+	@Test
+	void testCreatePet_InvalidatesOwner() {
+		// Given
+		UUID personId = UUID.randomUUID();
+		when(petRepository.findResponsesByPersonId(personId))
+				.thenReturn(Flux.empty())
+				.thenReturn(Flux.just(petResponse(UUID.randomUUID(), personId)));
+		when(petRepository.save(any(Pet.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+		// When
+		petService.getAllPets(personId).blockLast();
+		petService.createPet(new PetRequest("Lester", 12, personId)).block();
+
+		// Then
+		petService.getAllPets(personId)
+				.as(StepVerifier::create)
+				.expectNextCount(1)
+				.verifyComplete();
+		verify(petRepository, times(2)).findResponsesByPersonId(personId);
+	}
+
+	@Test
+	void testUpdatePet_InvalidatesPreviousAndNewOwner() {
+		// Given
+		UUID id = UUID.randomUUID();
+		UUID previousOwner = UUID.randomUUID();
+		UUID newOwner = UUID.randomUUID();
+		Pet previous = new Pet();
+		previous.setPersonId(previousOwner);
+		when(petRepository.updateReturningPrevious(id, "Lester", 12, newOwner)).thenReturn(Mono.just(previous));
+
+		// When
+		petService.updatePet(id, new PetRequest("Lester", 12, newOwner))
+				.as(StepVerifier::create)
+
+				// Then
+				.verifyComplete();
+		verify(petsByOwnerCache).invalidate(previousOwner);
+		verify(petsByOwnerCache).invalidate(newOwner);
+	}
+
+	@Test
+	void testGetPets_ByOwnerCacheDisabled() {
+		// Given
+		UUID personId = UUID.randomUUID();
+		PetService uncached = new PetService(entityMapper, personRepository, petRepository, validator,
+				ReactiveCache.disabled(), petLoader, meterRegistry);
+		when(petRepository.findPageByPersonId(personId, 10)).thenReturn(Flux.just(pet));
+
+		// When
+		Flux.concat(uncached.getPets(personId, null, 10), uncached.getPets(personId, null, 10))
+				.as(StepVerifier::create)
+
+				// Then
+				.expectNextCount(2)
+				.verifyComplete();
+		verify(petRepository, times(2)).findPageByPersonId(personId, 10);
+		verifyNoMoreInteractions(petRepository, personRepository);
+	}
+
+	@Test
+	void testGetPets_ByOwnerCacheDisabled_ConcurrentLookupsShareOneQuery() {
+		// Given
+		UUID personId = UUID.randomUUID();
+		PetService uncached = new PetService(entityMapper, personRepository, petRepository, validator,
+				ReactiveCache.disabled(), petLoader, meterRegistry);
+		AtomicInteger queries = new AtomicInteger();
+		when(petRepository.findResponsesByPersonId(personId)).thenReturn(Flux.defer(() -> {
+			queries.incrementAndGet();
+			return Flux.just(petResponse(UUID.randomUUID(), personId)).delayElements(Duration.ofMillis(100));
+		}));
+
+		// When
+		Flux.range(0, 200)
+				.flatMap(i -> uncached.getAllPets(personId).subscribeOn(Schedulers.parallel()), 200)
+				.as(StepVerifier::create)
+
+				// Then
+				.expectNextCount(200)
+				.verifyComplete();
+		assertEquals(1, queries.get());
+		uncached.getAllPets(personId)
+				.as(StepVerifier::create)
+				.expectNextCount(1)
+				.verifyComplete();
+		assertEquals(2, queries.get());
+	}
+
+	private static PetResponse petResponse(UUID id, UUID personId) {
+		return new PetResponse(id, "Lester", 12, personId);
+	}
+
 	@Test
 	void testGetPetById_Success() {
 		// Given
 		UUID id = UUID.randomUUID();
-		when(petRepository.findById(id)).thenReturn(Mono.just(pet));
-		PetResponse expected = entityMapper.toPetResponse(pet);
+		PetResponse expected = petResponse(id, UUID.randomUUID());
+		when(petRepository.findResponsesByIdIn(List.of(id))).thenReturn(Flux.just(expected));
 
 		// When
 		petService.getPetById(id)
@@ -178,8 +451,7 @@ class PetServiceTest {
 				// Then
 				.assertNext(actual -> assertEquals(expected, actual))
 				.verifyComplete();
-		verify(petRepository).findById(id);
-		verify(entityMapper, times(2)).toPetResponse(pet);
+		verify(petRepository).findResponsesByIdIn(List.of(id));
 		verifyNoMoreInteractions(petRepository, personRepository, entityMapper);
 	}
 
@@ -187,7 +459,7 @@ class PetServiceTest {
 	void testGetPetById_NotFound() {
 		// Given
 		UUID id = UUID.randomUUID();
-		when(petRepository.findById(id)).thenReturn(Mono.empty());
+		when(petRepository.findResponsesByIdIn(List.of(id))).thenReturn(Flux.empty());
 
 		// When
 		petService.getPetById(id)
@@ -195,7 +467,7 @@ class PetServiceTest {
 
 				// Then
 				.verifyError(ResponseStatusException.class);
-		verify(petRepository).findById(id);
+		verify(petRepository).findResponsesByIdIn(List.of(id));
 		verifyNoMoreInteractions(petRepository, personRepository, entityMapper);
 	}
 
@@ -205,7 +477,8 @@ class PetServiceTest {
 		UUID id = UUID.randomUUID();
 		PetRequest petRequest = ResourceHelper
 				.getResourceAsType("json/create_pet_request_success.json", PetRequest.class);
-		when(petRepository.findById(id)).thenReturn(Mono.empty());
+		when(petRepository.updateReturningPrevious(id, petRequest.name(), petRequest.age(), petRequest.personId()))
+				.thenReturn(Mono.empty());
 
 		// When
 		petService.updatePet(id, petRequest)
@@ -213,18 +486,39 @@ class PetServiceTest {
 
 				// Then
 				.verifyError(ResponseStatusException.class);
-		verify(petRepository).findById(id);
+		verify(petRepository).updateReturningPrevious(id, petRequest.name(), petRequest.age(), petRequest.personId());
 		verifyNoMoreInteractions(petRepository, personRepository, entityMapper);
 	}
 
+	@Test
+	void testUpdatePet_Unchanged() {
+		// Given
+		UUID id = UUID.randomUUID();
+		PetRequest petRequest = ResourceHelper
+				.getResourceAsType("json/create_pet_request_success.json", PetRequest.class);
+		Pet stored = entityMapper.toPet(petRequest);
+		when(petRepository.updateReturningPrevious(id, petRequest.name(), petRequest.age(), petRequest.personId()))
+				.thenReturn(Mono.just(stored));
+
+		// When
+		petService.updatePet(id, petRequest)
+				.as(StepVerifier::create)
+
+				// Then
+				.verifyComplete();
+		verifyNoInteractions(petsByOwnerCache);
+		assertEquals(1, meterRegistry.counter("assessment.updates", "entity", "pet", "outcome", "skipped").count());
+		assertEquals(0, meterRegistry.counter("assessment.updates", "entity", "pet", "outcome", "performed").count());
+	}
+
 	@Test
 	void testUpdatePet_Success() {
 		// Given
 		UUID id = UUID.randomUUID();
 		PetRequest petRequest = ResourceHelper
 				.getResourceAsType("json/create_pet_request_success.json", PetRequest.class);
-		when(petRepository.findById(id)).thenReturn(Mono.just(pet));
-		when(petRepository.save(pet)).thenReturn(Mono.just(pet));
+		when(petRepository.updateReturningPrevious(id, petRequest.name(), petRequest.age(), petRequest.personId()))
+				.thenReturn(Mono.just(pet));
 
 		// When
 		petService.updatePet(id, petRequest)
@@ -232,21 +526,21 @@ class PetServiceTest {
 
 				// Then
 				.verifyComplete();
-		verify(petRepository).findById(id);
-		verify(entityMapper).toPet(pet, petRequest);
-		verify(petRepository).save(pet);
+		verify(petRepository).updateReturningPrevious(id, petRequest.name(), petRequest.age(), petRequest.personId());
+		verify(entityMapper).toPetRequest(pet);
 		verifyNoMoreInteractions(petRepository, personRepository, entityMapper);
+		assertEquals(1, meterRegistry.counter("assessment.updates", "entity", "pet", "outcome", "performed").count());
 	}
 
 	@Test
 	void testGetPetByPersonId_Success() {
 		// Given
 		UUID personId = UUID.randomUUID();
-		when(petRepository.findPetsByPersonId(personId)).thenReturn(Flux.just(pet));
 		PetResponse expected = entityMapper.toPetResponse(pet);
+		when(petRepository.findResponsesByPersonId(personId)).thenReturn(Flux.just(expected));
 
 		// When
-		petService.getPetsByPersonId(personId)
+		petService.getAllPets(personId)
 				.as(StepVerifier::create)
 				// Then
 				.assertNext(actual -> assertEquals(expected, actual))
@@ -254,4 +548,19 @@ class PetServiceTest {
 
 
 	}
-}
\ No newline at end of file
+
+	private static class OwnerConstraintViolation extends R2dbcDataIntegrityViolationException
+			implements PostgresqlException {
+
+		private final ErrorDetails errorDetails;
+
+		OwnerConstraintViolation(String constraintName) {
+			this.errorDetails = new ErrorDetails(List.of(new Field(Field.FieldType.CONSTRAINT_NAME, constraintName)));
+		}
+
+		@Override
+		public ErrorDetails getErrorDetails() {
+			return errorDetails;
+		}
+	}
+}
@@ -0,0 +1,217 @@
+package nl.rabobank.assessment.ui.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import io.netty.buffer.PooledByteBufAllocator;
+import nl.rabobank.assessment.ui.rest.BinaryMediaTypes;
+import nl.rabobank.assessment.ui.rest.model.response.PersonResponse;
+import nl.rabobank.assessment.ui.rest.model.response.PetResponse;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseEncoderTest {
+
+	private static final int BUFFER_SIZE = 1024;
+
+	private static final int SEQUENCE_BATCH_SIZE = 256;
+
+	private static final ResolvableType PERSON_TYPE = ResolvableType.forClass(PersonResponse.class);
+
+	private static final ResolvableType PERSON_LIST_TYPE = ResolvableType.forClassWithGenerics(List.class,
+			PersonResponse.class);
+
+	private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+	private final ResponseEncoder encoder = new ResponseEncoder(objectMapper, BUFFER_SIZE, SEQUENCE_BATCH_SIZE,
+			PersonResponse.class, PetResponse.class);
+
+	private final Jackson2JsonEncoder jacksonEncoder = new Jackson2JsonEncoder(objectMapper);
+
+	private final NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+
+	private final List<PersonResponse> people = IntStream.range(0, 50).mapToObj(ResponseEncoderTest::person).toList();
+
+	@Test
+	void testCanEncode() {
+		assertThat(encoder.canEncode(PERSON_TYPE, MediaType.APPLICATION_JSON)).isTrue();
+		assertThat(encoder.canEncode(PERSON_LIST_TYPE, MediaType.APPLICATION_JSON)).isTrue();
+		assertThat(encoder.canEncode(ResolvableType.forInstance(new ArrayList<>(people)), MediaType.APPLICATION_JSON))
+				.isTrue();
+		assertThat(encoder.canEncode(ResolvableType.forClassWithGenerics(List.class, String.class),
+				MediaType.APPLICATION_JSON)).isFalse();
+		assertThat(encoder.canEncode(ResolvableType.forClass(PetResponse.class), MediaType.APPLICATION_NDJSON)).isTrue();
+		assertThat(encoder.canEncode(ResolvableType.forClass(String.class), MediaType.APPLICATION_JSON)).isFalse();
+		assertThat(encoder.canEncode(PERSON_TYPE, MediaType.TEXT_EVENT_STREAM)).isFalse();
+	}
+
+	@Test
+	void testEncode_WritesWhatTheJacksonEncoderWrites() {
+		assertThat(encode(Mono.just(people.get(0)), PERSON_TYPE, MediaType.APPLICATION_JSON))
+				.isEqualTo(encodeWithJackson(Mono.just(people.get(0)), PERSON_TYPE, MediaType.APPLICATION_JSON));
+		assertThat(encode(Flux.fromIterable(people), PERSON_TYPE, MediaType.APPLICATION_JSON))
+				.isEqualTo(encodeWithJackson(Flux.fromIterable(people), PERSON_TYPE, MediaType.APPLICATION_JSON));
+		assertThat(encode(Mono.just(people), PERSON_LIST_TYPE, MediaType.APPLICATION_JSON))
+				.isEqualTo(encodeWithJackson(Mono.just(people), PERSON_LIST_TYPE, MediaType.APPLICATION_JSON));
+		assertThat(encode(Flux.fromIterable(people), PERSON_TYPE, MediaType.APPLICATION_NDJSON))
+				.isEqualTo(encodeWithJackson(Flux.fromIterable(people), PERSON_TYPE, MediaType.APPLICATION_NDJSON));
+		assertThat(encode(Flux.empty(), PERSON_TYPE, MediaType.APPLICATION_JSON)).isEqualTo("[]");
+		assertThat(encode(Flux.empty(), PERSON_TYPE, MediaType.APPLICATION_NDJSON)).isEmpty();
+	}
+
+	@Test
+	void testEncode_Cbor() throws IOException {
+		// Given
+		ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build();
+		ResponseEncoder cborEncoder = new ResponseEncoder(cborMapper, MediaType.APPLICATION_CBOR,
+				BinaryMediaTypes.APPLICATION_CBOR_SEQ, BUFFER_SIZE, SEQUENCE_BATCH_SIZE, PersonResponse.class);
+
+		// When
+		byte[] array = bytes(cborEncoder.encode(Flux.fromIterable(people), bufferFactory, PERSON_TYPE,
+				MediaType.APPLICATION_CBOR, null));
+		byte[] sequence = bytes(cborEncoder.encode(Flux.fromIterable(people), bufferFactory, PERSON_TYPE,
+				BinaryMediaTypes.APPLICATION_CBOR_SEQ, null));
+		byte[] value = bytes(cborEncoder.encode(Mono.just(people.get(0)), bufferFactory, PERSON_TYPE,
+				MediaType.APPLICATION_CBOR, null));
+
+		// Then
+		assertThat(cborMapper.readValue(array, PersonResponse[].class)).containsExactlyElementsOf(people);
+		assertThat(cborMapper.readerFor(PersonResponse.class).readValues(sequence).readAll())
+				.containsExactlyElementsOf(people);
+		assertThat(cborMapper.readValue(value, PersonResponse.class)).isEqualTo(people.get(0));
+	}
+
+	@Test
+	void testEncode_BatchesElementsIntoBuffersOfTheBufferSize() {
+		// When
+		List<DataBuffer> buffers = encoder.encode(Flux.fromIterable(people), bufferFactory, PERSON_TYPE,
+						MediaType.APPLICATION_NDJSON, null)
+				.collectList()
+				.block();
+
+		// Then
+		int lineLength = objectMapper.valueToTree(people.get(0)).toString().length() + 1;
+		assertThat(buffers).hasSizeBetween(people.size() * lineLength / (BUFFER_SIZE + lineLength),
+				people.size() * lineLength / BUFFER_SIZE + 1);
+		assertThat(buffers.subList(0, buffers.size() - 1))
+				.allSatisfy(buffer -> assertThat(buffer.readableByteCount()).isBetween(BUFFER_SIZE,
+						BUFFER_SIZE + lineLength));
+		buffers.forEach(DataBufferUtils::release);
+	}
+
+	@Test
+	void testEncode_EmitsASequenceAfterEveryBatchOfValues() {
+		// Given
+		ResponseEncoder batchEncoder = new ResponseEncoder(objectMapper, BUFFER_SIZE, 2, PersonResponse.class);
+		int lineLength = objectMapper.valueToTree(people.get(0)).toString().length() + 1;
+
+		// When
+		batchEncoder.encode(Flux.fromIterable(people.subList(0, 3)).concatWith(Flux.never()), bufferFactory,
+						PERSON_TYPE, MediaType.APPLICATION_NDJSON, null)
+				.map(buffer -> {
+					int length = buffer.readableByteCount();
+					DataBufferUtils.release(buffer);
+					return length;
+				})
+				.as(StepVerifier::create)
+
+				// Then
+				.assertNext(length -> assertThat(length).isBetween(2 * lineLength - 2, 2 * lineLength + 2))
+				.expectNoEvent(Duration.ofMillis(100))
+				.thenCancel()
+				.verify();
+	}
+
+	@Test
+	void testEncode_DoesNotEmitAnArrayBeforeItsBufferIsFull() {
+		// Given
+		ResponseEncoder batchEncoder = new ResponseEncoder(objectMapper, BUFFER_SIZE, 2, PersonResponse.class);
+
+		// When
+		batchEncoder.encode(Flux.fromIterable(people.subList(0, 3)).concatWith(Flux.never()), bufferFactory,
+						PERSON_TYPE, MediaType.APPLICATION_JSON, null)
+				.as(StepVerifier::create)
+
+				// Then
+				.expectSubscription()
+				.expectNoEvent(Duration.ofMillis(100))
+				.thenCancel()
+				.verify();
+	}
+
+	@Test
+	void testEncode_ReleasesTheBufferOnError() {
+		// Given
+		List<DataBuffer> allocated = new ArrayList<>();
+		NettyDataBufferFactory trackingFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT) {
+			@Override
+			public NettyDataBuffer allocateBuffer(int initialCapacity) {
+				NettyDataBuffer buffer = super.allocateBuffer(initialCapacity);
+				allocated.add(buffer);
+				return buffer;
+			}
+		};
+
+		// When
+		encoder.encode(Flux.just(people.get(0)).concatWith(Mono.error(new IllegalStateException())), trackingFactory,
+						PERSON_TYPE, MediaType.APPLICATION_JSON, null)
+				.as(StepVerifier::create)
+
+				// Then
+				.expectError(IllegalStateException.class)
+				.verify();
+		assertThat(allocated).isNotEmpty()
+				.allSatisfy(buffer -> assertThat(((NettyDataBuffer) buffer).getNativeBuffer().refCnt()).isZero());
+	}
+
+	private String encode(Publisher<?> input, ResolvableType type, MimeType mimeType) {
+		return join(encoder.encode(input, bufferFactory, type, mimeType, null));
+	}
+
+	private String encodeWithJackson(Publisher<?> input, ResolvableType type, MimeType mimeType) {
+		return join(jacksonEncoder.encode(input, bufferFactory, type, mimeType, null));
+	}
+
+	private static String join(Flux<DataBuffer> buffers) {
+		return new String(bytes(buffers), StandardCharsets.UTF_8);
+	}
+
+	private static byte[] bytes(Flux<DataBuffer> buffers) {
+		return DataBufferUtils.join(buffers)
+				.map(buffer -> {
+					byte[] bytes = new byte[buffer.readableByteCount()];
+					buffer.read(bytes);
+					DataBufferUtils.release(buffer);
+					return bytes;
+				})
+				.defaultIfEmpty(new byte[0])
+				.block();
+	}
+
+	private static PersonResponse person(int i) {
+		return new PersonResponse(UUID.randomUUID(), "First " + i, "Last " + i, LocalDate.of(1989, 8, 14),
+				"Soendastraat", 25, i % 2 == 0 ? null : "A", "9715NH", "Groningen", "Netherlands");
+	}
+}
@@ -1,7 +1,11 @@
 package nl.rabobank.assessment.ui.rest;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import nl.rabobank.assessment.ui.rest.model.request.PersonRequest;
 import nl.rabobank.assessment.ui.rest.model.request.UpdateAddressRequest;
+import nl.rabobank.assessment.ui.rest.model.response.ImportResultResponse;
 import nl.rabobank.assessment.ui.rest.model.response.PersonResponse;
 import nl.rabobank.assessment.service.PersonService;
 import nl.rabobank.assessment.util.ResourceHelper;
@@ -9,18 +13,27 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.security.reactive.ReactiveSecurityAutoConfiguration;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
 import java.util.UUID;
 import java.util.stream.Stream;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -71,12 +84,110 @@ class PersonControllerTest {
 		verify(personService).createPerson(personRequest);
 	}
 
+	@Test
+	void testImportPeople_Success() {
+		// Given
+		PersonRequest personRequest = ResourceHelper
+				.getResourceAsType("json/create_person_request_success.json", PersonRequest.class);
+		ImportResultResponse created = new ImportResultResponse(1, ImportResultResponse.Status.CREATED,
+				UUID.randomUUID(), null);
+		ImportResultResponse duplicate = new ImportResultResponse(2, ImportResultResponse.Status.DUPLICATE, null,
+				"duplicate");
+		when(personService.importPeople(any())).thenAnswer(invocation -> invocation.<Flux<PersonRequest>>getArgument(0)
+				.collectList()
+				.flatMapMany(requests -> requests.equals(List.of(personRequest, personRequest)) ?
+						Flux.just(created, duplicate) : Flux.empty()));
+
+		// When
+		webTestClient.post()
+				.uri(PersonController.IMPORT_URL)
+				.contentType(MediaType.APPLICATION_NDJSON)
+				.accept(MediaType.APPLICATION_NDJSON)
+				.body(Flux.just(personRequest, personRequest), PersonRequest.class)
+				.exchange()
+
+				// Then
+				.expectStatus().isOk()
+				.returnResult(ImportResultResponse.class)
+				.getResponseBody()
+				.as(StepVerifier::create)
+				.expectNext(created, duplicate)
+				.verifyComplete();
+	}
+
+	@Test
+	void testImportPeople_CborSequence() throws IOException {
+		// Given
+		ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build();
+		PersonRequest personRequest = ResourceHelper
+				.getResourceAsType("json/create_person_request_success.json", PersonRequest.class);
+		ImportResultResponse created = new ImportResultResponse(1, ImportResultResponse.Status.CREATED,
+				UUID.randomUUID(), null);
+		ImportResultResponse duplicate = new ImportResultResponse(2, ImportResultResponse.Status.DUPLICATE, null,
+				"duplicate");
+		when(personService.importPeople(any())).thenAnswer(invocation -> invocation.<Flux<PersonRequest>>getArgument(0)
+				.collectList()
+				.flatMapMany(requests -> requests.equals(List.of(personRequest, personRequest)) ?
+						Flux.just(created, duplicate) : Flux.empty()));
+		ByteArrayOutputStream sequence = new ByteArrayOutputStream();
+		sequence.write(cborMapper.writeValueAsBytes(personRequest));
+		sequence.write(cborMapper.writeValueAsBytes(personRequest));
+
+		// When
+		byte[] body = webTestClient.post()
+				.uri(PersonController.IMPORT_URL)
+				.contentType(BinaryMediaTypes.APPLICATION_CBOR_SEQ)
+				.accept(BinaryMediaTypes.APPLICATION_CBOR_SEQ)
+				.bodyValue(sequence.toByteArray())
+				.exchange()
+
+				// Then
+				.expectStatus().isOk()
+				.expectHeader().contentType(BinaryMediaTypes.APPLICATION_CBOR_SEQ)
+				.expectBody(byte[].class)
+				.returnResult()
+				.getResponseBody();
+		assertThat(cborMapper.readerFor(ImportResultResponse.class).readValues(body).readAll())
+				.containsExactly(created, duplicate);
+	}
+
+	@Test
+	void testImportPeople_CborLargerThanDefaultInMemorySize() throws IOException {
+		// Given
+		ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build();
+		PersonRequest personRequest = ResourceHelper
+				.getResourceAsType("json/create_person_request_success.json", PersonRequest.class);
+		int people = 5000;
+		when(personService.importPeople(any())).thenAnswer(invocation -> invocation.<Flux<PersonRequest>>getArgument(0)
+				.count()
+				.map(count -> new ImportResultResponse(count, ImportResultResponse.Status.CREATED, null, null))
+				.flux());
+		byte[] body = cborMapper.writeValueAsBytes(Stream.generate(() -> personRequest).limit(people).toList());
+		assertThat(body.length).isGreaterThan(256 * 1024);
+
+		// When
+		webTestClient.post()
+				.uri(PersonController.IMPORT_URL)
+				.contentType(MediaType.APPLICATION_CBOR)
+				.accept(MediaType.APPLICATION_NDJSON)
+				.bodyValue(body)
+				.exchange()
+
+				// Then
+				.expectStatus().isOk()
+				.returnResult(ImportResultResponse.class)
+				.getResponseBody()
+				.as(StepVerifier::create)
+				.assertNext(actual -> assertThat(actual.line()).isEqualTo(people))
+				.verifyComplete();
+	}
+
 	@Test
 	void testGetAllPersons_Success() {
 		// Given
 		PersonResponse personResponse = ResourceHelper
 				.getResourceAsType("json/get_person_response_success.json", PersonResponse.class);
-		when(personService.getAllPeople()).thenReturn(Flux.just(personResponse));
+		when(personService.getPeople(null, 100)).thenReturn(Flux.just(personResponse));
 
 		// When
 		webTestClient.get()
@@ -84,7 +195,106 @@ class PersonControllerTest {
 				.exchange()
 
 				// Then
-				.expectStatus().isOk();
+				.expectStatus().isOk()
+				.expectHeader().contentType(MediaType.APPLICATION_JSON)
+				.expectHeader().doesNotExist(PageCursor.NEXT_CURSOR_HEADER);
+		verify(personService, never()).getAllPeople();
+	}
+
+	@Test
+	void testGetAllPersons_Smile() throws IOException {
+		// Given
+		ObjectMapper smileMapper = Jackson2ObjectMapperBuilder.json().factory(new SmileFactory()).build();
+		PersonResponse personResponse = ResourceHelper
+				.getResourceAsType("json/get_person_response_success.json", PersonResponse.class);
+		when(personService.getPeople(null, 100)).thenReturn(Flux.just(personResponse, personResponse));
+
+		// When
+		byte[] body = webTestClient.get()
+				.uri(PersonController.BASE_URL)
+				.accept(BinaryMediaTypes.APPLICATION_SMILE)
+				.exchange()
+
+				// Then
+				.expectStatus().isOk()
+				.expectHeader().contentType(BinaryMediaTypes.APPLICATION_SMILE)
+				.expectBody(byte[].class)
+				.returnResult()
+				.getResponseBody();
+		assertThat(smileMapper.readValue(body, PersonResponse[].class)).containsExactly(personResponse, personResponse);
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+	void testStreamAllPersons_Success(String mediaType) {
+		// Given
+		PersonResponse personResponse = ResourceHelper
+				.getResourceAsType("json/get_person_response_success.json", PersonResponse.class);
+		when(personService.getAllPeople()).thenReturn(Flux.just(personResponse, personResponse));
+
+		// When
+		webTestClient.get()
+				.uri(PersonController.BASE_URL)
+				.accept(MediaType.parseMediaType(mediaType))
+				.exchange()
+
+				// Then
+				.expectStatus().isOk()
+				.expectHeader().contentTypeCompatibleWith(mediaType)
+				.returnResult(PersonResponse.class)
+				.getResponseBody()
+				.as(StepVerifier::create)
+				.expectNext(personResponse, personResponse)
+				.verifyComplete();
+		verify(personService, never()).getPeople(any(), anyInt());
+	}
+
+	@Test
+	void testGetAllPersons_NextPage() {
+		// Given
+		PersonResponse personResponse = ResourceHelper
+				.getResourceAsType("json/get_person_response_success.json", PersonResponse.class);
+		UUID after = UUID.randomUUID();
+		when(personService.getPeople(after, 1)).thenReturn(Flux.just(personResponse));
+
+		// When
+		webTestClient.get()
+				.uri(uriBuilder -> uriBuilder.path(PersonController.BASE_URL)
+						.queryParam("limit", 1)
+						.queryParam("after", PageCursor.encode(after))
+						.build())
+				.exchange()
+
+				// Then
+				.expectStatus().isOk()
+				.expectHeader().valueEquals(PageCursor.NEXT_CURSOR_HEADER, PageCursor.encode(personResponse.id()));
+		verify(personService).getPeople(after, 1);
+	}
+
+	@ParameterizedTest
+	@MethodSource("testGetAllPersons_BadRequest_Parameters")
+	void testGetAllPersons_BadRequest(String limit, String after) {
+		// Given
+
+		// When
+		webTestClient.get()
+				.uri(uriBuilder -> uriBuilder.path(PersonController.BASE_URL)
+						.queryParam("limit", limit)
+						.queryParam("after", after)
+						.build())
+				.exchange()
+
+				// Then
+				.expectStatus().isBadRequest();
+		verify(personService, never()).getPeople(any(), anyInt());
+	}
+
+	private static Stream<Arguments> testGetAllPersons_BadRequest_Parameters() {
+		return Stream.of(
+				Arguments.of("0", null),
+				Arguments.of("1001", null),
+				Arguments.of("10", "not-a-cursor")
+		);
 	}
 
 	@ParameterizedTest
@@ -131,6 +341,47 @@ class PersonControllerTest {
 				.expectStatus().isBadRequest();
 	}
 
+	@Test
+	void testSearchPeople_Success() {
+		// Given
+		PersonResponse personResponse = ResourceHelper
+				.getResourceAsType("json/get_person_response_success.json", PersonResponse.class);
+		when(personService.searchPeople("jans", 10)).thenReturn(Flux.just(personResponse));
+
+		// When
+		webTestClient.get()
+				.uri(uriBuilder -> uriBuilder.path(PersonController.BASE_URL)
+						.pathSegment("search")
+						.queryParam("q", "jans")
+						.build())
+				.exchange()
+
+				// Then
+				.expectStatus().isOk()
+				.expectBodyList(PersonResponse.class).contains(personResponse).hasSize(1);
+
+		verify(personService, never()).findPersonByName(any(), any());
+	}
+
+	@Test
+	void testSearchPeople_BadRequest() {
+		// Given
+
+		// When
+		webTestClient.get()
+				.uri(uriBuilder -> uriBuilder.path(PersonController.BASE_URL)
+						.pathSegment("search")
+						.queryParam("q", "jans")
+						.queryParam("limit", PersonController.SEARCH_MAX_LIMIT + 1)
+						.build())
+				.exchange()
+
+				// Then
+				.expectStatus().isBadRequest();
+
+		verify(personService, never()).searchPeople(any(), anyInt());
+	}
+
 	@Test
 	void testGetPerson_Success() {
 		// Given
@@ -1,6 +1,9 @@
 package nl.rabobank.assessment.ui.rest;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import nl.rabobank.assessment.ui.rest.model.request.PetRequest;
+import nl.rabobank.assessment.ui.rest.model.response.ImportResultResponse;
 import nl.rabobank.assessment.ui.rest.model.response.PetResponse;
 import nl.rabobank.assessment.service.PetService;
 import nl.rabobank.assessment.util.ResourceHelper;
@@ -9,12 +12,18 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.security.reactive.ReactiveSecurityAutoConfiguration;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 
+import java.io.IOException;
+import java.util.List;
 import java.util.UUID;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -69,7 +78,7 @@ class PetControllerTest {
 		// Given
 		PetResponse petResponse = ResourceHelper
 				.getResourceAsType("json/get_pet_response_success.json", PetResponse.class);
-		when(petService.getAllPets()).thenReturn(Flux.just(petResponse));
+		when(petService.getPets(null, null, 100)).thenReturn(Flux.just(petResponse));
 
 		// When
 		webTestClient.get()
@@ -78,7 +87,7 @@ class PetControllerTest {
 
 				// Then
 				.expectStatus().isOk();
-		verify(petService).getAllPets();
+		verify(petService).getPets(null, null, 100);
 	}
 
 	@Test
@@ -87,7 +96,7 @@ class PetControllerTest {
 		UUID personId = UUID.randomUUID();
 		PetResponse petResponse = ResourceHelper
 				.getResourceAsType("json/get_pet_response_success.json", PetResponse.class);
-		when(petService.getPetsByPersonId(personId)).thenReturn(Flux.just(petResponse));
+		when(petService.getPets(personId, null, 100)).thenReturn(Flux.just(petResponse));
 
 		// When
 		webTestClient.get()
@@ -98,7 +107,109 @@ class PetControllerTest {
 
 				// Then
 				.expectStatus().isOk();
-		verify(petService).getPetsByPersonId(personId);
+		verify(petService).getPets(personId, null, 100);
+	}
+
+	@Test
+	void testCreatePets_Success() {
+		// Given
+		PetRequest petRequest = ResourceHelper
+				.getResourceAsType("json/create_pet_request_success.json", PetRequest.class);
+		ImportResultResponse created = new ImportResultResponse(1, ImportResultResponse.Status.CREATED,
+				UUID.randomUUID(), null);
+		when(petService.createPets(any())).thenAnswer(invocation -> invocation.<Flux<PetRequest>>getArgument(0)
+				.map(request -> created));
+
+		// When
+		webTestClient.post()
+				.uri(PetController.BATCH_URL)
+				.bodyValue(List.of(petRequest))
+				.exchange()
+
+				// Then
+				.expectStatus().isOk()
+				.expectBodyList(ImportResultResponse.class)
+				.contains(created)
+				.hasSize(1);
+	}
+
+	@Test
+	void testCreatePets_Cbor() throws IOException {
+		// Given
+		ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build();
+		PetRequest petRequest = ResourceHelper
+				.getResourceAsType("json/create_pet_request_success.json", PetRequest.class);
+		ImportResultResponse created = new ImportResultResponse(1, ImportResultResponse.Status.CREATED,
+				UUID.randomUUID(), null);
+		when(petService.createPets(any())).thenAnswer(invocation -> invocation.<Flux<PetRequest>>getArgument(0)
+				.map(request -> request.equals(petRequest) ? created : null));
+
+		// When
+		byte[] body = webTestClient.post()
+				.uri(PetController.BATCH_URL)
+				.contentType(MediaType.APPLICATION_CBOR)
+				.accept(MediaType.APPLICATION_CBOR)
+				.bodyValue(cborMapper.writeValueAsBytes(List.of(petRequest, petRequest)))
+				.exchange()
+
+				// Then
+				.expectStatus().isOk()
+				.expectHeader().contentType(MediaType.APPLICATION_CBOR)
+				.expectBody(byte[].class)
+				.returnResult()
+				.getResponseBody();
+		assertThat(cborMapper.readValue(body, ImportResultResponse[].class)).containsExactly(created, created);
+	}
+
+	@Test
+	void testStreamAllPetsForPerson_Success() {
+		// Given
+		UUID personId = UUID.randomUUID();
+		PetResponse petResponse = ResourceHelper
+				.getResourceAsType("json/get_pet_response_success.json", PetResponse.class);
+		when(petService.getAllPets(personId)).thenReturn(Flux.just(petResponse));
+
+		// When
+		webTestClient.get()
+				.uri(uriBuilder -> uriBuilder.path(PetController.BASE_URL)
+						.queryParam("personId", personId)
+						.build())
+				.accept(MediaType.APPLICATION_NDJSON)
+				.exchange()
+
+				// Then
+				.expectStatus().isOk()
+				.expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+				.returnResult(PetResponse.class)
+				.getResponseBody()
+				.as(StepVerifier::create)
+				.expectNext(petResponse)
+				.verifyComplete();
+		verify(petService).getAllPets(personId);
+	}
+
+	@Test
+	void testGetAllPetForPerson_NextPage() {
+		// Given
+		UUID personId = UUID.randomUUID();
+		UUID after = UUID.randomUUID();
+		PetResponse petResponse = ResourceHelper
+				.getResourceAsType("json/get_pet_response_success.json", PetResponse.class);
+		when(petService.getPets(personId, after, 1)).thenReturn(Flux.just(petResponse));
+
+		// When
+		webTestClient.get()
+				.uri(uriBuilder -> uriBuilder.path(PetController.BASE_URL)
+						.queryParam("personId", personId)
+						.queryParam("limit", 1)
+						.queryParam("after", PageCursor.encode(after))
+						.build())
+				.exchange()
+
+				// Then
+				.expectStatus().isOk()
+				.expectHeader().valueEquals(PageCursor.NEXT_CURSOR_HEADER, PageCursor.encode(petResponse.id()));
+		verify(petService).getPets(personId, after, 1);
 	}
 
 	@Test
@@ -0,0 +1,3 @@
+truncate table pet;
+truncate table person cascade;
+delete from "user" where username like 'seeded-%';
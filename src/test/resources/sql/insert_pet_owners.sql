@@ -0,0 +1,3 @@
+INSERT INTO person (id, first_name, last_name, date_of_birth, street, house_number, house_number_additions, postal_code, city, country)
+VALUES ('0fa281f4-9507-40dd-9165-7d6f49631cae', 'Jan', 'Jansen', '1990-01-01', 'Catharijnesingel', 20, null, '3511GB', 'Utrecht', 'Netherlands'),
+       ('0fa281f4-9507-40dd-9165-7d6f49631caf', 'Piet', 'Pietersen', '1991-02-02', 'Damrak', 1, null, '1012LG', 'Amsterdam', 'Netherlands');
@@ -0,0 +1,15 @@
+insert into person (id, first_name, last_name, date_of_birth, street, house_number, house_number_additions, postal_code, city, country)
+select gen_random_uuid(), 'First ' || i, 'Last ' || i, '1989-08-14', 'Soendastraat', i, null, '9715NH', 'Groningen', 'Netherlands'
+from generate_series(1, 10000) i;
+
+insert into pet (id, name, age, person_id)
+select gen_random_uuid(), 'Pet of ' || first_name, 3, id
+from person;
+
+insert into "user" (id, username, password, roles, enabled, locked)
+select gen_random_uuid(), 'seeded-' || i, 'not-a-hash', '{ROLE_USER}', true, false
+from generate_series(1, 10000) i;
+
+analyze person;
+analyze pet;
+analyze "user";